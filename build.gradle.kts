@@ -43,6 +43,13 @@ subprojects {
                     implementation(project(":spongegradle-testlib"))
                 }
                 testType.set(TestSuiteType.FUNCTIONAL_TEST)
+                targets.configureEach {
+                    testTask.configure {
+                        // Opt-in benchmarks, i.e. -Pspongegradle.benchmark=true
+                        project.properties.filterKeys { it.startsWith("spongegradle.benchmark") }
+                            .forEach { (key, value) -> systemProperty(key, value.toString()) }
+                    }
+                }
             }
 
             tasks.named("check") {
@@ -58,9 +65,16 @@ subprojects {
         "compileOnlyApi"(rootProject.libs.jetbrainsAnnotations)
     }
 
+    // Only stamp commit info into released jars, so every commit doesn't invalidate cached jars
     val indraGit = extensions.getByType(net.kyori.indra.git.IndraGitExtension::class)
+    normalization.runtimeClasspath.metaInf {
+        ignoreAttribute(net.kyori.indra.git.IndraGitExtension.MANIFEST_ATTRIBUTE_GIT_COMMIT)
+        ignoreAttribute(net.kyori.indra.git.IndraGitExtension.MANIFEST_ATTRIBUTE_GIT_BRANCH)
+    }
     tasks.withType(Jar::class).configureEach {
-        indraGit.applyVcsInformationToManifest(manifest)
+        if (net.kyori.indra.util.Versioning.isRelease(project)) {
+            indraGit.applyVcsInformationToManifest(manifest)
+        }
         manifest.attributes(
             "Specification-Title" to project.name,
             "Specification-Vendor" to "SpongePowered",
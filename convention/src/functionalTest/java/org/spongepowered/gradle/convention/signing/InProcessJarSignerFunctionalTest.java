@@ -0,0 +1,358 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Sign jars with keys generated by the JDK {@code keytool}.
+ */
+class InProcessJarSignerFunctionalTest {
+
+    private static final String ALIAS = "spongeTest";
+    private static final String PASSWORD = "hunter22";
+
+    private static @TempDir Path keys;
+    private static Path keyStore;
+
+    @BeforeAll
+    static void generateKeyStore() throws Exception {
+        InProcessJarSignerFunctionalTest.keyStore = InProcessJarSignerFunctionalTest.keyStore(
+            InProcessJarSignerFunctionalTest.keys.resolve("valid.jks")
+        );
+    }
+
+    @Test
+    void testSignerNameMatchesJarsigner() {
+        assertEquals("SPONGETE", InProcessJarSigner.signerName("spongeTest"));
+        assertEquals("MY_KEY", InProcessJarSigner.signerName("my.key"));
+        assertEquals("A-B_C", InProcessJarSigner.signerName("a-b_c"));
+    }
+
+    @Test
+    void testSignedJarVerifies(final @TempDir Path tempDir) throws Exception {
+        final Path jar = InProcessJarSignerFunctionalTest.mixedJar(tempDir.resolve("example.jar"));
+        final Path signed = tempDir.resolve("signed.jar");
+
+        assertTrue(InProcessJarSignerFunctionalTest.sign(jar, signed, InProcessJarSignerFunctionalTest.keyStore, true));
+
+        InProcessJarSignerFunctionalTest.assertSigned(signed);
+        InProcessJarSignerFunctionalTest.assertVerifiedByJarsigner(signed);
+        assertTrue(Files.notExists(tempDir.resolve("signed.jar.signed")), "the temporary signed copy should have been moved to the output");
+
+        // entries are copied without being recompressed
+        try (final ZipFile original = new ZipFile(jar.toFile()); final ZipFile copy = new ZipFile(signed.toFile())) {
+            final Enumeration<? extends ZipEntry> entries = original.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.getName().equals(JarFile.MANIFEST_NAME)) {
+                    continue;
+                }
+                final ZipEntry copied = copy.getEntry(entry.getName());
+                assertNotNull(copied, entry.getName());
+                assertEquals(entry.getMethod(), copied.getMethod(), entry.getName());
+                assertEquals(entry.getCompressedSize(), copied.getCompressedSize(), entry.getName());
+                assertEquals(entry.getCrc(), copied.getCrc(), entry.getName());
+            }
+        }
+    }
+
+    @Test
+    void testSignInPlace(final @TempDir Path tempDir) throws Exception {
+        final Path jar = InProcessJarSignerFunctionalTest.mixedJar(tempDir.resolve("example.jar"));
+
+        assertTrue(InProcessJarSignerFunctionalTest.sign(jar, jar, InProcessJarSignerFunctionalTest.keyStore, true));
+        InProcessJarSignerFunctionalTest.assertSigned(jar);
+
+        // signing again replaces the previous signature
+        assertTrue(InProcessJarSignerFunctionalTest.sign(jar, jar, InProcessJarSignerFunctionalTest.keyStore, true));
+        InProcessJarSignerFunctionalTest.assertSigned(jar);
+        InProcessJarSignerFunctionalTest.assertVerifiedByJarsigner(jar);
+        try (final ZipFile file = new ZipFile(jar.toFile())) {
+            assertEquals(1, file.stream().filter(entry -> entry.getName().endsWith(".SF")).count());
+        }
+    }
+
+    @Test
+    void testSignWithEcKey(final @TempDir Path tempDir) throws Exception {
+        final Path ecKeyStore = InProcessJarSignerFunctionalTest.keyStore(tempDir.resolve("ec.jks"), "EC", "256");
+        final Path jar = InProcessJarSignerFunctionalTest.mixedJar(tempDir.resolve("example.jar"));
+
+        assertTrue(InProcessJarSignerFunctionalTest.sign(jar, jar, ecKeyStore, true));
+
+        InProcessJarSignerFunctionalTest.assertSigned(jar);
+        InProcessJarSignerFunctionalTest.assertVerifiedByJarsigner(jar);
+        try (final ZipFile file = new ZipFile(jar.toFile())) {
+            assertNotNull(file.getEntry("META-INF/SPONGETE.EC"));
+        }
+    }
+
+    @Test
+    void testZip64JarIsSigned(final @TempDir Path tempDir) throws Exception {
+        // more entries than fit in a zip32 central directory
+        final Path jar = InProcessJarSignerFunctionalTest.jar(tempDir.resolve("example.jar"), 0x10000, 1);
+
+        assertTrue(InProcessJarSignerFunctionalTest.sign(jar, jar, InProcessJarSignerFunctionalTest.keyStore, true));
+
+        InProcessJarSignerFunctionalTest.assertSigned(jar);
+    }
+
+    @Test
+    void testStrictRejectsExpiredCertificate(final @TempDir Path tempDir) throws Exception {
+        final Path expired = InProcessJarSignerFunctionalTest.keyStore(tempDir.resolve("expired.jks"), "RSA", "2048", "-startdate", "-10d", "-validity", "1");
+        final Path jar = InProcessJarSignerFunctionalTest.jar(tempDir.resolve("example.jar"), 1, 128);
+        final byte[] unsigned = Files.readAllBytes(jar);
+
+        final GradleException ex = assertThrows(GradleException.class, () -> InProcessJarSignerFunctionalTest.sign(jar, jar, expired, true));
+        assertTrue(ex.getMessage().contains("not valid"), ex.getMessage());
+        assertTrue(Arrays.equals(unsigned, Files.readAllBytes(jar)), "a rejected jar should be left untouched");
+
+        // only a warning without strict mode
+        assertTrue(InProcessJarSignerFunctionalTest.sign(jar, jar, expired, false));
+        InProcessJarSignerFunctionalTest.assertSigned(jar);
+    }
+
+    @Test
+    void testUnknownAliasIsReported(final @TempDir Path tempDir) throws IOException {
+        final Path jar = InProcessJarSignerFunctionalTest.jar(tempDir.resolve("example.jar"), 1, 128);
+
+        final GradleException ex = assertThrows(
+            GradleException.class,
+            () -> InProcessJarSigner.sign(jar, jar, Files.readAllBytes(InProcessJarSignerFunctionalTest.keyStore), "missing", InProcessJarSignerFunctionalTest.PASSWORD, false, false)
+        );
+        assertTrue(ex.getMessage().contains("'missing'"), ex.getMessage());
+    }
+
+    /**
+     * Compare in-process signing against the external {@code jarsigner} the Ant task runs.
+     *
+     * <p>Enable with {@code -Pspongegradle.benchmark=true}. The jar size can be adjusted with
+     * {@code spongegradle.benchmark.jarSize}.</p>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "spongegradle.benchmark", matches = "true")
+    void benchmarkSigningLargeJar(final @TempDir Path tempDir) throws Exception {
+        final int jarSize = Integer.getInteger("spongegradle.benchmark.jarSize", 40 * 1024 * 1024);
+        final int entrySize = 16 * 1024;
+        final Path original = InProcessJarSignerFunctionalTest.jar(tempDir.resolve("original.jar"), jarSize / entrySize, entrySize);
+
+        final Path external = Files.copy(original, tempDir.resolve("external.jar"));
+        long start = System.nanoTime();
+        InProcessJarSignerFunctionalTest.run(
+            InProcessJarSignerFunctionalTest.jdkTool("jarsigner"),
+            "-keystore", InProcessJarSignerFunctionalTest.keyStore.toString(),
+            "-storepass", InProcessJarSignerFunctionalTest.PASSWORD,
+            external.toString(),
+            InProcessJarSignerFunctionalTest.ALIAS
+        );
+        final double externalSeconds = (System.nanoTime() - start) / 1e9;
+
+        final Path inProcess = tempDir.resolve("in-process.jar");
+        start = System.nanoTime();
+        InProcessJarSignerFunctionalTest.sign(original, inProcess, InProcessJarSignerFunctionalTest.keyStore, false);
+        final double inProcessSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(
+            "Signed a %d MiB jar: jarsigner %.2fs, in-process %.2fs%n",
+            Files.size(original) / (1024 * 1024),
+            externalSeconds,
+            inProcessSeconds
+        );
+        InProcessJarSignerFunctionalTest.assertSigned(inProcess);
+    }
+
+    private static boolean sign(final Path input, final Path output, final Path keyStore, final boolean strict) throws IOException {
+        return InProcessJarSigner.sign(input, output, Files.readAllBytes(keyStore), InProcessJarSignerFunctionalTest.ALIAS, InProcessJarSignerFunctionalTest.PASSWORD, false, strict);
+    }
+
+    private static void assertSigned(final Path jar) throws IOException {
+        final byte[] buf = new byte[8192];
+        try (final JarFile file = new JarFile(jar.toFile(), true)) {
+            assertNotNull(file.getEntry("META-INF/SPONGETE.SF"), "signature file");
+            final Enumeration<JarEntry> entries = file.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                // entries must be read fully before their signers are known
+                try (final InputStream is = file.getInputStream(entry)) {
+                    while (is.read(buf) != -1) {
+                        // discard
+                    }
+                }
+                if (!entry.isDirectory() && !entry.getName().startsWith("META-INF/")) {
+                    assertNotNull(entry.getCodeSigners(), () -> entry.getName() + " is not signed");
+                }
+            }
+        }
+
+        // streaming verification needs the signature files ahead of every other entry
+        try (final JarInputStream stream = new JarInputStream(Files.newInputStream(jar), true)) {
+            JarEntry entry;
+            while ((entry = stream.getNextJarEntry()) != null) {
+                while (stream.read(buf) != -1) {
+                    // discard
+                }
+                if (!entry.isDirectory() && !entry.getName().startsWith("META-INF/SPONGETE.")) {
+                    assertNotNull(entry.getCodeSigners(), entry.getName() + " is not signed when streamed");
+                }
+            }
+        }
+    }
+
+    private static void assertVerifiedByJarsigner(final Path jar) throws Exception {
+        final String output = InProcessJarSignerFunctionalTest.run(InProcessJarSignerFunctionalTest.jdkTool("jarsigner"), "-verify", jar.toString());
+        assertTrue(output.contains("jar verified."), output);
+    }
+
+    private static Path jar(final Path destination, final int entries, final int entrySize) throws IOException {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        final Random random = new Random(destination.getFileName().hashCode());
+        final byte[] contents = new byte[entrySize];
+        try (final OutputStream os = Files.newOutputStream(destination); final JarOutputStream jar = new JarOutputStream(os, manifest)) {
+            for (int i = 0; i < entries; i++) {
+                random.nextBytes(contents);
+                jar.putNextEntry(new JarEntry("org/example/Entry" + i + ".class"));
+                jar.write(contents);
+                jar.closeEntry();
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * Create a jar mixing stored and deflated entries, directories, and names long enough to wrap in the manifest.
+     */
+    private static Path mixedJar(final Path destination) throws IOException {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue("Implementation-Title", "example");
+        final byte[] text = String.join("\n", Collections.nCopies(500, "public class Example {}")).getBytes(StandardCharsets.UTF_8);
+        final CRC32 crc = new CRC32();
+        crc.update(text);
+        try (final OutputStream os = Files.newOutputStream(destination); final JarOutputStream jar = new JarOutputStream(os, manifest)) {
+            jar.putNextEntry(new JarEntry("org/"));
+            jar.closeEntry();
+            jar.putNextEntry(new JarEntry("org/example/Deflated.class"));
+            jar.write(text);
+            jar.closeEntry();
+
+            final JarEntry stored = new JarEntry("org/example/Stored.txt");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(text.length);
+            stored.setCompressedSize(text.length);
+            stored.setCrc(crc.getValue());
+            jar.putNextEntry(stored);
+            jar.write(text);
+            jar.closeEntry();
+
+            jar.putNextEntry(new JarEntry("org/example/with/a/rather/long/path/to/exceed/the/manifest/line/length/\u00e9t\u00e9/R\u00e9sum\u00e9.class"));
+            jar.write(text);
+            jar.closeEntry();
+
+            jar.putNextEntry(new JarEntry("META-INF/services/org.example.Service"));
+            jar.write("org.example.Deflated".getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        return destination;
+    }
+
+    private static Path keyStore(final Path destination) throws Exception {
+        return InProcessJarSignerFunctionalTest.keyStore(destination, "RSA", "2048");
+    }
+
+    private static Path keyStore(final Path destination, final String keyAlgorithm, final String keySize, final String... extraArgs) throws Exception {
+        final List<String> command = new ArrayList<>(Arrays.asList(
+            InProcessJarSignerFunctionalTest.jdkTool("keytool"),
+            "-genkeypair",
+            "-keystore", destination.toString(),
+            "-storetype", "JKS",
+            "-storepass", InProcessJarSignerFunctionalTest.PASSWORD,
+            "-keypass", InProcessJarSignerFunctionalTest.PASSWORD,
+            "-alias", InProcessJarSignerFunctionalTest.ALIAS,
+            "-keyalg", keyAlgorithm,
+            "-keysize", keySize,
+            "-dname", "CN=SpongeGradle Test"
+        ));
+        command.addAll(Arrays.asList(extraArgs));
+        InProcessJarSignerFunctionalTest.run(command.toArray(new String[0]));
+        return destination;
+    }
+
+    private static String jdkTool(final String name) {
+        return new File(System.getProperty("java.home"), "bin" + File.separator + name).getAbsolutePath();
+    }
+
+    private static String run(final String... command) throws Exception {
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        final byte[] output;
+        try (final InputStream is = process.getInputStream()) {
+            final ByteArrayOutputStream collected = new ByteArrayOutputStream();
+            final byte[] buf = new byte[4096];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                collected.write(buf, 0, read);
+            }
+            output = collected.toByteArray();
+        }
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), "timed out running " + command[0]);
+        final String result = new String(output, StandardCharsets.UTF_8);
+        assertEquals(0, process.exitValue(), () -> command[0] + " failed: " + result);
+        return result;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.gradle.api.Project;
+import org.gradle.api.services.BuildServiceRegistry;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Share signing services between projects only when they use the same key.
+ */
+class SigningServicesFunctionalTest {
+
+    // distinct strings with the same String.hashCode()
+    private static final String FIRST = "Aa";
+    private static final String SECOND = "BB";
+
+    @Test
+    void testKeyStoresWithSameHashCodeUseDifferentServices() {
+        assertEquals(SigningServicesFunctionalTest.FIRST.hashCode(), SigningServicesFunctionalTest.SECOND.hashCode());
+        final BuildServiceRegistry services = SigningServicesFunctionalTest.services();
+
+        final KeyStoreService first = KeyStoreService.register(services, SigningServicesFunctionalTest.FIRST).get();
+        final KeyStoreService second = KeyStoreService.register(services, SigningServicesFunctionalTest.SECOND).get();
+
+        assertEquals(SigningServicesFunctionalTest.FIRST, first.getParameters().getKeyStore().get());
+        assertEquals(SigningServicesFunctionalTest.SECOND, second.getParameters().getKeyStore().get());
+        assertSame(first, KeyStoreService.register(services, SigningServicesFunctionalTest.FIRST).get());
+    }
+
+    @Test
+    void testSigningKeysWithSameHashCodeUseDifferentServices() {
+        final BuildServiceRegistry services = SigningServicesFunctionalTest.services();
+
+        final PgpSignatoryService first = PgpSignatoryService.register(services, SigningServicesFunctionalTest.FIRST).get();
+        final PgpSignatoryService second = PgpSignatoryService.register(services, SigningServicesFunctionalTest.SECOND).get();
+
+        assertEquals(SigningServicesFunctionalTest.FIRST, first.armoredKey());
+        assertEquals(SigningServicesFunctionalTest.SECOND, second.armoredKey());
+        assertSame(first, PgpSignatoryService.register(services, SigningServicesFunctionalTest.FIRST).get());
+    }
+
+    private static BuildServiceRegistry services() {
+        final Project project = ProjectBuilder.builder().build();
+        return project.getGradle().getSharedServices();
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.testing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.gradle.api.tasks.testing.TestDescriptor;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Drive the listener with the events Gradle sends while running tests.
+ */
+class FailedTestOutputListenerFunctionalTest {
+
+    private static final String CLASS_NAME = "com.example.ExampleTest";
+
+    private final List<String> logged = new ArrayList<>();
+    private final TestDescriptor root = FailedTestOutputListenerFunctionalTest.descriptor("Gradle Test Run :test", null, null);
+    private final TestDescriptor testClass = FailedTestOutputListenerFunctionalTest.descriptor(
+        FailedTestOutputListenerFunctionalTest.CLASS_NAME,
+        FailedTestOutputListenerFunctionalTest.CLASS_NAME,
+        this.root
+    );
+    private final TestDescriptor test = FailedTestOutputListenerFunctionalTest.descriptor(
+        "testExample()",
+        FailedTestOutputListenerFunctionalTest.CLASS_NAME,
+        this.testClass
+    );
+
+    @Test
+    void testPassingTestOutputDiscarded(final @TempDir Path spill) {
+        final FailedTestOutputListener listener = this.listener(spill, 1024);
+
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "hello\n"));
+        listener.afterTest(this.test, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.SUCCESS));
+        listener.afterSuite(this.testClass, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.SUCCESS));
+
+        assertEquals(Collections.emptyList(), this.lines());
+    }
+
+    @Test
+    void testFailedTestOutputReplayed(final @TempDir Path spill) throws IOException {
+        final FailedTestOutputListener listener = this.listener(spill, 1024);
+
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "first\n"));
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "second\n"));
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdErr, "oops\n"));
+        listener.afterTest(this.test, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.FAILURE));
+
+        assertEquals(Arrays.asList(
+            "com.example.ExampleTest > testExample() STANDARD_OUT",
+            "    first",
+            "    second",
+            "com.example.ExampleTest > testExample() STANDARD_ERROR",
+            "    oops"
+        ), this.lines());
+        assertEquals(0, FailedTestOutputListenerFunctionalTest.fileCount(spill), "output below the threshold should stay in memory");
+    }
+
+    @Test
+    void testSpilledOutputReplayedAndDeleted(final @TempDir Path spill) throws IOException {
+        final FailedTestOutputListener listener = this.listener(spill, 64);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("com.example.ExampleTest > testExample() STANDARD_OUT");
+        for (int i = 0; i < 20; i++) {
+            listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "line " + i + "\n"));
+            expected.add("    line " + i);
+        }
+        assertEquals(1, FailedTestOutputListenerFunctionalTest.fileCount(spill), "output over the threshold should be written to disk");
+        assertEquals(Collections.emptyList(), this.lines());
+
+        listener.afterTest(this.test, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.FAILURE));
+
+        assertEquals(expected, this.lines());
+        assertEquals(0, FailedTestOutputListenerFunctionalTest.fileCount(spill));
+    }
+
+    @Test
+    void testSpilledOutputOfPassingTestDeleted(final @TempDir Path spill) throws IOException {
+        final FailedTestOutputListener listener = this.listener(spill, 16);
+
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "more than sixteen characters\n"));
+        assertEquals(1, FailedTestOutputListenerFunctionalTest.fileCount(spill));
+        listener.afterTest(this.test, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.SUCCESS));
+
+        assertEquals(Collections.emptyList(), this.lines());
+        assertEquals(0, FailedTestOutputListenerFunctionalTest.fileCount(spill));
+    }
+
+    @Test
+    void testClassLevelFailureReplaysClassOutput(final @TempDir Path spill) {
+        final FailedTestOutputListener listener = this.listener(spill, 1024);
+
+        // output from class setup belongs to the class, not any of its tests
+        listener.onOutput(this.testClass, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdErr, "setup failed\n"));
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "test output\n"));
+        listener.afterTest(this.test, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.SUCCESS));
+        listener.afterSuite(this.testClass, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.FAILURE));
+
+        assertEquals(Arrays.asList(
+            "com.example.ExampleTest STANDARD_ERROR",
+            "    setup failed"
+        ), this.lines());
+    }
+
+    @Test
+    void testUnfinishedOutputDiscardedAtEndOfRun(final @TempDir Path spill) throws IOException {
+        final FailedTestOutputListener listener = this.listener(spill, 16);
+
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "more than sixteen characters\n"));
+        listener.afterSuite(this.root, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.FAILURE));
+
+        assertEquals(Collections.emptyList(), this.lines());
+        assertEquals(0, FailedTestOutputListenerFunctionalTest.fileCount(spill));
+    }
+
+    @Test
+    void testTestsTrackedSeparately(final @TempDir Path spill) {
+        final FailedTestOutputListener listener = this.listener(spill, 1024);
+        final TestDescriptor other = FailedTestOutputListenerFunctionalTest.descriptor(
+            "testOther()",
+            FailedTestOutputListenerFunctionalTest.CLASS_NAME,
+            this.testClass
+        );
+
+        listener.onOutput(this.test, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "passing\n"));
+        listener.onOutput(other, FailedTestOutputListenerFunctionalTest.output(TestOutputEvent.Destination.StdOut, "failing\n"));
+        listener.afterTest(other, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.FAILURE));
+        listener.afterTest(this.test, FailedTestOutputListenerFunctionalTest.result(TestResult.ResultType.SUCCESS));
+
+        assertEquals(Arrays.asList(
+            "com.example.ExampleTest > testOther() STANDARD_OUT",
+            "    failing"
+        ), this.lines());
+    }
+
+    private FailedTestOutputListener listener(final Path spill, final int threshold) {
+        return new FailedTestOutputListener(spill.resolve("output").toFile(), threshold, this.logged::add);
+    }
+
+    /**
+     * Everything logged, split into non-empty lines.
+     */
+    private List<String> lines() {
+        return this.logged.stream()
+            .flatMap(message -> Arrays.stream(message.split("\\R")))
+            .filter(line -> !line.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    private static long fileCount(final Path spill) throws IOException {
+        final Path directory = spill.resolve("output");
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (final Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static TestDescriptor descriptor(final String name, final String className, final TestDescriptor parent) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getName", name);
+        values.put("getDisplayName", name);
+        values.put("getClassName", className);
+        values.put("getParent", parent);
+        return FailedTestOutputListenerFunctionalTest.fake(TestDescriptor.class, values);
+    }
+
+    private static TestOutputEvent output(final TestOutputEvent.Destination destination, final String message) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("getDestination", destination);
+        values.put("getMessage", message);
+        return FailedTestOutputListenerFunctionalTest.fake(TestOutputEvent.class, values);
+    }
+
+    private static TestResult result(final TestResult.ResultType type) {
+        return FailedTestOutputListenerFunctionalTest.fake(TestResult.class, Collections.singletonMap("getResultType", type));
+    }
+
+    /**
+     * Implement a Gradle interface with fixed values, which stays compatible as methods are added to it.
+     */
+    private static <T> T fake(final Class<T> type, final Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + values;
+                default:
+                    if (!values.containsKey(method.getName())) {
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    }
+                    return values.get(method.getName());
+            }
+        }));
+    }
+
+}
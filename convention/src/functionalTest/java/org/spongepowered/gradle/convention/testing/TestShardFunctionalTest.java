@@ -0,0 +1,231 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.testing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.file.FileTree;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Split test classes between shards, which together must run every class exactly once.
+ */
+class TestShardFunctionalTest {
+
+    private static final List<String> CLASSES = Arrays.asList(
+        "com.example.AlphaTest",
+        "com.example.BetaTest",
+        "com.example.GammaTest",
+        "com.example.DeltaTest",
+        "com.example.EpsilonTest",
+        "com.example.ZetaTest",
+        "com.example.EtaTest",
+        "com.example.ThetaTest",
+        "com.example.nested.IotaTest",
+        "com.example.nested.KappaTest",
+        "org.example.LambdaTest"
+    );
+
+    @Test
+    void testParseRejectsInvalidShards() {
+        final Project project = ProjectBuilder.builder().build();
+        for (final String spec : Arrays.asList("", "3", "a/4", "1/b", "0/4", "5/4", "1/0", "-1/2")) {
+            assertThrows(GradleException.class, () -> TestShard.parse(spec, project.files(), null), spec);
+        }
+    }
+
+    @Test
+    void testSplitByNameCoversEveryClassOnce() {
+        for (int count = 1; count <= TestShardFunctionalTest.CLASSES.size() + 1; count++) {
+            final List<Set<String>> shards = TestShard.assign(count, new HashSet<>(TestShardFunctionalTest.CLASSES), null);
+            assertEquals(count, shards.size());
+            TestShardFunctionalTest.assertEveryClassOnce(TestShardFunctionalTest.CLASSES, shards);
+
+            final int min = shards.stream().mapToInt(Set::size).min().getAsInt();
+            final int max = shards.stream().mapToInt(Set::size).max().getAsInt();
+            assertTrue(max - min <= 1, "shards should differ by at most one class, but were " + shards);
+        }
+    }
+
+    @Test
+    void testSplitByNameIgnoresDiscoveryOrder() {
+        final List<String> reversed = new ArrayList<>(TestShardFunctionalTest.CLASSES);
+        Collections.reverse(reversed);
+
+        assertEquals(
+            TestShard.assign(3, new LinkedHashSet<>(TestShardFunctionalTest.CLASSES), null),
+            TestShard.assign(3, new LinkedHashSet<>(reversed), null)
+        );
+    }
+
+    @Test
+    void testSplitByDurationCoversEveryClassOnce() {
+        final Map<String, Long> durations = new HashMap<>();
+        for (int i = 0; i < TestShardFunctionalTest.CLASSES.size(); i++) {
+            // some classes are missing, and take the average
+            if (i % 3 != 0) {
+                durations.put(TestShardFunctionalTest.CLASSES.get(i), 100L * (i + 1));
+            }
+        }
+        durations.put("com.example.RemovedTest", 5000L);
+
+        for (int count = 1; count <= TestShardFunctionalTest.CLASSES.size() + 1; count++) {
+            final List<Set<String>> shards = TestShard.assign(count, new HashSet<>(TestShardFunctionalTest.CLASSES), durations);
+            assertEquals(count, shards.size());
+            TestShardFunctionalTest.assertEveryClassOnce(TestShardFunctionalTest.CLASSES, shards);
+        }
+    }
+
+    @Test
+    void testSplitByDurationBalancesShards() {
+        final Map<String, Long> durations = new HashMap<>();
+        durations.put("com.example.SlowTest", 600L);
+        durations.put("com.example.MediumTest", 300L);
+        durations.put("com.example.FastTest", 200L);
+        durations.put("com.example.FasterTest", 100L);
+
+        final List<Set<String>> shards = TestShard.assign(2, durations.keySet(), durations);
+
+        assertEquals(new HashSet<>(Collections.singletonList("com.example.SlowTest")), shards.get(0));
+        assertEquals(new HashSet<>(Arrays.asList("com.example.MediumTest", "com.example.FastTest", "com.example.FasterTest")), shards.get(1));
+    }
+
+    @Test
+    void testShardsExcludeOtherClasses(final @TempDir Path tempDir) throws IOException {
+        final Project project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build();
+        final Path classes = tempDir.resolve("classes");
+        for (final String clazz : TestShardFunctionalTest.CLASSES) {
+            TestShardFunctionalTest.writeClass(classes, clazz);
+        }
+        // nested classes run with their owner
+        TestShardFunctionalTest.writeClass(classes, "com.example.AlphaTest$Nested");
+        TestShardFunctionalTest.writeClass(classes, "com.example.BetaTest$Nested");
+
+        final int count = 3;
+        final List<Set<String>> shards = new ArrayList<>();
+        for (int index = 1; index <= count; index++) {
+            final TestShard shard = TestShard.parse(index + "/" + count, project.files(classes.toFile()), null);
+            final FileTree included = project.fileTree(classes.toFile()).matching(pattern -> pattern.exclude(shard));
+            final Set<String> names = new HashSet<>();
+            included.visit(element -> {
+                if (!element.isDirectory()) {
+                    final String path = element.getRelativePath().getPathString();
+                    names.add(path.substring(0, path.length() - ".class".length()).replace('/', '.'));
+                }
+            });
+            shards.add(names);
+        }
+
+        final List<String> expected = new ArrayList<>(TestShardFunctionalTest.CLASSES);
+        expected.add("com.example.AlphaTest$Nested");
+        expected.add("com.example.BetaTest$Nested");
+        TestShardFunctionalTest.assertEveryClassOnce(expected, shards);
+        for (final Set<String> shard : shards) {
+            for (final String clazz : shard) {
+                if (clazz.contains("$")) {
+                    assertTrue(shard.contains(TestDurationRecorder.topLevelClass(clazz)), clazz + " should run with its owner");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSharedDurationsUsed(final @TempDir Path tempDir) throws IOException {
+        final Project project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build();
+        final Path classes = tempDir.resolve("classes");
+        TestShardFunctionalTest.writeClass(classes, "com.example.AlphaTest");
+        TestShardFunctionalTest.writeClass(classes, "com.example.BetaTest");
+        TestShardFunctionalTest.writeClass(classes, "com.example.GammaTest");
+        final Path durations = tempDir.resolve("durations.properties");
+        Files.write(durations, Arrays.asList(
+            "com.example.AlphaTest=100",
+            "com.example.BetaTest=100",
+            "com.example.GammaTest=1000"
+        ), StandardCharsets.UTF_8);
+
+        // by name, the first shard would run AlphaTest and GammaTest
+        final TestShard shard = TestShard.parse("1/2", project.files(classes.toFile()), durations.toFile());
+        final Set<String> included = new HashSet<>();
+        project.fileTree(classes.toFile()).matching(pattern -> pattern.exclude(shard)).visit(element -> {
+            if (!element.isDirectory()) {
+                included.add(element.getName());
+            }
+        });
+
+        assertEquals(Collections.singleton("GammaTest.class"), included);
+    }
+
+    @Test
+    void testMissingSharedDurationsFails(final @TempDir Path tempDir) throws IOException {
+        final Project project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build();
+        final Path classes = tempDir.resolve("classes");
+        TestShardFunctionalTest.writeClass(classes, "com.example.AlphaTest");
+
+        final TestShard shard = TestShard.parse("1/2", project.files(classes.toFile()), tempDir.resolve("missing.properties").toFile());
+        final FileTree included = project.fileTree(classes.toFile()).matching(pattern -> pattern.exclude(shard));
+
+        assertThrows(GradleException.class, included::getFiles);
+    }
+
+    private static void writeClass(final Path classes, final String className) throws IOException {
+        final Path file = classes.resolve(className.replace('.', '/') + ".class");
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[0]);
+    }
+
+    private static void assertEveryClassOnce(final List<String> classes, final List<Set<String>> shards) {
+        final Map<String, Integer> seen = new HashMap<>();
+        for (final Set<String> shard : shards) {
+            for (final String clazz : shard) {
+                seen.merge(clazz, 1, Integer::sum);
+            }
+        }
+        assertEquals(new HashSet<>(classes), seen.keySet(), "every class should be assigned to a shard");
+        for (final Map.Entry<String, Integer> entry : seen.entrySet()) {
+            assertEquals(1, entry.getValue(), entry.getKey() + " should be assigned to exactly one shard in " + shards);
+        }
+    }
+
+}
@@ -24,6 +24,7 @@
  */
 package org.spongepowered.gradle.convention;
 
+import com.diffplug.gradle.spotless.SpotlessExtension;
 import net.kyori.indra.Indra;
 import net.kyori.indra.IndraExtension;
 import net.kyori.indra.IndraPlugin;
@@ -31,9 +32,12 @@
 import net.kyori.indra.git.IndraGitExtension;
 import net.kyori.indra.licenser.spotless.IndraSpotlessLicenserExtension;
 import net.kyori.indra.licenser.spotless.IndraSpotlessLicenserPlugin;
+import net.kyori.indra.util.Versioning;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.java.archives.Attributes;
 import org.gradle.api.java.archives.Manifest;
 import org.gradle.api.logging.Logger;
@@ -42,41 +46,48 @@
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.plugins.PluginContainer;
 import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.publish.maven.tasks.AbstractPublishToMaven;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.compile.CompileOptions;
 import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.tasks.testing.logging.TestExceptionFormat;
 import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
 import org.gradle.jvm.tasks.Jar;
 import org.gradle.language.base.plugins.LifecycleBasePlugin;
+import org.gradle.plugins.signing.Sign;
 import org.gradle.plugins.signing.SigningExtension;
 import org.gradle.plugins.signing.SigningPlugin;
 import org.gradle.plugins.signing.signatory.pgp.PgpSignatoryProvider;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnknownNullability;
+import org.spongepowered.gradle.convention.signing.KeyStoreService;
+import org.spongepowered.gradle.convention.signing.PgpSignatoryService;
+import org.spongepowered.gradle.convention.signing.SharedSignatoryProvider;
+import org.spongepowered.gradle.convention.task.SignJarAction;
 import org.spongepowered.gradle.convention.task.SignJarTask;
+import org.spongepowered.gradle.convention.testing.FailedTestOutputListener;
+import org.spongepowered.gradle.convention.testing.TestDurationRecorder;
+import org.spongepowered.gradle.convention.testing.TestShard;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Arrays;
-import java.util.Base64;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public abstract class SpongeConventionPlugin implements Plugin<Project> {
     private static final Logger LOGGER = Logging.getLogger(SpongeConventionPlugin.class);
 
     private static final String DISABLE_SPOTLESS_LICENSER = "sponge.disableSpotlessLicenser";
+    private static final int TEST_OUTPUT_MEMORY_THRESHOLD = 64 * 1024;
+    private static final Pattern GC_SELECTION = Pattern.compile("-XX:\\+Use\\w+GC");
 
     private @UnknownNullability Project project;
 
@@ -102,6 +113,7 @@ public void apply(final Project target) {
 
         this.configurePublicationMetadata(indra);
         this.configureStandardTasks();
+        this.configurePerformance(sponge.performance());
         if (SpongeConventionPlugin.shouldApplyLicenser(this.project)) {
             this.configureLicenseHeaders(target.getExtensions().getByType(IndraSpotlessLicenserExtension.class));
         }
@@ -127,7 +139,41 @@ private void configureJarTasks(final Manifest manifest, final IndraGitExtension
         attributes.putIfAbsent("Implementation-Title", this.project.getName());
         attributes.putIfAbsent("Implementation-Vendor", "SpongePowered");
         attributes.putIfAbsent("Implementation-Version", this.project.getVersion());
-        git.applyVcsInformationToManifest(manifest);
+        this.configureVcsManifest(manifest, git);
+    }
+
+    /**
+     * Write VCS information into jar manifests only when it is worth changing every jar on each commit.
+     */
+    private void configureVcsManifest(final Manifest manifest, final IndraGitExtension git) {
+        // Consumers of these jars should not have to rebuild when only the commit changes
+        this.project.getNormalization().getRuntimeClasspath().metaInf(metaInf -> {
+            metaInf.ignoreAttribute(IndraGitExtension.MANIFEST_ATTRIBUTE_GIT_COMMIT);
+            metaInf.ignoreAttribute(IndraGitExtension.MANIFEST_ATTRIBUTE_GIT_BRANCH);
+        });
+
+        final @Nullable Object mode = this.project.findProperty(ConventionConstants.ProjectProperties.SPONGE_VCS_MANIFEST);
+        if (mode == null || "publications".equals(mode)) {
+            if (Versioning.isRelease(this.project)) {
+                git.applyVcsInformationToManifest(manifest);
+                return;
+            }
+            this.project.getGradle().getTaskGraph().whenReady(graph -> {
+                for (final Task task : graph.getAllTasks()) {
+                    if (task.getProject() == this.project && task instanceof AbstractPublishToMaven) {
+                        git.applyVcsInformationToManifest(manifest);
+                        return;
+                    }
+                }
+            });
+        } else if ("always".equals(mode)) {
+            git.applyVcsInformationToManifest(manifest);
+        } else if (!"never".equals(mode)) {
+            throw new GradleException(
+                "Unknown value '" + mode + "' for " + ConventionConstants.ProjectProperties.SPONGE_VCS_MANIFEST
+                    + ", expected one of always, never, or publications"
+            );
+        }
     }
 
     private void configureStandardTasks() {
@@ -137,14 +183,103 @@ private void configureStandardTasks() {
             compile.getOptions().getCompilerArgs().addAll(Arrays.asList("-Xmaxerrs", "1000"));
         });
 
+        final @Nullable Object testOutput = this.project.findProperty(ConventionConstants.ProjectProperties.SPONGE_TEST_OUTPUT);
+        final boolean bufferTestOutput = "failures".equals(testOutput);
+        if (testOutput != null && !bufferTestOutput && !"stream".equals(testOutput)) {
+            throw new GradleException(
+                "Unknown value '" + testOutput + "' for " + ConventionConstants.ProjectProperties.SPONGE_TEST_OUTPUT
+                    + ", expected one of stream or failures"
+            );
+        }
+
+        final @Nullable String testShard = (String) this.project.findProperty(ConventionConstants.ProjectProperties.TEST_SHARD);
+        final @Nullable String testShardDurations = (String) this.project.findProperty(ConventionConstants.ProjectProperties.TEST_SHARD_DURATIONS);
+
         tasks.withType(Test.class).configureEach(test -> {
+            // Recorded durations are cached with the test results, and can be shared to balance shards
+            final File durations = this.project.getLayout().getBuildDirectory().file("test-durations/" + test.getName() + ".properties").get().getAsFile();
+            test.getOutputs().file(durations).withPropertyName("testDurations");
+            test.addTestListener(new TestDurationRecorder(durations));
+            if (testShard != null) {
+                test.exclude(TestShard.parse(
+                    testShard,
+                    this.project.files((Callable<FileCollection>) test::getTestClassesDirs),
+                    testShardDurations == null ? null : this.project.file(testShardDurations)
+                ));
+            }
+
             final TestLoggingContainer testLogging = test.getTestLogging();
             testLogging.setExceptionFormat(TestExceptionFormat.FULL);
-            testLogging.setShowStandardStreams(true);
+            testLogging.setShowStandardStreams(!bufferTestOutput);
             testLogging.setShowStackTraces(true);
+            if (bufferTestOutput) {
+                final FailedTestOutputListener listener = new FailedTestOutputListener(
+                    this.project.getLayout().getBuildDirectory().dir("tmp/" + test.getName() + "/output").get().getAsFile(),
+                    SpongeConventionPlugin.TEST_OUTPUT_MEMORY_THRESHOLD
+                );
+                test.addTestListener(listener);
+                test.addTestOutputListener(listener);
+            }
         });
     }
 
+    /**
+     * Apply performance settings, leaving alone any value a build script sets on the task itself.
+     */
+    private void configurePerformance(final PerformanceConfiguration performance) {
+        final TaskContainer tasks = this.project.getTasks();
+        // Fork settings are plain values on the task. They are set before the build script configures the task,
+        // then updated once the build is configured, unless the build script has changed them in between
+        final Map<Test, Integer> appliedForks = new HashMap<>();
+        final Map<Test, Long> appliedForkEvery = new HashMap<>();
+        tasks.withType(Test.class).configureEach(test -> {
+            test.setMaxParallelForks(performance.getMaxParallelForks().get());
+            test.setForkEvery(performance.getForkEvery().get());
+            appliedForks.put(test, test.getMaxParallelForks());
+            appliedForkEvery.put(test, test.getForkEvery());
+        });
+        this.project.getGradle().getTaskGraph().whenReady(graph -> {
+            for (final Map.Entry<Test, Integer> applied : appliedForks.entrySet()) {
+                if (applied.getKey().getMaxParallelForks() == applied.getValue()) {
+                    applied.getKey().setMaxParallelForks(performance.getMaxParallelForks().get());
+                }
+            }
+            for (final Map.Entry<Test, Long> applied : appliedForkEvery.entrySet()) {
+                if (applied.getKey().getForkEvery() == applied.getValue()) {
+                    applied.getKey().setForkEvery(performance.getForkEvery().get());
+                }
+            }
+        });
+
+        this.project.afterEvaluate(p -> {
+            tasks.withType(JavaCompile.class).configureEach(compile -> {
+                final CompileOptions options = compile.getOptions();
+                if (!performance.getIncrementalCompilation().get()) {
+                    options.setIncremental(false);
+                }
+                if (options.getForkOptions().getMemoryMaximumSize() == null) {
+                    options.getForkOptions().setMemoryMaximumSize(performance.getCompilerMaximumHeap().getOrNull());
+                }
+            });
+
+            tasks.withType(Test.class).configureEach(test -> SpongeConventionPlugin.addTestJvmArgs(test, performance.getTestJvmArgs().get()));
+        });
+    }
+
+    private static void addTestJvmArgs(final Test test, final List<String> args) {
+        final @Nullable List<String> taskArgs = test.getJvmArgs();
+        if (taskArgs != null && taskArgs.stream().anyMatch(SpongeConventionPlugin::selectsCollector)) {
+            // The JVM will not start with more than one collector selected, so the task's own choice wins
+            test.jvmArgs(args.stream().filter(arg -> !SpongeConventionPlugin.selectsCollector(arg)).collect(Collectors.toList()));
+        } else {
+            test.jvmArgs(args);
+        }
+    }
+
+    private static boolean selectsCollector(final String jvmArg) {
+        return SpongeConventionPlugin.GC_SELECTION.matcher(jvmArg).matches();
+    }
+
     private void applyPlugins(final PluginContainer plugins) {
         plugins.apply(IndraPlugin.class);
         if (SpongeConventionPlugin.shouldApplyLicenser(this.project)) {
@@ -177,6 +312,16 @@ private void configurePublicationMetadata(final IndraExtension indra) {
     private void configureLicenseHeaders(final IndraSpotlessLicenserExtension licenses) {
         licenses.licenseHeaderFile(this.project.getRootProject().file(ConventionConstants.Locations.LICENSE_HEADER));
         licenses.property("name", this.project.getRootProject().getName());
+
+        final @Nullable String ratchetFrom = (String) this.project.findProperty(ConventionConstants.ProjectProperties.SPONGE_LICENSE_RATCHET_FROM);
+        // A blank ref, or one like "origin/$GITHUB_BASE_REF" outside of a pull request, checks every file
+        if (ratchetFrom != null && !ratchetFrom.trim().isEmpty() && !ratchetFrom.endsWith("/")) {
+            this.project.afterEvaluate(p -> {
+                if (!Versioning.isRelease(p)) {
+                    p.getExtensions().getByType(SpotlessExtension.class).ratchetFrom(ratchetFrom);
+                }
+            });
+        }
     }
 
     private void configureSigning(final SigningExtension extension) {
@@ -184,21 +329,14 @@ private void configureSigning(final SigningExtension extension) {
         final String spongeSigningPassword = (String) this.project.findProperty(ConventionConstants.ProjectProperties.SPONGE_SIGNING_PASSWORD);
         if (spongeSigningKey != null && spongeSigningPassword != null) {
             final File keyFile = this.project.file(spongeSigningKey);
-            if (keyFile.exists()) {
-                final StringBuilder contents = new StringBuilder();
-                try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(keyFile), StandardCharsets.UTF_8))) {
-                    final char[] buf = new char[2048];
-                    int read;
-                    while ((read = reader.read(buf)) != -1) {
-                        contents.append(buf, 0, read);
-                    }
-                } catch (final IOException ex) {
-                    throw new GradleException("Failed to read Sponge key file", ex);
-                }
-                extension.useInMemoryPgpKeys(contents.toString(), spongeSigningPassword);
-            } else {
-                extension.useInMemoryPgpKeys(spongeSigningKey, spongeSigningPassword);
-            }
+            // The key is read and decrypted once per build, rather than once in every project
+            final Provider<PgpSignatoryService> signatory = PgpSignatoryService.register(
+                this.project.getGradle().getSharedServices(),
+                keyFile.exists() ? keyFile.getAbsolutePath() : spongeSigningKey
+            );
+            extension.useInMemoryPgpKeys(signatory.get().armoredKey(), spongeSigningPassword);
+            extension.setSignatories(new SharedSignatoryProvider(signatory, extension.getSignatories()));
+            this.project.getTasks().withType(Sign.class).configureEach(sign -> sign.usesService(signatory));
         } else {
             extension.setSignatories(new PgpSignatoryProvider()); // don't use gpg agent
         }
@@ -212,48 +350,41 @@ private void configureJarSigning() {
         // We have to replace the default artifact which is a bit ugly
         // https://github.com/gradle/gradle/pull/13650 should make it easier
         final String[] outgoingConfigurations = {JavaPlugin.API_ELEMENTS_CONFIGURATION_NAME, JavaPlugin.RUNTIME_ELEMENTS_CONFIGURATION_NAME};
-        final String keyStoreProp = (String) this.project.property(ConventionConstants.ProjectProperties.SPONGE_KEY_STORE);
-        final File fileTemp = new File(keyStoreProp);
-        final File keyStoreFile;
-        if (fileTemp.exists()) {
-            keyStoreFile = fileTemp;
-        } else {
-            // Write keystore to a temporary file
-            final Path dest = this.project.getLayout().getProjectDirectory().file(".gradle/signing-key").getAsFile().toPath();
-            try {
-                Files.createDirectories(dest.getParent());
-                Files.createFile(dest, PosixFilePermissions.asFileAttribute(new HashSet<>(Arrays.asList(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE))));
-            } catch (final IOException ex) {
-                LOGGER.debug("Failed to create and set permissions on temporary key file", ex);
-            }
-
-            final byte[] decoded = Base64.getDecoder().decode(keyStoreProp);
-            try (final OutputStream out = Files.newOutputStream(dest)) {
-                out.write(decoded);
-            } catch (final IOException ex) {
-                throw new GradleException("Unable to write key file to disk", ex);
+        // The key store is only read, or decoded from base64, when a jar is signed
+        final Provider<KeyStoreService> keyStore = KeyStoreService.register(
+            this.project.getGradle().getSharedServices(),
+            (String) this.project.property(ConventionConstants.ProjectProperties.SPONGE_KEY_STORE)
+        );
+        final String alias = (String) this.project.property(ConventionConstants.ProjectProperties.SPONGE_KEY_STORE_ALIAS);
+        final String storePassword = (String) this.project.property(ConventionConstants.ProjectProperties.SPONGE_KEY_STORE_PASSWORD);
+        final boolean signInPlace = "true".equals(this.project.findProperty(ConventionConstants.ProjectProperties.SPONGE_SIGN_JAR_IN_PLACE));
+        this.project.getPlugins().withType(JavaPlugin.class, $ -> {
+            final TaskProvider<Jar> jarTask = this.project.getTasks().named(JavaPlugin.JAR_TASK_NAME, Jar.class);
+            if (signInPlace) {
+                jarTask.configure(jar -> {
+                    jar.usesService(keyStore);
+                    jar.getInputs().property("signingKeyStore", keyStore.map(KeyStoreService::fingerprint));
+                    jar.getInputs().property("signingAlias", alias);
+                    jar.doLast("signJar", new SignJarAction(keyStore, alias, storePassword, false));
+                });
+                return;
             }
 
-            // Delete the temporary file when the runtime exits
-            keyStoreFile = dest.toFile();
-            keyStoreFile.deleteOnExit();
-        }
-
-        this.project.getTasks().withType(Jar.class).matching(it -> it.getName().equals("jar")).whenTaskAdded(jarTask -> {
-            jarTask.getArchiveClassifier().set("unsigned");
+            jarTask.configure(jar -> jar.getArchiveClassifier().set("unsigned"));
             final TaskProvider<SignJarTask> sign = this.project.getTasks().register("signJar", SignJarTask.class, config -> {
-                config.dependsOn(jarTask);
-                config.from(this.project.zipTree(jarTask.getOutputs().getFiles().getSingleFile()));
-                config.setManifest(jarTask.getManifest());
-                config.getArchiveClassifier().set("");
-                config.getKeyStore().set(keyStoreFile);
-                config.getAlias().set((String) this.project.property(ConventionConstants.ProjectProperties.SPONGE_KEY_STORE_ALIAS));
-                config.getStorePassword().set((String) this.project.property(ConventionConstants.ProjectProperties.SPONGE_KEY_STORE_PASSWORD));
+                config.getInputFile().set(jarTask.flatMap(Jar::getArchiveFile));
+                config.getDestinationDirectory().set(jarTask.flatMap(Jar::getDestinationDirectory));
+                config.getArchiveFileName().set(jarTask.flatMap(jar -> jar.getArchiveFileName()
+                    .map(name -> SpongeConventionPlugin.removeClassifier(name, "unsigned"))));
+                config.usesService(keyStore);
+                config.getKeyStoreService().set(keyStore);
+                config.getAlias().set(alias);
+                config.getStorePassword().set(storePassword);
             });
 
             for (final String configName : outgoingConfigurations) {
                 this.project.getConfigurations().named(configName, conf -> {
-                    conf.getOutgoing().artifact(sign);
+                    conf.getOutgoing().artifact(sign.flatMap(SignJarTask::getArchiveFile));
                 });
             }
 
@@ -270,6 +401,14 @@ private void configureJarSigning() {
         });
     }
 
+    private static String removeClassifier(final String archiveName, final String classifier) {
+        final int index = archiveName.lastIndexOf('-' + classifier);
+        if (index == -1) {
+            return archiveName;
+        }
+        return archiveName.substring(0, index) + archiveName.substring(index + classifier.length() + 1);
+    }
+
     private static boolean shouldApplyLicenser(final Project project) {
         return !"true".equals(project.findProperty(SpongeConventionPlugin.DISABLE_SPOTLESS_LICENSER));
     }
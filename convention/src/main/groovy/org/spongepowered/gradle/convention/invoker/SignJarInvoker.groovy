@@ -34,19 +34,24 @@ class SignJarInvoker {
     static void signJar(
         final AntBuilder ant,
         final File jar,
+        final File signedJar,
         final String alias,
         final String storepass,
         final File keystore,
         final boolean verbose,
         final boolean strict
     ) {
-        ant.signjar(
+        final Map<String, Object> args = [
             jar: jar,
             alias: alias,
             storepass: storepass,
             keystore: keystore,
             verbose: verbose,
             strict: strict
-        )
+        ]
+        if (signedJar != jar) {
+            args.signedjar = signedJar
+        }
+        ant.signjar(args)
     }
 }
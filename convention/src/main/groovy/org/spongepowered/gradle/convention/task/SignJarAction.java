@@ -0,0 +1,77 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.task;
+
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.bundling.AbstractArchiveTask;
+import org.spongepowered.gradle.convention.invoker.SignJarInvoker;
+import org.spongepowered.gradle.convention.signing.InProcessJarSigner;
+import org.spongepowered.gradle.convention.signing.KeyStoreService;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+/**
+ * Sign the output of an archive task in place, as an action of that task.
+ */
+public final class SignJarAction implements Action<Task> {
+    private final Provider<KeyStoreService> keyStore;
+    private final String alias;
+    private final String storePassword;
+    private final boolean strict;
+
+    public SignJarAction(final Provider<KeyStoreService> keyStore, final String alias, final String storePassword, final boolean strict) {
+        this.keyStore = keyStore;
+        this.alias = alias;
+        this.storePassword = storePassword;
+        this.strict = strict;
+    }
+
+    @Override
+    public void execute(final Task task) {
+        final File jar = ((AbstractArchiveTask) task).getArchiveFile().get().getAsFile();
+        final KeyStoreService keyStore = this.keyStore.get();
+        SignJarAction.sign(task, jar, jar, keyStore.contents(), keyStore::file, this.alias, this.storePassword, this.strict);
+    }
+
+    static void sign(
+        final Task task,
+        final File input,
+        final File output,
+        final byte[] keyStore,
+        final Supplier<File> keyStoreFile,
+        final String alias,
+        final String storePassword,
+        final boolean strict
+    ) {
+        final boolean verbose = task.getLogger().isInfoEnabled();
+        if (!InProcessJarSigner.sign(input.toPath(), output.toPath(), keyStore, alias, storePassword, verbose, strict)) {
+            SignJarInvoker.signJar(task.getAnt(), input, output, alias, storePassword, keyStoreFile.get(), verbose, strict);
+        }
+    }
+
+}
@@ -24,46 +24,156 @@
  */
 package org.spongepowered.gradle.convention.task;
 
+import org.gradle.api.GradleException;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.jvm.tasks.Jar;
-import org.spongepowered.gradle.convention.invoker.SignJarInvoker;
+import org.gradle.workers.WorkerExecutor;
+import org.spongepowered.gradle.convention.signing.InProcessJarSigner;
+import org.spongepowered.gradle.convention.signing.KeyStoreService;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import javax.inject.Inject;
+
+/**
+ * Pack a jar, or take an existing one, and sign it.
+ *
+ * <p>An existing jar is signed as it is, with its entries copied without being recompressed,
+ * so the signed jar only differs from its input by its signature.</p>
+ *
+ * <p>The key store is identified by its contents and the alias, not its location,
+ * so signed jars can be reused from the build cache wherever the build runs.</p>
+ */
+@CacheableTask
 public abstract class SignJarTask extends Jar {
+    /**
+     * An existing jar to sign, instead of packing the contents of this task.
+     *
+     * @return the jar to sign
+     */
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getInputFile();
+
     @Input
     public abstract Property<String> getAlias();
 
-    @Input
+    /**
+     * The password of the key store.
+     *
+     * <p>This is not an input, as it cannot change the signature
+     * produced by a given key.</p>
+     *
+     * @return the store password
+     */
+    @Internal
     public abstract Property<String> getStorePassword();
 
+    /**
+     * The key store holding the signing key, unless {@link #getKeyStoreService()} is set.
+     *
+     * @return the key store file
+     */
     @InputFile
-    @PathSensitive(PathSensitivity.ABSOLUTE)
+    @Optional
+    @PathSensitive(PathSensitivity.NONE)
     public abstract RegularFileProperty getKeyStore();
 
+    /**
+     * A key store shared by every task in the build that signs with it, used instead of {@link #getKeyStore()}.
+     *
+     * @return the key store service
+     */
+    @Internal
+    public abstract Property<KeyStoreService> getKeyStoreService();
+
+    /**
+     * A digest of the contents of the key store service, which identifies the signing key with the alias.
+     *
+     * @return the key store fingerprint
+     */
+    @Input
+    @Optional
+    public Provider<String> getKeyStoreFingerprint() {
+        return this.getKeyStoreService().map(KeyStoreService::fingerprint);
+    }
+
     @Input
     public abstract Property<Boolean> getStrict();
 
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
     public SignJarTask() {
         this.getStrict().convention(false);
+        // an existing jar is the source of the task, so the task is not skipped as having no source
+        this.from(this.getInputFile().map(Collections::singleton).orElse(Collections.emptySet()));
     }
 
     @Override
     public void copy() {
-        super.copy();
-        if (this.getDidWork()) {
-            SignJarInvoker.signJar(
-                this.getAnt(),
-                this.getArchiveFile().get().getAsFile(),
-                this.getAlias().get(),
-                this.getStorePassword().get(),
-                this.getKeyStore().get().getAsFile(),
-                this.getLogger().isInfoEnabled(),
-                this.getStrict().get()
-            );
+        final File output = this.getArchiveFile().get().getAsFile();
+        final File input;
+        if (this.getInputFile().isPresent()) {
+            input = this.getInputFile().get().getAsFile();
+            try {
+                Files.createDirectories(output.getParentFile().toPath());
+            } catch (final IOException ex) {
+                throw new GradleException("Unable to create directory for " + output, ex);
+            }
+            this.setDidWork(true);
+        } else {
+            super.copy();
+            if (!this.getDidWork()) {
+                return;
+            }
+            input = output;
+        }
+
+        if (!this.getKeyStoreService().isPresent() && !this.getKeyStore().isPresent()) {
+            throw new GradleException("No key store was set to sign " + output);
+        }
+
+        if (InProcessJarSigner.canSignAnyJar()) {
+            this.getWorkerExecutor().noIsolation().submit(SignJarWorkAction.class, params -> {
+                params.getInputFile().set(input);
+                params.getArchiveFile().set(output);
+                params.getKeyStore().set(this.getKeyStoreService());
+                params.getKeyStoreFile().set(this.getKeyStore());
+                params.getAlias().set(this.getAlias());
+                params.getStorePassword().set(this.getStorePassword());
+                params.getVerbose().set(this.getLogger().isInfoEnabled());
+                params.getStrict().set(this.getStrict());
+            });
+            return;
+        }
+
+        // Without the JDK signer, some jars can only be signed by Ant from the task itself
+        if (this.getKeyStoreService().isPresent()) {
+            final KeyStoreService keyStore = this.getKeyStoreService().get();
+            SignJarAction.sign(this, input, output, keyStore.contents(), keyStore::file, this.getAlias().get(), this.getStorePassword().get(), this.getStrict().get());
+        } else {
+            final File keyStore = this.getKeyStore().get().getAsFile();
+            final byte[] contents;
+            try {
+                contents = Files.readAllBytes(keyStore.toPath());
+            } catch (final IOException ex) {
+                throw new GradleException("Unable to read key store " + keyStore, ex);
+            }
+            SignJarAction.sign(this, input, output, contents, () -> keyStore, this.getAlias().get(), this.getStorePassword().get(), this.getStrict().get());
         }
     }
 
@@ -0,0 +1,93 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.task;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.spongepowered.gradle.convention.signing.InProcessJarSigner;
+import org.spongepowered.gradle.convention.signing.KeyStoreService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Sign a jar as a work item, so other tasks in the same project can run alongside it.
+ */
+public abstract class SignJarWorkAction implements WorkAction<SignJarWorkAction.Parameters> {
+
+    public interface Parameters extends WorkParameters {
+        RegularFileProperty getInputFile();
+
+        RegularFileProperty getArchiveFile();
+
+        // the key store is given either by the service or as a file
+        Property<KeyStoreService> getKeyStore();
+
+        RegularFileProperty getKeyStoreFile();
+
+        Property<String> getAlias();
+
+        Property<String> getStorePassword();
+
+        Property<Boolean> getVerbose();
+
+        Property<Boolean> getStrict();
+    }
+
+    @Override
+    public void execute() {
+        final Parameters params = this.getParameters();
+        final byte[] keyStore;
+        if (params.getKeyStore().isPresent()) {
+            keyStore = params.getKeyStore().get().contents();
+        } else {
+            final File file = params.getKeyStoreFile().get().getAsFile();
+            try {
+                keyStore = Files.readAllBytes(file.toPath());
+            } catch (final IOException ex) {
+                throw new GradleException("Unable to read key store " + file, ex);
+            }
+        }
+
+        final boolean signed = InProcessJarSigner.sign(
+            params.getInputFile().get().getAsFile().toPath(),
+            params.getArchiveFile().get().getAsFile().toPath(),
+            keyStore,
+            params.getAlias().get(),
+            params.getStorePassword().get(),
+            params.getVerbose().get(),
+            params.getStrict().get()
+        );
+        if (!signed) {
+            // only submitted when the JDK signer is available as a fallback
+            throw new IllegalStateException("Unable to sign " + params.getInputFile().get() + " in-process");
+        }
+    }
+
+}
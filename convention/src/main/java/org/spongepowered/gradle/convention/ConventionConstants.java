@@ -39,6 +39,39 @@ public static final class ProjectProperties {
         public static final String SPONGE_KEY_STORE = "spongeKeyStore";
         public static final String SPONGE_KEY_STORE_ALIAS = "spongeKeyStoreAlias";
         public static final String SPONGE_KEY_STORE_PASSWORD = "spongeKeyStorePassword";
+        public static final String SPONGE_SIGN_JAR_IN_PLACE = "spongeSignJarInPlace";
+        /**
+         * When to write the git commit and branch into jar manifests.
+         *
+         * <p>One of {@code always}, {@code never}, or {@code publications}, the default,
+         * which only stamps jars of release versions or of builds that publish the project.</p>
+         */
+        public static final String SPONGE_VCS_MANIFEST = "spongeVcsManifest";
+        /**
+         * How test tasks print the standard output and error of tests.
+         *
+         * <p>Either {@code stream}, the default, which prints all output as it is written, or
+         * {@code failures}, which holds the output of each test and only prints it if the test fails.</p>
+         */
+        public static final String SPONGE_TEST_OUTPUT = "spongeTestOutput";
+        /**
+         * Only run one shard of each test task, given as {@code index/count}, for splitting tests between CI machines.
+         *
+         * <p>Test classes are split by name, unless {@link #TEST_SHARD_DURATIONS} is set.</p>
+         */
+        public static final String TEST_SHARD = "testShard";
+        /**
+         * A file of recorded test durations, shared by every shard, to split tests by duration instead of by name.
+         *
+         * <p>Each test task records durations to {@code build/test-durations/<task>.properties}.</p>
+         */
+        public static final String TEST_SHARD_DURATIONS = "testShardDurations";
+        /**
+         * A git ref, such as {@code origin/main}, to only check formatting and license headers of files changed since.
+         *
+         * <p>Changes are compared against the merge base of this ref and {@code HEAD}. Release builds always check every file.</p>
+         */
+        public static final String SPONGE_LICENSE_RATCHET_FROM = "spongeLicenseRatchetFrom";
 
         private ProjectProperties() {
         }
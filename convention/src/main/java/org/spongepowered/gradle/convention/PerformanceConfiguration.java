@@ -0,0 +1,118 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention;
+
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+
+import java.util.Collections;
+
+import javax.inject.Inject;
+
+/**
+ * Settings applied to the compile and test tasks of a project to keep builds fast.
+ *
+ * <p>Every value has a default that suits most Sponge projects, and can be changed per project.
+ * A value set on a task itself always takes precedence.</p>
+ */
+public class PerformanceConfiguration {
+
+    private final Property<Boolean> incrementalCompilation;
+    private final Property<String> compilerMaximumHeap;
+    private final Property<Integer> maxParallelForks;
+    private final Property<Long> forkEvery;
+    private final ListProperty<String> testJvmArgs;
+
+    @Inject
+    public PerformanceConfiguration(final ObjectFactory objects) {
+        this.incrementalCompilation = objects.property(Boolean.class).convention(true);
+        this.compilerMaximumHeap = objects.property(String.class).convention("2g");
+        this.maxParallelForks = objects.property(Integer.class)
+            .convention(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.forkEvery = objects.property(Long.class).convention(0L);
+        this.testJvmArgs = objects.listProperty(String.class).convention(Collections.singletonList("-XX:+UseParallelGC"));
+    }
+
+    /**
+     * Whether Java compilation only recompiles classes affected by a change.
+     *
+     * <p>Default: {@code true}</p>
+     *
+     * @return the incremental compilation property
+     */
+    public Property<Boolean> getIncrementalCompilation() {
+        return this.incrementalCompilation;
+    }
+
+    /**
+     * The maximum heap of the compiler daemon, used when compiling with a toolchain or a forked compiler.
+     *
+     * <p>Default: {@code 2g}</p>
+     *
+     * @return the compiler heap property
+     */
+    public Property<String> getCompilerMaximumHeap() {
+        return this.compilerMaximumHeap;
+    }
+
+    /**
+     * The maximum number of test worker processes each test task runs at once.
+     *
+     * <p>Default: half of the available processors</p>
+     *
+     * @return the parallel forks property
+     */
+    public Property<Integer> getMaxParallelForks() {
+        return this.maxParallelForks;
+    }
+
+    /**
+     * The number of test classes a test worker runs before it is replaced with a new one, or {@code 0} to never replace workers.
+     *
+     * <p>Only worth setting for test suites that leak memory or global state between classes.</p>
+     *
+     * <p>Default: {@code 0}</p>
+     *
+     * @return the fork every property
+     */
+    public Property<Long> getForkEvery() {
+        return this.forkEvery;
+    }
+
+    /**
+     * Extra JVM arguments for test workers.
+     *
+     * <p>Default: {@code -XX:+UseParallelGC}, which gives better throughput than the default
+     * collector for short-lived test JVMs. Any collector selected here is left out for test
+     * tasks that already select their own.</p>
+     *
+     * @return the test JVM arguments
+     */
+    public ListProperty<String> getTestJvmArgs() {
+        return this.testJvmArgs;
+    }
+
+}
@@ -46,6 +46,7 @@ public class SpongeConventionExtension {
 
     private final ExtensionAware licensePropertyExtension;
     private final Manifest sharedManifest;
+    private final PerformanceConfiguration performance;
 
     @Inject
     public SpongeConventionExtension(
@@ -59,6 +60,7 @@ public SpongeConventionExtension(
         this.licensePropertyExtension = (ExtensionAware) objects.newInstance(EmptyExtension.class);
         licenseProperties.putAll(providers.provider(() -> this.licensePropertyExtension.getExtensions().getExtraProperties().getProperties()));
         this.sharedManifest = extension.manifest();
+        this.performance = objects.newInstance(PerformanceConfiguration.class);
     }
 
     /**
@@ -124,4 +126,22 @@ public void sharedManifest(final Action<Manifest> configureAction) {
         Objects.requireNonNull(configureAction, "configureAction").execute(this.sharedManifest);
     }
 
+    /**
+     * Get settings applied to compile and test tasks to keep builds fast.
+     *
+     * @return the performance settings
+     */
+    public PerformanceConfiguration performance() {
+        return this.performance;
+    }
+
+    /**
+     * Configure settings applied to compile and test tasks to keep builds fast.
+     *
+     * @param configureAction action to configure with
+     */
+    public void performance(final Action<PerformanceConfiguration> configureAction) {
+        Objects.requireNonNull(configureAction, "configureAction").execute(this.performance);
+    }
+
 }
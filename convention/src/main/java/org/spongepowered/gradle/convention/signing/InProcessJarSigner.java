@@ -0,0 +1,284 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.zip.ZipFile;
+
+/**
+ * Sign jars within the build JVM.
+ *
+ * <p>Jars are signed in a single pass by {@link StreamingJarSigner} where possible. Archives
+ * or keys it does not support are signed with the {@code jdk.security.jarsigner} API, which is
+ * only present on Java 9 and newer and so is accessed reflectively. When neither can be used,
+ * callers should fall back to the Ant {@code signjar} task.</p>
+ */
+public final class InProcessJarSigner {
+
+    private static final Logger LOGGER = Logging.getLogger(InProcessJarSigner.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String CODE_SIGNING_USAGE = "1.3.6.1.5.5.7.3.3";
+    private static final String ANY_EXTENDED_KEY_USAGE = "2.5.29.37.0";
+    private static final int MAX_SIGNER_NAME_LENGTH = 8;
+
+    private static final @Nullable Api API = Api.load();
+
+    private InProcessJarSigner() {
+    }
+
+    /**
+     * Get whether every jar can be signed in-process, without falling back to Ant.
+     *
+     * @return whether the {@code jdk.security.jarsigner} API is available
+     */
+    public static boolean canSignAnyJar() {
+        return InProcessJarSigner.API != null;
+    }
+
+    /**
+     * Sign a jar.
+     *
+     * <p>As with the {@code jarsigner} tool, the key password is expected to match
+     * the store password.</p>
+     *
+     * @param input the jar to sign
+     * @param output the destination of the signed jar, which may be {@code input} to sign in place
+     * @param keyStore the contents of the key store holding the signing key
+     * @param alias the alias of the signing key
+     * @param storePassword the password of the key store
+     * @param verbose whether to log each entry as it is signed
+     * @param strict whether to fail when the signing certificate is not valid for code signing
+     * @return whether the jar was signed, or {@code false} if it must be signed by Ant instead
+     */
+    public static boolean sign(
+        final Path input,
+        final Path output,
+        final byte[] keyStore,
+        final String alias,
+        final String storePassword,
+        final boolean verbose,
+        final boolean strict
+    ) {
+        final KeyStore.PrivateKeyEntry key = InProcessJarSigner.loadKey(keyStore, alias, storePassword.toCharArray());
+        InProcessJarSigner.checkCertificate(key, alias, strict);
+
+        final String signerName = InProcessJarSigner.signerName(alias);
+        final Path signed = output.resolveSibling(output.getFileName() + ".signed");
+        try {
+            boolean done = StreamingJarSigner.sign(input, signed, key, signerName, verbose);
+            final @Nullable Api api = InProcessJarSigner.API;
+            if (!done && api != null) {
+                try (
+                    final ZipFile in = new ZipFile(input.toFile());
+                    final OutputStream out = new BufferedOutputStream(Files.newOutputStream(signed))
+                ) {
+                    api.sign(key, signerName, verbose, in, out);
+                }
+                done = true;
+            }
+            if (done) {
+                Files.move(signed, output, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return done;
+        } catch (final IOException | GeneralSecurityException ex) {
+            throw new GradleException("Failed to sign " + input, ex);
+        } finally {
+            try {
+                Files.deleteIfExists(signed);
+            } catch (final IOException ex) {
+                LOGGER.debug("Failed to delete partially signed jar {}", signed, ex);
+            }
+        }
+    }
+
+    private static KeyStore.PrivateKeyEntry loadKey(final byte[] contents, final String alias, final char[] password) {
+        try {
+            final KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+            store.load(new ByteArrayInputStream(contents), password);
+            final KeyStore.Entry entry = store.getEntry(alias, new KeyStore.PasswordProtection(password));
+            if (!(entry instanceof KeyStore.PrivateKeyEntry)) {
+                throw new GradleException("The key store does not contain a private key with the alias '" + alias + "'");
+            }
+            return (KeyStore.PrivateKeyEntry) entry;
+        } catch (final IOException | GeneralSecurityException ex) {
+            throw new GradleException("Unable to load signing key '" + alias + "' from the key store", ex);
+        }
+    }
+
+    /**
+     * Perform the certificate checks {@code jarsigner -strict} treats as errors.
+     *
+     * <p>Without strict mode, problems are only logged.</p>
+     */
+    private static void checkCertificate(final KeyStore.PrivateKeyEntry key, final String alias, final boolean strict) {
+        for (final Certificate certificate : key.getCertificateChain()) {
+            if (!(certificate instanceof X509Certificate)) {
+                continue;
+            }
+            final X509Certificate x509 = (X509Certificate) certificate;
+            try {
+                x509.checkValidity();
+            } catch (final CertificateException ex) {
+                InProcessJarSigner.report(strict, "Certificate " + x509.getSubjectX500Principal() + " for '" + alias + "' is not valid: " + ex.getMessage());
+            }
+        }
+
+        final Certificate signer = key.getCertificate();
+        if (!(signer instanceof X509Certificate)) {
+            return;
+        }
+        final X509Certificate x509 = (X509Certificate) signer;
+        final boolean @Nullable [] keyUsage = x509.getKeyUsage();
+        if (keyUsage != null && !keyUsage[0]) {
+            InProcessJarSigner.report(strict, "Certificate for '" + alias + "' does not allow digital signatures");
+        }
+        try {
+            final @Nullable List<String> extendedKeyUsage = x509.getExtendedKeyUsage();
+            if (extendedKeyUsage != null
+                && !extendedKeyUsage.contains(InProcessJarSigner.CODE_SIGNING_USAGE)
+                && !extendedKeyUsage.contains(InProcessJarSigner.ANY_EXTENDED_KEY_USAGE)) {
+                InProcessJarSigner.report(strict, "Certificate for '" + alias + "' does not allow code signing");
+            }
+        } catch (final CertificateParsingException ex) {
+            InProcessJarSigner.report(strict, "Unable to read extended key usage of the certificate for '" + alias + "': " + ex.getMessage());
+        }
+    }
+
+    private static void report(final boolean strict, final String message) {
+        if (strict) {
+            throw new GradleException(message);
+        }
+        LOGGER.warn(message);
+    }
+
+    /**
+     * Derive the signature file name from a key alias, the same way {@code jarsigner} does.
+     *
+     * @param alias the key alias
+     * @return the signer name
+     */
+    static String signerName(final String alias) {
+        final String truncated = alias.length() > InProcessJarSigner.MAX_SIGNER_NAME_LENGTH
+            ? alias.substring(0, InProcessJarSigner.MAX_SIGNER_NAME_LENGTH)
+            : alias;
+        final StringBuilder name = new StringBuilder(truncated.length());
+        for (int i = 0; i < truncated.length(); i++) {
+            final char c = truncated.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                name.append(c);
+            } else {
+                name.append('_');
+            }
+        }
+        return name.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Reflective access to {@code jdk.security.jarsigner.JarSigner}.
+     */
+    private static final class Api {
+        private final Constructor<?> newBuilder;
+        private final Method digestAlgorithm;
+        private final Method signerName;
+        private final Method eventHandler;
+        private final Method build;
+        private final Method sign;
+
+        private Api(final Class<?> signer, final Class<?> builder) throws ReflectiveOperationException {
+            this.newBuilder = builder.getConstructor(KeyStore.PrivateKeyEntry.class);
+            this.digestAlgorithm = builder.getMethod("digestAlgorithm", String.class);
+            this.signerName = builder.getMethod("signerName", String.class);
+            this.eventHandler = builder.getMethod("eventHandler", BiConsumer.class);
+            this.build = builder.getMethod("build");
+            this.sign = signer.getMethod("sign", ZipFile.class, OutputStream.class);
+        }
+
+        static @Nullable Api load() {
+            try {
+                return new Api(Class.forName("jdk.security.jarsigner.JarSigner"), Class.forName("jdk.security.jarsigner.JarSigner$Builder"));
+            } catch (final ReflectiveOperationException | LinkageError ex) {
+                LOGGER.debug("The jdk.security.jarsigner API is not available", ex);
+                return null;
+            }
+        }
+
+        void sign(
+            final KeyStore.PrivateKeyEntry key,
+            final String signerName,
+            final boolean verbose,
+            final ZipFile input,
+            final OutputStream output
+        ) throws IOException {
+            try {
+                final Object builder = this.newBuilder.newInstance(key);
+                this.digestAlgorithm.invoke(builder, InProcessJarSigner.DIGEST_ALGORITHM);
+                this.signerName.invoke(builder, signerName);
+                if (verbose) {
+                    final BiConsumer<String, String> events = (action, entry) -> LOGGER.info("{}: {}", action, entry);
+                    this.eventHandler.invoke(builder, events);
+                }
+                this.sign.invoke(this.build.invoke(builder), input, output);
+            } catch (final InvocationTargetException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) {
+                    // JarSignerException wraps the underlying I/O or security failure
+                    final @Nullable Throwable underlying = cause.getCause();
+                    if (underlying instanceof IOException) {
+                        throw (IOException) underlying;
+                    }
+                    throw new GradleException("Failed to sign jar: " + cause.getMessage(), underlying == null ? cause : underlying);
+                }
+                throw new GradleException("Failed to sign jar", cause);
+            } catch (final ReflectiveOperationException ex) {
+                throw new IllegalStateException("Unable to invoke the jdk.security.jarsigner API", ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.api.services.BuildServiceRegistry;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.EnumSet;
+
+/**
+ * Provides the key store used to sign jars.
+ *
+ * <p>The key store may be given as either a path or base64-encoded contents. It is
+ * read or decoded once per build, on first use, and kept in memory. It is only written
+ * to disk if a signer requires a file, and that file is deleted when the build completes.</p>
+ */
+public abstract class KeyStoreService implements BuildService<KeyStoreService.Parameters>, AutoCloseable {
+
+    private static final Logger LOGGER = Logging.getLogger(KeyStoreService.class);
+
+    public interface Parameters extends BuildServiceParameters {
+        /**
+         * A path to the key store, or its base64-encoded contents.
+         *
+         * @return the key store
+         */
+        Property<String> getKeyStore();
+    }
+
+    private byte @Nullable [] contents;
+    private @Nullable String fingerprint;
+    private @Nullable Path temporaryFile;
+
+    /**
+     * Register a service for a key store, shared by every project that uses the same one.
+     *
+     * <p>The service is named by a digest of the key store, so different key stores never share a service.</p>
+     *
+     * @param services the build service registry
+     * @param keyStore a path to the key store, or its base64-encoded contents
+     * @return the service
+     */
+    public static Provider<KeyStoreService> register(final BuildServiceRegistry services, final String keyStore) {
+        return services.registerIfAbsent(
+            "spongeKeyStore" + KeyStoreService.sha256(keyStore.getBytes(StandardCharsets.UTF_8)),
+            KeyStoreService.class,
+            spec -> spec.getParameters().getKeyStore().set(keyStore)
+        );
+    }
+
+    /**
+     * Get the contents of the key store.
+     *
+     * @return the key store contents
+     */
+    public synchronized byte[] contents() {
+        if (this.contents == null) {
+            final String keyStore = this.getParameters().getKeyStore().get();
+            final File file = new File(keyStore);
+            if (file.isFile()) {
+                try {
+                    this.contents = Files.readAllBytes(file.toPath());
+                } catch (final IOException ex) {
+                    throw new GradleException("Unable to read key store " + file, ex);
+                }
+            } else {
+                try {
+                    this.contents = Base64.getDecoder().decode(keyStore);
+                } catch (final IllegalArgumentException ex) {
+                    throw new GradleException("The key store is neither an existing file nor valid base64 content", ex);
+                }
+            }
+        }
+        return this.contents;
+    }
+
+    /**
+     * Get a SHA-256 digest of the key store contents, to identify it in task inputs.
+     *
+     * @return the hex-encoded digest
+     */
+    public synchronized String fingerprint() {
+        if (this.fingerprint == null) {
+            this.fingerprint = KeyStoreService.sha256(this.contents());
+        }
+        return this.fingerprint;
+    }
+
+    /**
+     * Get a hex-encoded SHA-256 digest.
+     *
+     * @param data the data to digest
+     * @return the hex-encoded digest
+     */
+    static String sha256(final byte[] data) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", ex);
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest(data)) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Get the key store as a file, for signers that cannot read it from memory.
+     *
+     * <p>A key store given as a path is used directly. Otherwise, a temporary file readable
+     * only by the current user is written, which is deleted when this service is closed.</p>
+     *
+     * @return the key store file
+     */
+    public synchronized File file() {
+        final File configured = new File(this.getParameters().getKeyStore().get());
+        if (configured.isFile()) {
+            return configured;
+        }
+
+        if (this.temporaryFile == null) {
+            try {
+                final Path file;
+                if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                    file = Files.createTempFile(
+                        "signing-key",
+                        ".jks",
+                        PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE))
+                    );
+                } else {
+                    file = Files.createTempFile("signing-key", ".jks");
+                }
+                this.temporaryFile = file;
+                Files.write(file, this.contents());
+            } catch (final IOException ex) {
+                throw new GradleException("Unable to write key store to disk", ex);
+            }
+        }
+        return this.temporaryFile.toFile();
+    }
+
+    @Override
+    public synchronized void close() {
+        this.contents = null;
+        if (this.temporaryFile != null) {
+            try {
+                Files.deleteIfExists(this.temporaryFile);
+            } catch (final IOException ex) {
+                LOGGER.warn("Failed to delete temporary key store {}", this.temporaryFile, ex);
+            }
+            this.temporaryFile = null;
+        }
+    }
+
+}
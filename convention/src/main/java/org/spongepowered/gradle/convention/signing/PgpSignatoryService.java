@@ -0,0 +1,118 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.api.services.BuildServiceRegistry;
+import org.gradle.plugins.signing.signatory.Signatory;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+/**
+ * Provides the PGP key used to sign publications.
+ *
+ * <p>The key may be given as either a path or its armored contents. It is read once per
+ * build, and the signatory created from it, which has to decrypt the secret key, is shared by
+ * every project that signs with the same key.</p>
+ */
+public abstract class PgpSignatoryService implements BuildService<PgpSignatoryService.Parameters> {
+
+    public interface Parameters extends BuildServiceParameters {
+        /**
+         * A path to the armored secret key, or its contents.
+         *
+         * @return the secret key
+         */
+        Property<String> getKey();
+    }
+
+    private @Nullable String armoredKey;
+    private @Nullable Signatory signatory;
+
+    /**
+     * Register a service for a signing key, shared by every project that uses the same one.
+     *
+     * <p>The service is named by a digest of the key, so different keys never share a signatory.</p>
+     *
+     * @param services the build service registry
+     * @param key an absolute path to the armored secret key, or its contents
+     * @return the service
+     */
+    public static Provider<PgpSignatoryService> register(final BuildServiceRegistry services, final String key) {
+        return services.registerIfAbsent(
+            "spongeSigningKey" + KeyStoreService.sha256(key.getBytes(StandardCharsets.UTF_8)),
+            PgpSignatoryService.class,
+            spec -> spec.getParameters().getKey().set(key)
+        );
+    }
+
+    /**
+     * Get the armored secret key.
+     *
+     * @return the secret key
+     */
+    public synchronized String armoredKey() {
+        if (this.armoredKey == null) {
+            final String key = this.getParameters().getKey().get();
+            final File file = new File(key);
+            if (file.isFile()) {
+                try {
+                    this.armoredKey = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                } catch (final IOException ex) {
+                    throw new GradleException("Failed to read Sponge key file", ex);
+                }
+            } else {
+                this.armoredKey = key;
+            }
+        }
+        return this.armoredKey;
+    }
+
+    /**
+     * Get the signatory for this key, creating it on first use.
+     *
+     * <p>Signatories sign each file with a new signature generator, so the one returned
+     * may be used by several tasks at once.</p>
+     *
+     * @param factory creates the signatory from the key
+     * @return the signatory, or {@code null} if none could be created
+     */
+    public synchronized @Nullable Signatory signatory(final Supplier<@Nullable Signatory> factory) {
+        if (this.signatory == null) {
+            this.signatory = factory.get();
+        }
+        return this.signatory;
+    }
+
+}
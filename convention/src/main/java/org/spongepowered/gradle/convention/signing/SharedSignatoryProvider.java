@@ -0,0 +1,72 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import groovy.lang.Closure;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.plugins.signing.SigningExtension;
+import org.gradle.plugins.signing.signatory.Signatory;
+import org.gradle.plugins.signing.signatory.SignatoryProvider;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A signatory provider whose default signatory is created once per build and shared between projects.
+ *
+ * <p>Named signatories are left to the wrapped provider.</p>
+ */
+public final class SharedSignatoryProvider implements SignatoryProvider<Signatory> {
+
+    private final Provider<PgpSignatoryService> service;
+    private final SignatoryProvider<?> delegate;
+
+    /**
+     * Create a new provider.
+     *
+     * @param service the service holding the shared signatory
+     * @param delegate the provider that creates the signatory from the service's key
+     */
+    public SharedSignatoryProvider(final Provider<PgpSignatoryService> service, final SignatoryProvider<?> delegate) {
+        this.service = service;
+        this.delegate = delegate;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // inherited from SignatoryProvider
+    public void configure(final SigningExtension settings, final Closure closure) {
+        this.delegate.configure(settings, closure);
+    }
+
+    @Override
+    public @Nullable Signatory getDefaultSignatory(final Project project) {
+        return this.service.get().signatory(() -> this.delegate.getDefaultSignatory(project));
+    }
+
+    @Override
+    public @Nullable Signatory getSignatory(final String name) {
+        return this.delegate.getSignatory(name);
+    }
+
+}
@@ -0,0 +1,842 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.signing;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * A jar signer that copies entries without recompressing them.
+ *
+ * <p>Entries are inflated once to compute their digests, then their local records are
+ * copied verbatim into the signed jar behind the new manifest and signature files. Only
+ * the subset of the zip format produced by Gradle's archive tasks is supported: archives
+ * using zip64, encryption, or an unknown compression method are declined, as are keys
+ * other than RSA, DSA and EC.</p>
+ */
+final class StreamingJarSigner {
+
+    private static final Logger LOGGER = Logging.getLogger(StreamingJarSigner.class);
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final long MAX_ZIP32_VALUE = 0xffffffffL;
+    private static final int MAX_ZIP32_ENTRIES = 0xffff;
+
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int VERSION_STORED = 10;
+    private static final int VERSION_MADE_BY = 20;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String DIGEST_ATTRIBUTE = "SHA-256-Digest";
+    private static final int MAX_LINE_LENGTH = 72;
+    private static final byte[] NEWLINE = {'\r', '\n'};
+
+    private static final String META_INF = "META-INF/";
+
+    private StreamingJarSigner() {
+    }
+
+    /**
+     * Sign a jar into a new file.
+     *
+     * @param input the jar to sign
+     * @param output the destination of the signed jar, which must not be {@code input}
+     * @param key the signing key
+     * @param signerName the base name of the signature files
+     * @param verbose whether to log each entry as it is signed
+     * @return whether the jar was signed, or {@code false} if it or the key is not supported
+     * @throws IOException if the jar could not be read or written
+     * @throws GeneralSecurityException if the signature could not be created
+     */
+    static boolean sign(
+        final Path input,
+        final Path output,
+        final KeyStore.PrivateKeyEntry key,
+        final String signerName,
+        final boolean verbose
+    ) throws IOException, GeneralSecurityException {
+        final @Nullable KeyAlgorithm algorithm = KeyAlgorithm.of(key.getPrivateKey().getAlgorithm());
+        if (algorithm == null) {
+            LOGGER.info("Unable to sign with a {} key in a single pass", key.getPrivateKey().getAlgorithm());
+            return false;
+        }
+
+        try (final FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            final @Nullable Archive archive = Archive.read(in);
+            if (archive == null) {
+                LOGGER.info("{} uses zip features that cannot be signed in a single pass", input);
+                return false;
+            }
+
+            final String signatureFile = StreamingJarSigner.META_INF + signerName + ".SF";
+            final String blockFile = StreamingJarSigner.META_INF + signerName + '.' + algorithm.extension;
+
+            // Digest every entry, and find the manifest
+            final Map<String, String> digests = new LinkedHashMap<>();
+            byte @Nullable [] originalManifest = null;
+            @Nullable Entry manifestEntry = null;
+            @Nullable Entry metaInfDirectory = null;
+            final List<Entry> copied = new ArrayList<>(archive.entries.size());
+            try (final EntryReader reader = new EntryReader(in)) {
+                for (final Entry entry : archive.entries) {
+                    final String upperName = entry.name.toUpperCase(Locale.ROOT);
+                    if (upperName.equals(JarFile.MANIFEST_NAME)) {
+                        originalManifest = reader.contents(entry);
+                        manifestEntry = entry;
+                    } else if (upperName.equals(StreamingJarSigner.META_INF)) {
+                        metaInfDirectory = entry;
+                    } else if (!entry.name.equals(signatureFile) && !entry.name.equals(blockFile)) { // previous signatures are replaced
+                        if (!entry.isDirectory() && !StreamingJarSigner.isSignatureRelated(upperName)) {
+                            if (verbose) {
+                                LOGGER.info("  signing: {}", entry.name);
+                            }
+                            digests.put(entry.name, reader.digest(entry));
+                        }
+                        copied.add(entry);
+                    }
+                }
+            }
+
+            final SignedManifest manifest = SignedManifest.create(originalManifest, digests);
+            final byte[] signatureContents = manifest.signatureFile();
+            final byte[] blockContents = StreamingJarSigner.signatureBlock(key, algorithm, signatureContents);
+
+            final List<NewEntry> added = new ArrayList<>(3);
+            final int time = manifestEntry == null ? DosTime.now() : manifestEntry.time;
+            added.add(new NewEntry(JarFile.MANIFEST_NAME, manifest.contents, time));
+            added.add(new NewEntry(signatureFile, signatureContents, time));
+            added.add(new NewEntry(blockFile, blockContents, time));
+
+            if (!StreamingJarSigner.fitsZip32(in.size(), archive, added)) {
+                LOGGER.info("Signing {} would require zip64 extensions", input);
+                return false;
+            }
+
+            StreamingJarSigner.write(output, in, archive, metaInfDirectory, added, copied);
+            return true;
+        }
+    }
+
+    private static boolean isSignatureRelated(final String upperName) {
+        if (!upperName.startsWith(StreamingJarSigner.META_INF) || upperName.indexOf('/', StreamingJarSigner.META_INF.length()) != -1) {
+            return false;
+        }
+        final String file = upperName.substring(StreamingJarSigner.META_INF.length());
+        return file.endsWith(".SF")
+            || file.endsWith(".DSA")
+            || file.endsWith(".RSA")
+            || file.endsWith(".EC")
+            || file.startsWith("SIG-");
+    }
+
+    private static boolean fitsZip32(final long inputSize, final Archive archive, final List<NewEntry> added) {
+        long size = inputSize;
+        for (final NewEntry entry : added) {
+            size += StreamingJarSigner.LOCAL_HEADER_SIZE + StreamingJarSigner.CENTRAL_HEADER_SIZE + 2L * entry.name.length + entry.contents.length;
+        }
+        return size < StreamingJarSigner.MAX_ZIP32_VALUE && archive.entries.size() + added.size() < StreamingJarSigner.MAX_ZIP32_ENTRIES;
+    }
+
+    private static void write(
+        final Path output,
+        final FileChannel in,
+        final Archive archive,
+        final @Nullable Entry metaInfDirectory,
+        final List<NewEntry> added,
+        final List<Entry> copied
+    ) throws IOException {
+        try (final FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteArrayOutputStream central = new ByteArrayOutputStream();
+            int count = 0;
+
+            // The manifest and signature files must lead the archive for JarInputStream to verify it
+            if (metaInfDirectory != null) {
+                StreamingJarSigner.copy(in, out, metaInfDirectory, central);
+                count++;
+            }
+            for (final NewEntry entry : added) {
+                entry.write(out, central);
+                count++;
+            }
+            for (final Entry entry : copied) {
+                StreamingJarSigner.copy(in, out, entry, central);
+                count++;
+            }
+
+            final long centralOffset = out.position();
+            final byte[] centralBytes = central.toByteArray();
+            StreamingJarSigner.writeFully(out, ByteBuffer.wrap(centralBytes));
+
+            final ByteBuffer end = StreamingJarSigner.buffer(StreamingJarSigner.END_OF_CENTRAL_DIRECTORY_SIZE + archive.comment.length);
+            end.putInt(StreamingJarSigner.END_OF_CENTRAL_DIRECTORY)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) count)
+                .putShort((short) count)
+                .putInt(centralBytes.length)
+                .putInt((int) centralOffset)
+                .putShort((short) archive.comment.length)
+                .put(archive.comment);
+            end.flip();
+            StreamingJarSigner.writeFully(out, end);
+        }
+    }
+
+    /**
+     * Copy the local record of an entry verbatim, and add its central directory record.
+     */
+    private static void copy(final FileChannel in, final FileChannel out, final Entry entry, final ByteArrayOutputStream central) throws IOException {
+        final long offset = out.position();
+        final long length = entry.recordLength(in);
+        long transferred = 0;
+        while (transferred < length) {
+            transferred += in.transferTo(entry.localHeaderOffset + transferred, length - transferred, out);
+        }
+        final byte[] header = entry.centralHeader.clone();
+        ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(42, (int) offset);
+        central.write(header, 0, header.length);
+    }
+
+    static void writeFully(final FileChannel out, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    static ByteBuffer buffer(final int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Create a detached PKCS#7 {@code SignedData} structure over the signature file, as written by {@code jarsigner}.
+     */
+    private static byte[] signatureBlock(final KeyStore.PrivateKeyEntry key, final KeyAlgorithm algorithm, final byte[] signatureFile) throws GeneralSecurityException {
+        final Signature signature = Signature.getInstance(algorithm.signatureAlgorithm);
+        signature.initSign(key.getPrivateKey());
+        signature.update(signatureFile);
+        final byte[] signed = signature.sign();
+
+        final X509Certificate signer = (X509Certificate) key.getCertificate();
+        final ByteArrayOutputStream certificates = new ByteArrayOutputStream();
+        for (final Certificate certificate : key.getCertificateChain()) {
+            final byte[] encoded = certificate.getEncoded();
+            certificates.write(encoded, 0, encoded.length);
+        }
+
+        final byte[] sha256 = Der.sequence(Der.oid("2.16.840.1.101.3.4.2.1"), Der.NULL);
+        final byte[] signerInfo = Der.sequence(
+            Der.integer(BigInteger.ONE),
+            Der.sequence(signer.getIssuerX500Principal().getEncoded(), Der.integer(signer.getSerialNumber())),
+            sha256,
+            algorithm.identifier,
+            Der.tagged(Der.OCTET_STRING, signed)
+        );
+        final byte[] signedData = Der.sequence(
+            Der.integer(BigInteger.ONE),
+            Der.tagged(Der.SET, sha256),
+            Der.sequence(Der.oid("1.2.840.113549.1.7.1")),
+            Der.tagged(Der.CONTEXT_0, certificates.toByteArray()),
+            Der.tagged(Der.SET, signerInfo)
+        );
+        return Der.sequence(Der.oid("1.2.840.113549.1.7.2"), Der.tagged(Der.CONTEXT_0, signedData));
+    }
+
+    /**
+     * Key types that can be written to a signature block.
+     */
+    enum KeyAlgorithm {
+        RSA("RSA", "SHA256withRSA", Der.sequence(Der.oid("1.2.840.113549.1.1.1"), Der.NULL)),
+        DSA("DSA", "SHA256withDSA", Der.sequence(Der.oid("1.2.840.10040.4.1"))),
+        EC("EC", "SHA256withECDSA", Der.sequence(Der.oid("1.2.840.10045.2.1")));
+
+        final String extension;
+        final String signatureAlgorithm;
+        final byte[] identifier;
+
+        KeyAlgorithm(final String extension, final String signatureAlgorithm, final byte[] identifier) {
+            this.extension = extension;
+            this.signatureAlgorithm = signatureAlgorithm;
+            this.identifier = identifier;
+        }
+
+        static @Nullable KeyAlgorithm of(final String keyAlgorithm) {
+            for (final KeyAlgorithm algorithm : KeyAlgorithm.values()) {
+                if (algorithm.extension.equalsIgnoreCase(keyAlgorithm)) {
+                    return algorithm;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The entries and comment of an archive, as listed in its central directory.
+     */
+    static final class Archive {
+        final List<Entry> entries;
+        final byte[] comment;
+
+        private Archive(final List<Entry> entries, final byte[] comment) {
+            this.entries = entries;
+            this.comment = comment;
+        }
+
+        static @Nullable Archive read(final FileChannel in) throws IOException {
+            final long size = in.size();
+            final int tailLength = (int) Math.min(size, StreamingJarSigner.END_OF_CENTRAL_DIRECTORY_SIZE + StreamingJarSigner.MAX_COMMENT_LENGTH);
+            final ByteBuffer tail = StreamingJarSigner.buffer(tailLength);
+            Archive.readFully(in, tail, size - tailLength);
+
+            int end = -1;
+            for (int i = tailLength - StreamingJarSigner.END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == StreamingJarSigner.END_OF_CENTRAL_DIRECTORY
+                    && i + StreamingJarSigner.END_OF_CENTRAL_DIRECTORY_SIZE + (tail.getShort(i + 20) & 0xffff) == tailLength) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end == -1) {
+                throw new IOException("Not a zip archive: no end of central directory record found");
+            }
+            if (end >= StreamingJarSigner.ZIP64_LOCATOR_SIZE && tail.getInt(end - StreamingJarSigner.ZIP64_LOCATOR_SIZE) == StreamingJarSigner.ZIP64_LOCATOR) {
+                return null;
+            }
+
+            final int count = tail.getShort(end + 10) & 0xffff;
+            final long centralSize = tail.getInt(end + 12) & StreamingJarSigner.MAX_ZIP32_VALUE;
+            final long centralOffset = tail.getInt(end + 16) & StreamingJarSigner.MAX_ZIP32_VALUE;
+            if (tail.getShort(end + 4) != 0 || count == StreamingJarSigner.MAX_ZIP32_ENTRIES || centralOffset == StreamingJarSigner.MAX_ZIP32_VALUE) {
+                return null; // split archives, or zip64
+            }
+            final byte[] comment = new byte[tail.getShort(end + 20) & 0xffff];
+            tail.position(end + StreamingJarSigner.END_OF_CENTRAL_DIRECTORY_SIZE);
+            tail.get(comment);
+
+            final ByteBuffer central = StreamingJarSigner.buffer((int) centralSize);
+            Archive.readFully(in, central, centralOffset);
+            central.flip();
+            final List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final @Nullable Entry entry = Entry.read(central);
+                if (entry == null) {
+                    return null;
+                }
+                entries.add(entry);
+            }
+            return new Archive(entries, comment);
+        }
+
+        static void readFully(final FileChannel in, final ByteBuffer buffer, final long position) throws IOException {
+            long offset = position;
+            while (buffer.hasRemaining()) {
+                final int read = in.read(buffer, offset);
+                if (read == -1) {
+                    throw new IOException("Unexpected end of archive");
+                }
+                offset += read;
+            }
+        }
+    }
+
+    /**
+     * An entry of the source archive.
+     */
+    static final class Entry {
+        final String name;
+        final byte[] centralHeader;
+        final int flags;
+        final int method;
+        final int time;
+        final long compressedSize;
+        final long localHeaderOffset;
+
+        private Entry(final String name, final byte[] centralHeader, final int flags, final int method, final int time, final long compressedSize, final long localHeaderOffset) {
+            this.name = name;
+            this.centralHeader = centralHeader;
+            this.flags = flags;
+            this.method = method;
+            this.time = time;
+            this.compressedSize = compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        static @Nullable Entry read(final ByteBuffer central) throws IOException {
+            final int start = central.position();
+            if (central.remaining() < StreamingJarSigner.CENTRAL_HEADER_SIZE || central.getInt(start) != StreamingJarSigner.CENTRAL_HEADER) {
+                throw new IOException("Malformed central directory");
+            }
+            final int flags = central.getShort(start + 8) & 0xffff;
+            final int method = central.getShort(start + 10) & 0xffff;
+            final int time = central.getInt(start + 12);
+            final long compressedSize = central.getInt(start + 20) & StreamingJarSigner.MAX_ZIP32_VALUE;
+            final long size = central.getInt(start + 24) & StreamingJarSigner.MAX_ZIP32_VALUE;
+            final int nameLength = central.getShort(start + 28) & 0xffff;
+            final int extraLength = central.getShort(start + 30) & 0xffff;
+            final int commentLength = central.getShort(start + 32) & 0xffff;
+            final long offset = central.getInt(start + 42) & StreamingJarSigner.MAX_ZIP32_VALUE;
+
+            final byte[] header = new byte[StreamingJarSigner.CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength];
+            central.get(header);
+            if ((flags & StreamingJarSigner.FLAG_ENCRYPTED) != 0
+                || (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)
+                || compressedSize == StreamingJarSigner.MAX_ZIP32_VALUE
+                || size == StreamingJarSigner.MAX_ZIP32_VALUE
+                || offset == StreamingJarSigner.MAX_ZIP32_VALUE) {
+                return null;
+            }
+            // Jars always use UTF-8 names, whatever the language encoding flag says
+            final String name = new String(header, StreamingJarSigner.CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+            return new Entry(name, header, flags, method, time, compressedSize, offset);
+        }
+
+        boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        long dataOffset(final FileChannel in) throws IOException {
+            final ByteBuffer local = StreamingJarSigner.buffer(StreamingJarSigner.LOCAL_HEADER_SIZE);
+            Archive.readFully(in, local, this.localHeaderOffset);
+            if (local.getInt(0) != StreamingJarSigner.LOCAL_HEADER) {
+                throw new IOException("Malformed local header for " + this.name);
+            }
+            return this.localHeaderOffset + StreamingJarSigner.LOCAL_HEADER_SIZE + (local.getShort(26) & 0xffff) + (local.getShort(28) & 0xffff);
+        }
+
+        /**
+         * The length of the local header, data, and data descriptor of this entry.
+         */
+        long recordLength(final FileChannel in) throws IOException {
+            final long dataEnd = this.dataOffset(in) + this.compressedSize;
+            long length = dataEnd - this.localHeaderOffset;
+            if ((this.flags & StreamingJarSigner.FLAG_DATA_DESCRIPTOR) != 0) {
+                final ByteBuffer signature = StreamingJarSigner.buffer(4);
+                Archive.readFully(in, signature, dataEnd);
+                length += signature.getInt(0) == StreamingJarSigner.DATA_DESCRIPTOR ? 16 : 12;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Reads entry contents, inflating them if necessary.
+     */
+    static final class EntryReader implements AutoCloseable {
+        private final FileChannel in;
+        private final Inflater inflater = new Inflater(true);
+        private final byte[] compressed = new byte[64 * 1024];
+        private final byte[] inflated = new byte[64 * 1024];
+        private final MessageDigest digest;
+
+        EntryReader(final FileChannel in) throws GeneralSecurityException {
+            this.in = in;
+            this.digest = MessageDigest.getInstance(StreamingJarSigner.DIGEST_ALGORITHM);
+        }
+
+        String digest(final Entry entry) throws IOException {
+            this.digest.reset();
+            this.read(entry, this.digest::update);
+            return Base64.getEncoder().encodeToString(this.digest.digest());
+        }
+
+        byte[] contents(final Entry entry) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            this.read(entry, out::write);
+            return out.toByteArray();
+        }
+
+        private void read(final Entry entry, final Sink sink) throws IOException {
+            long position = entry.dataOffset(this.in);
+            long remaining = entry.compressedSize;
+            this.inflater.reset();
+            try {
+                while (remaining > 0) {
+                    final ByteBuffer buffer = ByteBuffer.wrap(this.compressed, 0, (int) Math.min(this.compressed.length, remaining));
+                    final int read = this.in.read(buffer, position);
+                    if (read == -1) {
+                        throw new IOException("Unexpected end of archive reading " + entry.name);
+                    }
+                    position += read;
+                    remaining -= read;
+                    if (entry.method == ZipEntry.STORED) {
+                        sink.accept(this.compressed, 0, read);
+                        continue;
+                    }
+                    this.inflater.setInput(this.compressed, 0, read);
+                    int inflated;
+                    while ((inflated = this.inflater.inflate(this.inflated)) > 0) {
+                        sink.accept(this.inflated, 0, inflated);
+                    }
+                }
+                if (entry.method == ZipEntry.DEFLATED) {
+                    // Raw deflate streams may need one more call to flush their final block
+                    int inflated;
+                    while (!this.inflater.finished() && (inflated = this.inflater.inflate(this.inflated)) > 0) {
+                        sink.accept(this.inflated, 0, inflated);
+                    }
+                }
+            } catch (final DataFormatException ex) {
+                throw new IOException("Corrupt compressed data in " + entry.name, ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            this.inflater.end();
+        }
+
+        @FunctionalInterface
+        interface Sink {
+            void accept(byte[] buffer, int offset, int length) throws IOException;
+        }
+    }
+
+    /**
+     * A stored entry created by the signer.
+     */
+    static final class NewEntry {
+        final byte[] name;
+        final byte[] contents;
+        final int time;
+
+        NewEntry(final String name, final byte[] contents, final int time) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.contents = contents;
+            this.time = time;
+        }
+
+        void write(final FileChannel out, final ByteArrayOutputStream central) throws IOException {
+            final CRC32 crc = new CRC32();
+            crc.update(this.contents);
+            final int checksum = (int) crc.getValue();
+            final long offset = out.position();
+
+            final ByteBuffer local = StreamingJarSigner.buffer(StreamingJarSigner.LOCAL_HEADER_SIZE + this.name.length + this.contents.length);
+            local.putInt(StreamingJarSigner.LOCAL_HEADER)
+                .putShort((short) StreamingJarSigner.VERSION_STORED)
+                .putShort((short) 0)
+                .putShort((short) ZipEntry.STORED)
+                .putInt(this.time)
+                .putInt(checksum)
+                .putInt(this.contents.length)
+                .putInt(this.contents.length)
+                .putShort((short) this.name.length)
+                .putShort((short) 0)
+                .put(this.name)
+                .put(this.contents);
+            local.flip();
+            StreamingJarSigner.writeFully(out, local);
+
+            final ByteBuffer header = StreamingJarSigner.buffer(StreamingJarSigner.CENTRAL_HEADER_SIZE + this.name.length);
+            header.putInt(StreamingJarSigner.CENTRAL_HEADER)
+                .putShort((short) StreamingJarSigner.VERSION_MADE_BY)
+                .putShort((short) StreamingJarSigner.VERSION_STORED)
+                .putShort((short) 0)
+                .putShort((short) ZipEntry.STORED)
+                .putInt(this.time)
+                .putInt(checksum)
+                .putInt(this.contents.length)
+                .putInt(this.contents.length)
+                .putShort((short) this.name.length)
+                .putShort((short) 0) // extra
+                .putShort((short) 0) // comment
+                .putShort((short) 0) // disk
+                .putShort((short) 0) // internal attributes
+                .putInt(0) // external attributes
+                .putInt((int) offset)
+                .put(this.name);
+            central.write(header.array(), 0, header.capacity());
+        }
+    }
+
+    /**
+     * The manifest of a signed jar, and the digests of each of its sections.
+     */
+    static final class SignedManifest {
+        final byte[] contents;
+        private final byte[] mainAttributes;
+        private final Map<String, byte[]> sections;
+
+        private SignedManifest(final byte[] contents, final byte[] mainAttributes, final Map<String, byte[]> sections) {
+            this.contents = contents;
+            this.mainAttributes = mainAttributes;
+            this.sections = sections;
+        }
+
+        /**
+         * Create a manifest listing the digest of every entry.
+         *
+         * <p>The main section of any existing manifest is kept byte-for-byte. Named sections
+         * are rewritten with the new digests, replacing any from a previous signature.</p>
+         */
+        static SignedManifest create(final byte @Nullable [] original, final Map<String, String> digests) throws IOException {
+            final byte[] mainAttributes;
+            final Map<String, Attributes> originalSections = new TreeMap<>();
+            if (original == null) {
+                final ByteArrayOutputStream main = new ByteArrayOutputStream();
+                SignedManifest.writeAttribute(main, Attributes.Name.MANIFEST_VERSION.toString(), "1.0");
+                main.write(StreamingJarSigner.NEWLINE);
+                mainAttributes = main.toByteArray();
+            } else {
+                mainAttributes = SignedManifest.mainSection(original);
+                originalSections.putAll(new Manifest(new ByteArrayInputStream(original)).getEntries());
+            }
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(mainAttributes);
+            final Map<String, byte[]> sections = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> digest : digests.entrySet()) {
+                final @Nullable Attributes existing = originalSections.remove(digest.getKey());
+                sections.put(digest.getKey(), SignedManifest.section(digest.getKey(), existing, digest.getValue()));
+            }
+            for (final Map.Entry<String, Attributes> remaining : originalSections.entrySet()) {
+                sections.put(remaining.getKey(), SignedManifest.section(remaining.getKey(), remaining.getValue(), null));
+            }
+            for (final byte[] section : sections.values()) {
+                out.write(section);
+            }
+            return new SignedManifest(out.toByteArray(), mainAttributes, sections);
+        }
+
+        byte[] signatureFile() throws IOException {
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance(StreamingJarSigner.DIGEST_ALGORITHM);
+            } catch (final GeneralSecurityException ex) {
+                throw new IllegalStateException("SHA-256 is required to be supported by every JVM", ex);
+            }
+            final Base64.Encoder base64 = Base64.getEncoder();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SignedManifest.writeAttribute(out, Attributes.Name.SIGNATURE_VERSION.toString(), "1.0");
+            SignedManifest.writeAttribute(out, StreamingJarSigner.DIGEST_ATTRIBUTE + "-Manifest-Main-Attributes", base64.encodeToString(digest.digest(this.mainAttributes)));
+            SignedManifest.writeAttribute(out, StreamingJarSigner.DIGEST_ATTRIBUTE + "-Manifest", base64.encodeToString(digest.digest(this.contents)));
+            SignedManifest.writeAttribute(out, "Created-By", System.getProperty("java.version") + " (" + System.getProperty("java.vendor") + ")");
+            out.write(StreamingJarSigner.NEWLINE);
+            for (final Map.Entry<String, byte[]> section : this.sections.entrySet()) {
+                SignedManifest.writeAttribute(out, "Name", section.getKey());
+                SignedManifest.writeAttribute(out, StreamingJarSigner.DIGEST_ATTRIBUTE, base64.encodeToString(digest.digest(section.getValue())));
+                out.write(StreamingJarSigner.NEWLINE);
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Find the main section of a manifest, up to and including the blank line that ends it.
+         */
+        private static byte[] mainSection(final byte[] manifest) {
+            int lineStart = 0;
+            for (int i = 0; i < manifest.length; i++) {
+                if (manifest[i] != '\r' && manifest[i] != '\n') {
+                    continue;
+                }
+                final int lineEnd = i;
+                if (manifest[i] == '\r' && i + 1 < manifest.length && manifest[i + 1] == '\n') {
+                    i++;
+                }
+                if (lineEnd == lineStart) {
+                    final byte[] main = new byte[i + 1];
+                    System.arraycopy(manifest, 0, main, 0, main.length);
+                    return main;
+                }
+                lineStart = i + 1;
+            }
+
+            // A manifest with only a main section may not end with a blank line
+            final int trailing = lineStart == manifest.length ? 0 : StreamingJarSigner.NEWLINE.length;
+            final byte[] main = new byte[manifest.length + trailing + StreamingJarSigner.NEWLINE.length];
+            System.arraycopy(manifest, 0, main, 0, manifest.length);
+            for (int i = manifest.length; i < main.length; i += StreamingJarSigner.NEWLINE.length) {
+                System.arraycopy(StreamingJarSigner.NEWLINE, 0, main, i, StreamingJarSigner.NEWLINE.length);
+            }
+            return main;
+        }
+
+        private static byte[] section(final String name, final @Nullable Attributes existing, final @Nullable String digest) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SignedManifest.writeAttribute(out, "Name", name);
+            if (existing != null) {
+                for (final Map.Entry<Object, Object> attribute : existing.entrySet()) {
+                    final String key = attribute.getKey().toString();
+                    if (!key.toUpperCase(Locale.ROOT).endsWith("-DIGEST")) {
+                        SignedManifest.writeAttribute(out, key, attribute.getValue().toString());
+                    }
+                }
+            }
+            if (digest != null) {
+                SignedManifest.writeAttribute(out, StreamingJarSigner.DIGEST_ATTRIBUTE, digest);
+            }
+            out.write(StreamingJarSigner.NEWLINE);
+            return out.toByteArray();
+        }
+
+        /**
+         * Write a manifest attribute, wrapping lines longer than 72 bytes.
+         */
+        private static void writeAttribute(final ByteArrayOutputStream out, final String name, final String value) throws IOException {
+            final byte[] line = (name + ": " + value).getBytes(StandardCharsets.UTF_8);
+            int position = 0;
+            int limit = StreamingJarSigner.MAX_LINE_LENGTH;
+            while (line.length - position > limit) {
+                int end = position + limit;
+                // don't split multi-byte characters
+                while ((line[end] & 0xc0) == 0x80) {
+                    end--;
+                }
+                out.write(line, position, end - position);
+                out.write(StreamingJarSigner.NEWLINE);
+                out.write(' ');
+                position = end;
+                limit = StreamingJarSigner.MAX_LINE_LENGTH - 1;
+            }
+            out.write(line, position, line.length - position);
+            out.write(StreamingJarSigner.NEWLINE);
+        }
+    }
+
+    /**
+     * Minimal DER encoding, for the few structures in a signature block.
+     */
+    static final class Der {
+        static final int INTEGER = 0x02;
+        static final int OCTET_STRING = 0x04;
+        static final int OBJECT_IDENTIFIER = 0x06;
+        static final int SEQUENCE = 0x30;
+        static final int SET = 0x31;
+        static final int CONTEXT_0 = 0xa0;
+        static final byte[] NULL = {0x05, 0x00};
+
+        private Der() {
+        }
+
+        static byte[] sequence(final byte[]... elements) {
+            final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            for (final byte[] element : elements) {
+                contents.write(element, 0, element.length);
+            }
+            return Der.tagged(Der.SEQUENCE, contents.toByteArray());
+        }
+
+        static byte[] integer(final BigInteger value) {
+            return Der.tagged(Der.INTEGER, value.toByteArray());
+        }
+
+        static byte[] oid(final String oid) {
+            final String[] parts = oid.split("\\.");
+            final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            Der.writeBase128(contents, Long.parseLong(parts[0]) * 40 + Long.parseLong(parts[1]));
+            for (int i = 2; i < parts.length; i++) {
+                Der.writeBase128(contents, Long.parseLong(parts[i]));
+            }
+            return Der.tagged(Der.OBJECT_IDENTIFIER, contents.toByteArray());
+        }
+
+        private static void writeBase128(final ByteArrayOutputStream out, final long value) {
+            int shift = 63 - Long.numberOfLeadingZeros(value | 1);
+            shift -= shift % 7;
+            for (; shift > 0; shift -= 7) {
+                out.write((int) ((value >>> shift) & 0x7f) | 0x80);
+            }
+            out.write((int) (value & 0x7f));
+        }
+
+        static byte[] tagged(final int tag, final byte[] contents) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length + 6);
+            out.write(tag);
+            if (contents.length < 0x80) {
+                out.write(contents.length);
+            } else {
+                final int bytes = 4 - Integer.numberOfLeadingZeros(contents.length) / 8;
+                out.write(0x80 | bytes);
+                for (int i = bytes - 1; i >= 0; i--) {
+                    out.write(contents.length >>> (i * 8));
+                }
+            }
+            out.write(contents, 0, contents.length);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * MS-DOS date and time, as stored in zip headers.
+     */
+    static final class DosTime {
+        private DosTime() {
+        }
+
+        static int now() {
+            final Calendar calendar = Calendar.getInstance();
+            final int year = calendar.get(Calendar.YEAR) - 1980;
+            return year << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.testing;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestDescriptor;
+import org.gradle.api.tasks.testing.TestListener;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputListener;
+import org.gradle.api.tasks.testing.TestResult;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects the output of each test, and only prints it once the test has failed.
+ *
+ * <p>Output is held in memory up to a threshold per test, after which it is written to a
+ * file instead. Output of tests that pass is discarded.</p>
+ */
+public final class FailedTestOutputListener implements TestListener, TestOutputListener {
+
+    private static final Logger LOGGER = Logging.getLogger(FailedTestOutputListener.class);
+
+    private final File spillDirectory;
+    private final int threshold;
+    private final Consumer<String> log;
+    private final Map<TestDescriptor, Output> outputs = new HashMap<>();
+
+    /**
+     * Create a new listener.
+     *
+     * @param spillDirectory the directory to write output to once it no longer fits in memory
+     * @param threshold the number of characters of a test's output to hold in memory
+     */
+    public FailedTestOutputListener(final File spillDirectory, final int threshold) {
+        this(spillDirectory, threshold, FailedTestOutputListener.LOGGER::lifecycle);
+    }
+
+    FailedTestOutputListener(final File spillDirectory, final int threshold, final Consumer<String> log) {
+        this.spillDirectory = spillDirectory;
+        this.threshold = threshold;
+        this.log = log;
+    }
+
+    @Override
+    public void beforeSuite(final TestDescriptor suite) {
+    }
+
+    @Override
+    public synchronized void afterSuite(final TestDescriptor suite, final TestResult result) {
+        this.complete(suite, result);
+        if (suite.getParent() == null) {
+            // the run is over, anything left belonged to tests that never finished
+            for (final Output output : this.outputs.values()) {
+                output.discard();
+            }
+            this.outputs.clear();
+        }
+    }
+
+    @Override
+    public void beforeTest(final TestDescriptor test) {
+    }
+
+    @Override
+    public synchronized void afterTest(final TestDescriptor test, final TestResult result) {
+        this.complete(test, result);
+    }
+
+    @Override
+    public synchronized void onOutput(final TestDescriptor test, final TestOutputEvent event) {
+        this.outputs.computeIfAbsent(test, Output::new).append(event.getDestination(), event.getMessage());
+    }
+
+    private void complete(final TestDescriptor test, final TestResult result) {
+        final @Nullable Output output = this.outputs.remove(test);
+        if (output == null) {
+            return;
+        }
+        try {
+            if (result.getResultType() == TestResult.ResultType.FAILURE) {
+                output.replay();
+            }
+        } finally {
+            output.discard();
+        }
+    }
+
+    /**
+     * The output of a single test.
+     */
+    private final class Output {
+        private final TestDescriptor test;
+        private final StringBuilder buffer = new StringBuilder();
+        private TestOutputEvent.@Nullable Destination destination;
+        private @Nullable Path file;
+        private @Nullable Writer writer;
+
+        Output(final TestDescriptor test) {
+            this.test = test;
+        }
+
+        void append(final TestOutputEvent.Destination destination, final String message) {
+            if (destination != this.destination) {
+                // match the layout Gradle uses when it shows standard streams itself
+                this.destination = destination;
+                this.write(System.lineSeparator() + this.name() + (destination == TestOutputEvent.Destination.StdErr ? " STANDARD_ERROR" : " STANDARD_OUT") + System.lineSeparator());
+            }
+            this.write("    " + message);
+        }
+
+        private void write(final String text) {
+            try {
+                if (this.writer == null && this.buffer.length() + text.length() > FailedTestOutputListener.this.threshold) {
+                    final File directory = FailedTestOutputListener.this.spillDirectory;
+                    Files.createDirectories(directory.toPath());
+                    this.file = Files.createTempFile(directory.toPath(), "output", ".txt");
+                    this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8);
+                    this.writer.append(this.buffer);
+                    this.buffer.setLength(0);
+                }
+                if (this.writer != null) {
+                    this.writer.write(text);
+                } else {
+                    this.buffer.append(text);
+                }
+            } catch (final IOException ex) {
+                throw new GradleException("Failed to store output of " + this.name(), ex);
+            }
+        }
+
+        void replay() {
+            if (this.writer == null || this.file == null) {
+                FailedTestOutputListener.this.log.accept(this.buffer.toString());
+                return;
+            }
+
+            try {
+                this.writer.close();
+                this.writer = null;
+                try (final BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        FailedTestOutputListener.this.log.accept(line);
+                    }
+                }
+            } catch (final IOException ex) {
+                LOGGER.warn("Failed to read stored output of {} from {}", this.name(), this.file, ex);
+            }
+        }
+
+        void discard() {
+            this.buffer.setLength(0);
+            try {
+                if (this.writer != null) {
+                    this.writer.close();
+                    this.writer = null;
+                }
+                if (this.file != null) {
+                    Files.deleteIfExists(this.file);
+                    this.file = null;
+                }
+            } catch (final IOException ex) {
+                LOGGER.debug("Failed to delete stored output of {}", this.name(), ex);
+            }
+        }
+
+        private String name() {
+            return this.test.getClassName() == null || this.test.getClassName().equals(this.test.getName())
+                ? this.test.getName()
+                : this.test.getClassName() + " > " + this.test.getName();
+        }
+    }
+
+}
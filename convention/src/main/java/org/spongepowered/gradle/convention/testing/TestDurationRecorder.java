@@ -0,0 +1,147 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.testing;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestDescriptor;
+import org.gradle.api.tasks.testing.TestListener;
+import org.gradle.api.tasks.testing.TestResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records how long each test class took to run.
+ *
+ * <p>Durations are merged into a file of {@code class=milliseconds} lines, so classes that were
+ * filtered out or run on another shard keep their last known duration.</p>
+ */
+public final class TestDurationRecorder implements TestListener {
+
+    private static final Logger LOGGER = Logging.getLogger(TestDurationRecorder.class);
+
+    private final File durations;
+    private final Map<String, Long> recorded = new TreeMap<>();
+
+    /**
+     * Create a new recorder.
+     *
+     * @param durations the file to write durations to
+     */
+    public TestDurationRecorder(final File durations) {
+        this.durations = durations;
+    }
+
+    @Override
+    public void beforeSuite(final TestDescriptor suite) {
+    }
+
+    @Override
+    public synchronized void afterSuite(final TestDescriptor suite, final TestResult result) {
+        if (suite.getParent() == null) {
+            this.write();
+        } else if (suite.getClassName() != null) {
+            this.recorded.merge(TestDurationRecorder.topLevelClass(suite.getClassName()), result.getEndTime() - result.getStartTime(), Long::sum);
+        }
+    }
+
+    @Override
+    public void beforeTest(final TestDescriptor test) {
+    }
+
+    @Override
+    public void afterTest(final TestDescriptor test, final TestResult result) {
+    }
+
+    private void write() {
+        if (this.recorded.isEmpty()) {
+            return;
+        }
+
+        final Map<String, Long> merged = TestDurationRecorder.read(this.durations);
+        merged.putAll(this.recorded);
+        this.recorded.clear();
+        try {
+            Files.createDirectories(this.durations.getParentFile().toPath());
+            try (final BufferedWriter writer = Files.newBufferedWriter(this.durations.toPath(), StandardCharsets.UTF_8)) {
+                for (final Map.Entry<String, Long> entry : merged.entrySet()) {
+                    writer.write(entry.getKey() + '=' + entry.getValue());
+                    writer.newLine();
+                }
+            }
+        } catch (final IOException ex) {
+            LOGGER.warn("Failed to record test durations to {}", this.durations, ex);
+        }
+    }
+
+    /**
+     * Read recorded durations.
+     *
+     * @param durations the file durations were recorded to
+     * @return the duration of each class in milliseconds, empty if none have been recorded
+     */
+    static Map<String, Long> read(final File durations) {
+        final Map<String, Long> result = new TreeMap<>();
+        try (final BufferedReader reader = Files.newBufferedReader(durations.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int split = line.lastIndexOf('=');
+                if (split == -1) {
+                    continue;
+                }
+                try {
+                    result.put(line.substring(0, split), Long.parseLong(line.substring(split + 1).trim()));
+                } catch (final NumberFormatException ignored) {
+                    // hand-edited or truncated line, skip it
+                }
+            }
+        } catch (final NoSuchFileException ignored) {
+            // nothing recorded yet
+        } catch (final IOException ex) {
+            LOGGER.warn("Failed to read test durations from {}", durations, ex);
+        }
+        return result;
+    }
+
+    /**
+     * Get the class that owns a possibly nested class, since nested test classes run with their owner.
+     *
+     * @param className a binary class name
+     * @return the top-level class name
+     */
+    static String topLevelClass(final String className) {
+        final int nested = className.indexOf('$');
+        return nested == -1 ? className : className.substring(0, nested);
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of spongegradle-convention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.convention.testing;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.specs.Spec;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Excludes test classes that belong to other shards, when splitting a test task between machines.
+ *
+ * <p>By default, top-level test classes are sorted by name and dealt to each shard in turn, so every
+ * shard agrees on the split as long as they build the same classes.</p>
+ *
+ * <p>Given a file of recorded durations shared by every shard, classes are instead assigned by
+ * duration, longest first, each to the shard with the least total duration so far. Classes without
+ * a recorded duration are assumed to take the average.</p>
+ */
+public final class TestShard implements Spec<FileTreeElement> {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final int index;
+    private final int count;
+    private final FileCollection classesDirs;
+    private final @Nullable File durations;
+    private transient @Nullable Set<String> excluded;
+
+    private TestShard(final int index, final int count, final FileCollection classesDirs, final @Nullable File durations) {
+        this.index = index;
+        this.count = count;
+        this.classesDirs = classesDirs;
+        this.durations = durations;
+    }
+
+    /**
+     * Create a shard from a specification of the form {@code index/count}, where the first shard is {@code 1}.
+     *
+     * @param spec the shard specification
+     * @param classesDirs the directories containing test classes
+     * @param durations a file of test durations shared by every shard, or {@code null} to split by class name
+     * @return the shard
+     */
+    public static TestShard parse(final String spec, final FileCollection classesDirs, final @Nullable File durations) {
+        final int split = spec.indexOf('/');
+        final int index;
+        final int count;
+        try {
+            if (split == -1) {
+                throw new NumberFormatException();
+            }
+            index = Integer.parseInt(spec.substring(0, split).trim());
+            count = Integer.parseInt(spec.substring(split + 1).trim());
+        } catch (final NumberFormatException ex) {
+            throw new GradleException("Invalid test shard '" + spec + "', expected <index>/<count>, for example 1/4");
+        }
+        if (count < 1 || index < 1 || index > count) {
+            throw new GradleException("Invalid test shard '" + spec + "', the index must be between 1 and the shard count");
+        }
+        return new TestShard(index, count, classesDirs, durations);
+    }
+
+    @Override
+    public boolean isSatisfiedBy(final FileTreeElement element) {
+        if (element.isDirectory() || !element.getName().endsWith(TestShard.CLASS_EXTENSION)) {
+            return false;
+        }
+        return this.excluded().contains(TestShard.className(element));
+    }
+
+    private synchronized Set<String> excluded() {
+        if (this.excluded == null) {
+            final Set<String> classes = new HashSet<>();
+            this.classesDirs.getAsFileTree().visit(element -> {
+                if (!element.isDirectory() && element.getName().endsWith(TestShard.CLASS_EXTENSION)) {
+                    classes.add(TestShard.className(element));
+                }
+            });
+
+            final @Nullable Map<String, Long> known;
+            if (this.durations == null) {
+                known = null;
+            } else if (this.durations.isFile()) {
+                known = TestDurationRecorder.read(this.durations);
+            } else {
+                // a shard without the durations the others use would split differently, and skip or repeat classes
+                throw new GradleException("Shared test durations file " + this.durations + " does not exist");
+            }
+
+            final List<Set<String>> shards = TestShard.assign(this.count, classes, known);
+            final Set<String> excluded = new HashSet<>();
+            for (int i = 0; i < shards.size(); i++) {
+                if (i != this.index - 1) {
+                    excluded.addAll(shards.get(i));
+                }
+            }
+            this.excluded = excluded;
+        }
+        return this.excluded;
+    }
+
+    /**
+     * Split test classes between shards.
+     *
+     * @param count the number of shards
+     * @param classes the top-level test classes
+     * @param known recorded durations of classes in milliseconds, or {@code null} to split by class name
+     * @return the classes of each shard
+     */
+    static List<Set<String>> assign(final int count, final Set<String> classes, final @Nullable Map<String, Long> known) {
+        final List<Set<String>> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new HashSet<>());
+        }
+
+        if (known == null) {
+            int next = 0;
+            for (final String clazz : new TreeSet<>(classes)) {
+                shards.get(next).add(clazz);
+                next = (next + 1) % count;
+            }
+            return shards;
+        }
+
+        long total = 0;
+        int measured = 0;
+        for (final String clazz : classes) {
+            final @Nullable Long duration = known.get(clazz);
+            if (duration != null) {
+                total += duration;
+                measured++;
+            }
+        }
+        final long fallback = measured == 0 ? 1 : Math.max(1, total / measured);
+
+        final List<String> ordered = new ArrayList<>(classes);
+        ordered.sort(Comparator.<String>comparingLong(clazz -> known.getOrDefault(clazz, fallback)).reversed()
+            .thenComparing(Comparator.naturalOrder()));
+
+        final long[] loads = new long[count];
+        for (final String clazz : ordered) {
+            int lightest = 0;
+            for (int i = 1; i < loads.length; i++) {
+                if (loads[i] < loads[lightest]) {
+                    lightest = i;
+                }
+            }
+            loads[lightest] += known.getOrDefault(clazz, fallback);
+            shards.get(lightest).add(clazz);
+        }
+        return shards;
+    }
+
+    private static String className(final FileTreeElement element) {
+        final String path = element.getRelativePath().getPathString();
+        return TestDurationRecorder.topLevelClass(path.substring(0, path.length() - TestShard.CLASS_EXTENSION.length()).replace('/', '.'));
+    }
+
+}
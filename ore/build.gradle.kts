@@ -12,6 +12,7 @@ dependencies {
     implementation(libs.gson)
     implementation(libs.apacheHttp.client)
 
+    compileOnly(project(":spongegradle-plugin-development")) // for shared constants
     runtimeOnly(project(":spongegradle-plugin-development")) // for pluginUnderTestMetadata
 }
 
@@ -0,0 +1,524 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.spongepowered.gradle.build.ore.FakeOreServer;
+import org.spongepowered.gradle.ore.internal.http.CircuitBreaker;
+import org.spongepowered.gradle.ore.internal.http.CircuitOpenException;
+import org.spongepowered.gradle.ore.internal.http.HttpMetrics;
+import org.spongepowered.gradle.ore.internal.http.HttpOptions;
+import org.spongepowered.gradle.ore.internal.http.RetryPolicy;
+import org.spongepowered.gradle.ore.internal.model.AuthenticationResponse;
+import org.spongepowered.gradle.ore.internal.model.DeployVersionInfo;
+import org.spongepowered.gradle.ore.internal.model.EditVersionInfo;
+import org.spongepowered.gradle.ore.internal.model.KeyPermissions;
+import org.spongepowered.gradle.ore.internal.model.PaginatedResult;
+import org.spongepowered.gradle.ore.internal.model.Version;
+import org.spongepowered.gradle.ore.internal.work.CheckPermissionsAction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercise the Ore client against a local stand-in for the Ore API.
+ */
+class OreSessionFunctionalTest {
+
+    private static final HttpOptions OPTIONS = new HttpOptions(Duration.ofSeconds(5), Duration.ofSeconds(30));
+    private static final long SESSION_DURATION = Duration.ofHours(1).getSeconds();
+    private static final String PROJECT = "example";
+
+    private FakeOreServer ore;
+    private OreExecutor executor;
+    private HttpMetrics metrics;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.ore = FakeOreServer.start().project(OreSessionFunctionalTest.PROJECT);
+        this.executor = OreExecutor.create(4, false);
+        this.metrics = new HttpMetrics();
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.ore.close();
+        this.executor.shutdownNow();
+    }
+
+    private OreSession connect(final HttpOptions options, final OreResponseCache cache) throws Exception {
+        return this.connect(options, CircuitBreaker.DISABLED, cache);
+    }
+
+    private OreSession connect(final HttpOptions options, final CircuitBreaker circuitBreaker, final OreResponseCache cache) throws Exception {
+        return this.connect(options, circuitBreaker, cache, FakeOreServer.DEFAULT_API_KEY);
+    }
+
+    private OreSession connect(
+        final HttpOptions options,
+        final CircuitBreaker circuitBreaker,
+        final OreResponseCache cache,
+        final String apiKey
+    ) throws Exception {
+        return OreSession.connect(
+            this.executor,
+            options,
+            this.metrics,
+            circuitBreaker,
+            cache,
+            apiKey,
+            this.ore.endpoint(),
+            OreSessionFunctionalTest.SESSION_DURATION
+        ).get(10, TimeUnit.SECONDS);
+    }
+
+    private OreSession connect() throws Exception {
+        return this.connect(OreSessionFunctionalTest.OPTIONS, null);
+    }
+
+    private OreSession resume(final AuthenticationResponse existing) {
+        return OreSession.resume(
+            this.executor,
+            OreSessionFunctionalTest.OPTIONS,
+            this.metrics,
+            CircuitBreaker.DISABLED,
+            null,
+            FakeOreServer.DEFAULT_API_KEY,
+            this.ore.endpoint(),
+            OreSessionFunctionalTest.SESSION_DURATION,
+            existing
+        );
+    }
+
+    private static Path jar(final Path directory, final String name, final int size) throws IOException {
+        final byte[] contents = new byte[size];
+        new Random(name.hashCode()).nextBytes(contents);
+        return Files.write(directory.resolve(name + ".jar"), contents);
+    }
+
+    private static DeployVersionInfo versionInfo() {
+        return new DeployVersionInfo("", false, Collections.singletonMap(DeployVersionInfo.TAG_CHANNEL, Collections.singletonList("Release")));
+    }
+
+    private static Throwable rootCause(final Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @Test
+    void testQueryPermissions() throws Exception {
+        try (final OreSession session = this.connect()) {
+            final KeyPermissions perms = session.projectPermissions(OreSessionFunctionalTest.PROJECT).get(10, TimeUnit.SECONDS);
+            assertEquals(KeyPermissions.Type.PROJECT, perms.type());
+            assertTrue(perms.permissions().contains(FakeOreServer.CREATE_VERSION));
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+        }
+    }
+
+    @Test
+    void testReauthenticateAfterUnauthorized() throws Exception {
+        try (final OreSession session = this.connect()) {
+            this.ore.injectUnauthorized(1);
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS));
+        }
+    }
+
+    @Test
+    void testConcurrentUnauthorizedRequestsShareRenewal() throws Exception {
+        this.ore.latency(Duration.ofMillis(100));
+        try (final OreSession session = this.connect()) {
+            this.ore.expireSessions();
+            final List<CompletableFuture<KeyPermissions>> requests = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                requests.add(session.globalPermissions());
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+            assertEquals(1, this.ore.openSessions());
+        }
+    }
+
+    @Test
+    void testSessionRenewedAheadOfExpiry() throws Exception {
+        // expires well within the renewal window for the requested session duration
+        this.ore.sessionDuration(Duration.ofSeconds(30));
+        try (final OreSession session = this.connect()) {
+            final String initial = session.currentSession().session();
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (initial.equals(session.currentSession().session()) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertNotEquals(initial, session.currentSession().session());
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS), "The existing session was not used while renewing");
+        }
+    }
+
+    @Test
+    void testExpiredSessionRenewedBeforeRequest() throws Exception {
+        this.ore.sessionDuration(Duration.ofSeconds(1));
+        try (final OreSession session = this.connect()) {
+            Thread.sleep(1200);
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS), "A request was sent with the expired session");
+        }
+    }
+
+    @Test
+    void testPermissionCheckReportsEveryProject() throws Exception {
+        this.ore.project("restricted", FakeOreServer.VIEW_PUBLIC_INFO);
+        try (final OreSession session = this.connect()) {
+            CheckPermissionsAction.verify(
+                CompletableFuture.completedFuture(session),
+                Collections.singleton(OreSessionFunctionalTest.PROJECT),
+                Collections.singleton(FakeOreServer.CREATE_VERSION)
+            ).get(10, TimeUnit.SECONDS);
+
+            final CompletableFuture<Void> check = CheckPermissionsAction.verify(
+                CompletableFuture.completedFuture(session),
+                Arrays.asList(OreSessionFunctionalTest.PROJECT, "restricted", "missing"),
+                Collections.singleton(FakeOreServer.CREATE_VERSION)
+            );
+            final ExecutionException failure = assertThrows(ExecutionException.class, () -> check.get(10, TimeUnit.SECONDS));
+            final String message = assertInstanceOf(GradleException.class, failure.getCause()).getMessage();
+            assertTrue(message.contains("cannot publish to 2 of 3 project(s)"), message);
+            assertTrue(message.contains("  - restricted: missing permission(s) " + FakeOreServer.CREATE_VERSION), message);
+            assertTrue(message.contains("  - missing: unable to query permissions"), message);
+            assertFalse(message.contains("  - " + OreSessionFunctionalTest.PROJECT + ":"), message);
+        }
+    }
+
+    @Test
+    void testRetryHonoursRetryAfter() throws Exception {
+        try (final OreSession session = this.connect()) {
+            this.ore.injectUnavailable(1, Duration.ofSeconds(1));
+            final long start = System.nanoTime();
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS));
+            assertTrue(elapsedMillis >= 900, "Retried after " + elapsedMillis + "ms, before the requested delay");
+        }
+    }
+
+    @Test
+    void testRetryAfterConnectionReset() throws Exception {
+        try (final OreSession session = this.connect()) {
+            this.ore.injectConnectionResets(1);
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS));
+        }
+    }
+
+    @Test
+    void testCircuitBreakerRefusesFailingEndpoint() throws Exception {
+        final HttpOptions options = OreSessionFunctionalTest.OPTIONS.withRetryPolicy(new RetryPolicy(0, Duration.ZERO, Duration.ZERO));
+        final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofHours(1));
+        try (final OreSession session = this.connect(options, breaker, null)) {
+            this.ore.injectUnavailable(2, Duration.ZERO);
+            for (int i = 0; i < 2; i++) {
+                assertThrows(ExecutionException.class, () -> session.globalPermissions().get(10, TimeUnit.SECONDS));
+            }
+
+            final ExecutionException refused = assertThrows(ExecutionException.class, () -> session.globalPermissions().get(10, TimeUnit.SECONDS));
+            assertInstanceOf(CircuitOpenException.class, OreSessionFunctionalTest.rootCause(refused));
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS));
+
+            // other endpoints are unaffected
+            session.projectVersions(OreSessionFunctionalTest.PROJECT, 10, 0).get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testConcurrentRequestsLimitedPerSession() throws Exception {
+        this.ore.latency(Duration.ofMillis(100));
+        try (final OreSession session = this.connect(OreSessionFunctionalTest.OPTIONS.withMaxConcurrentRequests(2), null)) {
+            final List<CompletableFuture<PaginatedResult<Version>>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(session.projectVersions(OreSessionFunctionalTest.PROJECT, 10, i));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+            assertEquals(8, this.ore.requests(FakeOreServer.ENDPOINT_VERSIONS));
+            assertTrue(this.ore.peakConcurrentRequests() <= 2, "Saw " + this.ore.peakConcurrentRequests() + " concurrent requests");
+        }
+    }
+
+    @Test
+    void testSessionsKeyedByApiKey() {
+        final String endpoint = this.ore.endpoint();
+        assertEquals(OreSessionService.sessionKey(endpoint, "first"), OreSessionService.sessionKey(endpoint, "first"));
+        assertNotEquals(OreSessionService.sessionKey(endpoint, "first"), OreSessionService.sessionKey(endpoint, "second"));
+        assertFalse(OreSessionService.sessionKey(endpoint, "first").contains("first"));
+    }
+
+    @Test
+    void testDownloadVersionWithPublicSession(final @TempDir Path tempDir) throws Exception {
+        final byte[] contents = Files.readAllBytes(OreSessionFunctionalTest.jar(tempDir, "dependency", 64 * 1024));
+        this.ore.version("dependency", "1.0.0", "dependency-1.0.0.jar", contents);
+
+        try (final OreSession session = this.connect(OreSessionFunctionalTest.OPTIONS, CircuitBreaker.DISABLED, null, "")) {
+            final Version version = session.version("dependency", "1.0.0").get(10, TimeUnit.SECONDS);
+            assertNotNull(version.fileInfo());
+            assertEquals("dependency-1.0.0.jar", version.fileInfo().name());
+            assertEquals(contents.length, version.fileInfo().sizeBytes());
+
+            final Path destination = tempDir.resolve("downloaded.jar");
+            final String md5 = session.downloadVersion("dependency", "1.0.0", destination).get(10, TimeUnit.SECONDS);
+            assertEquals(version.fileInfo().md5Hash(), md5);
+            assertArrayEquals(contents, Files.readAllBytes(destination));
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_DOWNLOAD));
+        }
+    }
+
+    @Test
+    void testTerminateSession() throws Exception {
+        try (final OreSession session = this.connect()) {
+            assertEquals(1, this.ore.openSessions());
+            session.terminate().get(10, TimeUnit.SECONDS);
+            assertEquals(0, this.ore.openSessions());
+        }
+    }
+
+    @Test
+    void testResumeStoredSession(final @TempDir Path storeDir) throws Exception {
+        final OreSessionStore store = new OreSessionStore(storeDir);
+        try (final OreSession session = this.connect()) {
+            store.save(this.ore.endpoint(), FakeOreServer.DEFAULT_API_KEY, session.currentSession());
+        }
+
+        final AuthenticationResponse stored = store.load(this.ore.endpoint(), FakeOreServer.DEFAULT_API_KEY);
+        assertNotNull(stored);
+        try (final OreSession session = this.resume(stored)) {
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+            assertEquals(1, this.ore.openSessions());
+        }
+    }
+
+    @Test
+    void testResumedSessionRenewedWhenRejected(final @TempDir Path storeDir) throws Exception {
+        final OreSessionStore store = new OreSessionStore(storeDir);
+        try (final OreSession session = this.connect()) {
+            store.save(this.ore.endpoint(), FakeOreServer.DEFAULT_API_KEY, session.currentSession());
+        }
+        this.ore.expireSessions();
+
+        final AuthenticationResponse stored = store.load(this.ore.endpoint(), FakeOreServer.DEFAULT_API_KEY);
+        assertNotNull(stored);
+        try (final OreSession session = this.resume(stored)) {
+            session.globalPermissions().get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_AUTHENTICATE));
+            assertEquals(2, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS));
+            assertNotEquals(stored.session(), session.currentSession().session());
+        }
+    }
+
+    @Test
+    void testCompressedRequestsAndResponses(final @TempDir Path tempDir) throws Exception {
+        this.ore.compressResponses(true);
+        final Path artifact = OreSessionFunctionalTest.jar(tempDir, "example-1.0.0", 16 * 1024);
+        try (final OreSession session = this.connect(OreSessionFunctionalTest.OPTIONS.withCompressRequests(true), null)) {
+            assertEquals(1, this.ore.compressedRequests());
+            assertEquals(Duration.ofSeconds(OreSessionFunctionalTest.SESSION_DURATION), this.ore.requestedSessionDuration());
+
+            final KeyPermissions perms = session.globalPermissions().get(10, TimeUnit.SECONDS);
+            assertEquals(KeyPermissions.Type.GLOBAL, perms.type());
+
+            session.publishVersion(OreSessionFunctionalTest.PROJECT, OreSessionFunctionalTest.versionInfo(), artifact).get(30, TimeUnit.SECONDS);
+            session.editVersion(
+                OreSessionFunctionalTest.PROJECT,
+                "example-1.0.0",
+                new EditVersionInfo(Collections.singletonMap(DeployVersionInfo.TAG_CHANNEL, Collections.singletonList("Beta")))
+            ).get(10, TimeUnit.SECONDS);
+
+            // multipart uploads are streamed uncompressed
+            assertEquals(2, this.ore.compressedRequests());
+            assertEquals("Beta", this.ore.versions(OreSessionFunctionalTest.PROJECT).get(0).channel());
+        }
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsCombined(final @TempDir Path cacheDir) throws Exception {
+        this.ore.latency(Duration.ofMillis(200));
+        final OreResponseCache cache = new OreResponseCache(cacheDir, Duration.ofMinutes(5), Duration.ofDays(1));
+        try (final OreSession session = this.connect(OreSessionFunctionalTest.OPTIONS, cache)) {
+            final List<CompletableFuture<KeyPermissions>> requests = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                requests.add(session.projectPermissions(OreSessionFunctionalTest.PROJECT));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+            session.projectPermissions(OreSessionFunctionalTest.PROJECT).get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_PERMISSIONS));
+        }
+    }
+
+    @Test
+    void testPublishAndListVersions(final @TempDir Path tempDir) throws Exception {
+        final Path artifact = OreSessionFunctionalTest.jar(tempDir, "example-1.0.0", 64 * 1024);
+        try (final OreSession session = this.connect()) {
+            final Version published = session.publishVersion(OreSessionFunctionalTest.PROJECT, OreSessionFunctionalTest.versionInfo(), artifact)
+                .get(30, TimeUnit.SECONDS);
+            assertEquals("example-1.0.0", published.name());
+
+            final PaginatedResult<Version> versions = session.projectVersions(OreSessionFunctionalTest.PROJECT, 10, 0).get(10, TimeUnit.SECONDS);
+            assertEquals(1, versions.result().size());
+            final Version.FileInfo file = versions.result().get(0).fileInfo();
+            assertNotNull(file);
+            assertEquals(Files.size(artifact), file.sizeBytes());
+            assertIterableEquals(
+                Collections.singletonList(this.ore.versions(OreSessionFunctionalTest.PROJECT).get(0).md5()),
+                Collections.singletonList(file.md5Hash())
+            );
+        }
+    }
+
+    @Test
+    void testPromoteVersionWithoutUpload(final @TempDir Path tempDir) throws Exception {
+        final Path artifact = OreSessionFunctionalTest.jar(tempDir, "example-1.0.0", 64 * 1024);
+        final DeployVersionInfo beta = new DeployVersionInfo(
+            "",
+            false,
+            Collections.singletonMap(DeployVersionInfo.TAG_CHANNEL, Collections.singletonList("Beta"))
+        );
+        try (final OreSession session = this.connect()) {
+            session.publishVersion(OreSessionFunctionalTest.PROJECT, beta, artifact).get(30, TimeUnit.SECONDS);
+            assertEquals("Beta", this.ore.versions(OreSessionFunctionalTest.PROJECT).get(0).channel());
+
+            session.editVersion(
+                OreSessionFunctionalTest.PROJECT,
+                "example-1.0.0",
+                new EditVersionInfo(Collections.singletonMap(DeployVersionInfo.TAG_CHANNEL, Collections.singletonList("Release")))
+            ).get(10, TimeUnit.SECONDS);
+
+            assertEquals("Release", this.ore.versions(OreSessionFunctionalTest.PROJECT).get(0).channel());
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_UPLOAD));
+            assertEquals(1, this.ore.requests(FakeOreServer.ENDPOINT_EDIT_VERSION));
+        }
+    }
+
+    @Test
+    void testMetricsReport(final @TempDir Path tempDir) throws Exception {
+        final Path artifact = OreSessionFunctionalTest.jar(tempDir, "example-1.0.0", 16 * 1024);
+        try (final OreSession session = this.connect()) {
+            this.ore.injectUnauthorized(1);
+            session.publishVersion(OreSessionFunctionalTest.PROJECT, OreSessionFunctionalTest.versionInfo(), artifact).get(30, TimeUnit.SECONDS);
+        }
+
+        final Path report = tempDir.resolve("metrics.json");
+        this.metrics.writeReport(report);
+        final String contents = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+        assertTrue(contents.contains("\"reauthentications\": 1"), contents);
+        assertTrue(contents.contains("\"POST authenticate\""), contents);
+        assertTrue(contents.contains("\"POST projects/{id}/versions\""), contents);
+        assertTrue(contents.contains("\"unauthorized\": 1"), contents);
+    }
+
+    /**
+     * Measure upload throughput over a constrained link.
+     *
+     * <p>Enable with {@code -Pspongegradle.benchmark=true}. The upload count, size,
+     * and link bandwidth can be adjusted with {@code spongegradle.benchmark.uploads},
+     * {@code spongegradle.benchmark.uploadSize}, and {@code spongegradle.benchmark.bandwidth}.</p>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "spongegradle.benchmark", matches = "true")
+    void benchmarkConcurrentUploads(final @TempDir Path tempDir) throws Exception {
+        final int uploads = Integer.getInteger("spongegradle.benchmark.uploads", 16);
+        final int uploadSize = Integer.getInteger("spongegradle.benchmark.uploadSize", 2 * 1024 * 1024);
+        final long bandwidth = Long.getLong("spongegradle.benchmark.bandwidth", 8L * 1024 * 1024);
+        this.ore.bandwidth(bandwidth).latency(Duration.ofMillis(50));
+
+        final List<Path> artifacts = new ArrayList<>();
+        for (int i = 0; i < uploads; i++) {
+            artifacts.add(OreSessionFunctionalTest.jar(tempDir, "benchmark-" + i, uploadSize));
+        }
+
+        try (final OreSession session = this.connect()) {
+            final long start = System.nanoTime();
+            final List<CompletableFuture<Version>> results = new ArrayList<>();
+            for (final Path artifact : artifacts) {
+                results.add(session.publishVersion(OreSessionFunctionalTest.PROJECT, OreSessionFunctionalTest.versionInfo(), artifact));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.MINUTES);
+            final double seconds = (System.nanoTime() - start) / 1e9;
+
+            final double megabytes = (double) uploads * uploadSize / (1024 * 1024);
+            System.out.printf(
+                "Uploaded %d x %d KiB in %.2fs: %.2f MiB/s aggregate (per-connection cap %.2f MiB/s, peak upload queue %d)%n",
+                uploads,
+                uploadSize / 1024,
+                seconds,
+                megabytes / seconds,
+                bandwidth / (1024.0 * 1024),
+                this.executor.peakQueueDepth()
+            );
+            assertEquals(uploads, this.ore.versions(OreSessionFunctionalTest.PROJECT).size());
+        }
+    }
+
+}
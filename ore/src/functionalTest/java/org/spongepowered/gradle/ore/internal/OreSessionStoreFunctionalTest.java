@@ -0,0 +1,162 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spongepowered.gradle.ore.internal.model.AuthenticationResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exercise the on-disk store of Ore sessions.
+ */
+class OreSessionStoreFunctionalTest {
+
+    private static final String ENDPOINT = "https://ore.example.org/";
+    private static final String API_KEY = "first-api-key";
+    private static final String OTHER_API_KEY = "second-api-key";
+
+    private static AuthenticationResponse session(final String id, final Duration lifetime) {
+        return new AuthenticationResponse(
+            id,
+            OffsetDateTime.now(ZoneOffset.UTC).plus(lifetime).toString(),
+            AuthenticationResponse.KeyType.KEY
+        );
+    }
+
+    private static List<Path> entries(final Path directory) throws IOException {
+        try (final Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void testSaveAndLoad(final @TempDir Path directory) {
+        final OreSessionStore store = new OreSessionStore(directory);
+        final AuthenticationResponse session = OreSessionStoreFunctionalTest.session("stored", Duration.ofHours(1));
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, session);
+
+        final AuthenticationResponse loaded = new OreSessionStore(directory)
+            .load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY);
+        assertNotNull(loaded);
+        assertEquals(session.session(), loaded.session());
+        assertEquals(session.expiresAt(), loaded.expiresAt());
+        assertEquals(session.type(), loaded.type());
+    }
+
+    @Test
+    void testEntriesDoNotContainSessionOrKey(final @TempDir Path directory) throws IOException {
+        final OreSessionStore store = new OreSessionStore(directory);
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, OreSessionStoreFunctionalTest.session("secret-session", Duration.ofHours(1)));
+
+        final List<Path> entries = OreSessionStoreFunctionalTest.entries(directory);
+        assertEquals(1, entries.size());
+        final Path entry = entries.get(0);
+        assertFalse(entry.getFileName().toString().contains(OreSessionStoreFunctionalTest.API_KEY));
+        final String contents = new String(Files.readAllBytes(entry), StandardCharsets.ISO_8859_1);
+        assertFalse(contents.contains("secret-session"), "Session was stored in plain text");
+    }
+
+    @Test
+    void testLoadWithOtherKey(final @TempDir Path directory) {
+        final OreSessionStore store = new OreSessionStore(directory);
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, OreSessionStoreFunctionalTest.session("stored", Duration.ofHours(1)));
+
+        assertNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.OTHER_API_KEY));
+        assertNull(store.load("https://other.example.org/", OreSessionStoreFunctionalTest.API_KEY));
+        assertNotNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY));
+    }
+
+    @Test
+    void testEntryEncryptedWithOtherKeyDiscarded(final @TempDir Path directory) throws IOException {
+        final OreSessionStore store = new OreSessionStore(directory);
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, OreSessionStoreFunctionalTest.session("first", Duration.ofHours(1)));
+        final Path first = OreSessionStoreFunctionalTest.entries(directory).get(0);
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.OTHER_API_KEY, OreSessionStoreFunctionalTest.session("second", Duration.ofHours(1)));
+        final Path second = OreSessionStoreFunctionalTest.entries(directory).stream()
+            .filter(path -> !path.equals(first))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+
+        // put the first key's session where the second key's session is expected
+        Files.copy(first, second, StandardCopyOption.REPLACE_EXISTING);
+
+        assertNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.OTHER_API_KEY));
+        assertTrue(Files.notExists(second), "Unreadable session was not discarded");
+        assertNotNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY));
+    }
+
+    @Test
+    void testCorruptEntryDiscarded(final @TempDir Path directory) throws IOException {
+        final OreSessionStore store = new OreSessionStore(directory);
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, OreSessionStoreFunctionalTest.session("stored", Duration.ofHours(1)));
+        final Path entry = OreSessionStoreFunctionalTest.entries(directory).get(0);
+        final byte[] contents = Files.readAllBytes(entry);
+        contents[contents.length - 1] ^= 1;
+        Files.write(entry, contents);
+
+        assertNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY));
+        assertTrue(Files.notExists(entry), "Corrupt session was not discarded");
+    }
+
+    @Test
+    void testExpiringSessionNotReused(final @TempDir Path directory) throws IOException {
+        final OreSessionStore store = new OreSessionStore(directory);
+        final Duration lifetime = OreSessionStore.MINIMUM_REMAINING_LIFETIME.minus(Duration.ofMinutes(1));
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, OreSessionStoreFunctionalTest.session("expiring", lifetime));
+        assertEquals(1, OreSessionStoreFunctionalTest.entries(directory).size());
+
+        assertNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY));
+        assertTrue(OreSessionStoreFunctionalTest.entries(directory).isEmpty(), "Expiring session was not discarded");
+    }
+
+    @Test
+    void testRemove(final @TempDir Path directory) throws IOException {
+        final OreSessionStore store = new OreSessionStore(directory);
+        store.save(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY, OreSessionStoreFunctionalTest.session("stored", Duration.ofHours(1)));
+        store.remove(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY);
+
+        assertTrue(OreSessionStoreFunctionalTest.entries(directory).isEmpty());
+        assertNull(store.load(OreSessionStoreFunctionalTest.ENDPOINT, OreSessionStoreFunctionalTest.API_KEY));
+    }
+
+}
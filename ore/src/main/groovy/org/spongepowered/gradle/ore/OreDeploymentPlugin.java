@@ -26,27 +26,52 @@
 
 import net.kyori.mammoth.ProjectPlugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.file.RegularFile;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.plugins.HelpTasksPlugin;
 import org.gradle.api.plugins.PluginContainer;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.provider.SetProperty;
 import org.gradle.api.publish.plugins.PublishingPlugin;
 import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
 import org.jetbrains.annotations.NotNull;
 import org.spongepowered.gradle.ore.internal.OreDeploymentExtensionImpl;
 import org.spongepowered.gradle.ore.internal.OreSessionService;
+import org.spongepowered.gradle.ore.internal.http.HttpOptions;
+import org.spongepowered.gradle.ore.internal.work.PublishVersionAction;
+import org.spongepowered.gradle.ore.task.CheckOrePermissions;
+import org.spongepowered.gradle.ore.task.DownloadOreDependencies;
 import org.spongepowered.gradle.ore.task.OreTask;
+import org.spongepowered.gradle.ore.task.PromoteOreVersion;
 import org.spongepowered.gradle.ore.task.PublishToOreTask;
 import org.spongepowered.gradle.ore.task.ViewOrePermissions;
 
+import java.io.File;
 import java.time.Duration;
+import java.util.Set;
 
 public class OreDeploymentPlugin implements ProjectPlugin {
 
     private static final String ORE_DEPLOYMENT_EXTENSION = "oreDeployment";
     private static final String PUBLISH_TO_ORE_TASK = "publishToOre";
+    private static final String CHECK_ORE_PERMISSIONS_TASK = "checkOrePermissions";
 
     private static final String ORE_GROUP = "ore";
+    private static final String RECEIPTS_DIRECTORY = "ore/receipts/";
+    private static final String SESSION_STORE_DIRECTORY = "caches/spongegradle-ore/sessions";
+    private static final String MAX_CONCURRENT_UPLOADS_PROPERTY = "org.spongepowered.ore.maxConcurrentUploads";
+    private static final String VIRTUAL_THREADS_PROPERTY = "org.spongepowered.ore.virtualThreads";
+    private static final String PLUGIN_CACHE_DIRECTORY = "caches/spongegradle-ore/plugins";
+    private static final String RESPONSE_CACHE_DIRECTORY = "caches/spongegradle-ore/responses";
+    private static final String METRICS_REPORT = "reports/ore/http-metrics.json";
+    private static final String COMPRESS_REQUESTS_PROPERTY = "org.spongepowered.ore.compressRequests";
+    private static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "org.spongepowered.ore.maxConcurrentRequests";
+    private static final String MAX_RETRIES_PROPERTY = "org.spongepowered.ore.maxRetries";
+    private static final String CIRCUIT_BREAKER_THRESHOLD_PROPERTY = "org.spongepowered.ore.circuitBreakerThreshold";
+    private static final String PREWARM_SESSIONS_PROPERTY = "org.spongepowered.ore.prewarmSessions";
 
     @Override
     public void apply(
@@ -62,6 +87,33 @@ public void apply(
             OreSessionService.class,
             params -> {
                 params.getParameters().getSessionDuration().set(Duration.ofHours(3));
+                params.getParameters().getMaxConcurrentUploads().set(
+                    project.getProviders().gradleProperty(OreDeploymentPlugin.MAX_CONCURRENT_UPLOADS_PROPERTY).map(Integer::parseInt)
+                );
+                params.getParameters().getUseVirtualThreads().set(
+                    project.getProviders().gradleProperty(OreDeploymentPlugin.VIRTUAL_THREADS_PROPERTY).map(Boolean::parseBoolean)
+                );
+                params.getParameters().getResponseCacheDirectory().set(
+                    new File(project.getGradle().getGradleUserHomeDir(), OreDeploymentPlugin.RESPONSE_CACHE_DIRECTORY)
+                );
+                params.getParameters().getMetricsReport().set(
+                    project.getRootProject().getLayout().getBuildDirectory().file(OreDeploymentPlugin.METRICS_REPORT)
+                );
+                params.getParameters().getCompressRequests().set(
+                    project.getProviders().gradleProperty(OreDeploymentPlugin.COMPRESS_REQUESTS_PROPERTY).map(Boolean::parseBoolean)
+                );
+                params.getParameters().getMaxConcurrentRequests().set(
+                    project.getProviders().gradleProperty(OreDeploymentPlugin.MAX_CONCURRENT_REQUESTS_PROPERTY).map(Integer::parseInt)
+                );
+                params.getParameters().getMaxRetries().set(
+                    project.getProviders().gradleProperty(OreDeploymentPlugin.MAX_RETRIES_PROPERTY).map(Integer::parseInt)
+                );
+                params.getParameters().getCircuitBreakerThreshold().set(
+                    project.getProviders().gradleProperty(OreDeploymentPlugin.CIRCUIT_BREAKER_THRESHOLD_PROPERTY).map(Integer::parseInt)
+                );
+                params.getParameters().getSessionStoreDirectory().set(
+                    new File(project.getGradle().getGradleUserHomeDir(), OreDeploymentPlugin.SESSION_STORE_DIRECTORY)
+                );
             }
         );
 
@@ -69,9 +121,23 @@ public void apply(
             task.getOreSessions().set(ore);
             task.getOreEndpoint().set(extension.oreEndpoint());
             task.getOreApiKey().set(extension.apiKey());
+            task.getConnectTimeout().set(extension.connectTimeout());
+            task.getReadTimeout().set(extension.readTimeout());
+            task.getRequestTimeout().set(extension.requestTimeout());
+            task.usesService(ore);
         });
 
-        this.registerPublicationTasks(extension, tasks);
+        tasks.withType(DownloadOreDependencies.class).configureEach(task -> {
+            task.getCacheDirectory().convention(project.getLayout().dir(project.provider(
+                () -> new File(project.getGradle().getGradleUserHomeDir(), OreDeploymentPlugin.PLUGIN_CACHE_DIRECTORY)
+            )));
+        });
+
+        if (project.getProviders().gradleProperty(OreDeploymentPlugin.PREWARM_SESSIONS_PROPERTY).map(Boolean::parseBoolean).getOrElse(true)) {
+            project.getGradle().getTaskGraph().whenReady(graph -> this.prewarmSessions(project, graph));
+        }
+
+        this.registerPublicationTasks(project, extension, tasks);
         this.registerDefaultPublication(project, extension);
 
         tasks.register("orePermissions", ViewOrePermissions.class, task -> {
@@ -79,34 +145,105 @@ public void apply(
         });
     }
 
-    private void registerPublicationTasks(final OreDeploymentExtension extension, final TaskContainer tasks) {
+    private void registerPublicationTasks(final Project project, final OreDeploymentExtension extension, final TaskContainer tasks) {
         tasks.register(PUBLISH_TO_ORE_TASK, task -> {
             task.dependsOn(tasks.withType(PublishToOreTask.class));
             task.setGroup(PublishingPlugin.PUBLISH_TASK_GROUP);
         });
 
+        final SetProperty<String> projectIds = project.getObjects().setProperty(String.class);
+        tasks.register(CHECK_ORE_PERMISSIONS_TASK, CheckOrePermissions.class, task -> {
+            task.setGroup(PublishingPlugin.PUBLISH_TASK_GROUP);
+            task.setDescription("Verify the Ore API key can publish to every configured project.");
+            task.getProjectIds().set(projectIds);
+        });
+
         extension.publications().all(publication -> {
-            tasks.register(publishTaskName(publication.getName()), PublishToOreTask.class, task -> {
+            projectIds.add(publication.getProjectId());
+            final Provider<RegularFile> receipt = project.getLayout().getBuildDirectory().file(RECEIPTS_DIRECTORY + publication.getName() + ".json");
+            final TaskProvider<PublishToOreTask> publish = tasks.register(publishTaskName(publication.getName()), PublishToOreTask.class, task -> {
                 task.getPublication().set(publication);
+                task.getCheckedProjectIds().set(projectIds);
+                task.getReceipt().set(receipt);
+                task.setGroup(PublishingPlugin.PUBLISH_TASK_GROUP);
+            });
+            tasks.register(promoteTaskName(publication.getName()), PromoteOreVersion.class, task -> {
+                task.mustRunAfter(publish);
+                task.getProjectId().set(publication.getProjectId());
+                task.getReceipt().set(receipt);
                 task.setGroup(PublishingPlugin.PUBLISH_TASK_GROUP);
+                task.setDescription("Move the last published version of the " + publication.getName() + " publication to another Ore channel.");
             });
         });
     }
 
+    /**
+     * Start authenticating with Ore as soon as the build is known to need it.
+     *
+     * <p>The session is then ready by the time the first Ore task runs, instead of its setup
+     * waiting until the end of the build.</p>
+     */
+    private void prewarmSessions(final Project project, final TaskExecutionGraph graph) {
+        for (final Task task : graph.getAllTasks()) {
+            // downloads only need a session when a plugin is missing from the cache
+            if (task.getProject() != project || !(task instanceof OreTask) || task instanceof DownloadOreDependencies) {
+                continue;
+            }
+
+            final OreTask oreTask = (OreTask) task;
+            if (!oreTask.getOreApiKey().isPresent()) {
+                continue; // the task will report the missing key itself
+            }
+            if (oreTask instanceof PublishToOreTask && this.isPublished((PublishToOreTask) oreTask)) {
+                continue; // nothing to upload, so no session will be needed
+            }
+            oreTask.getOreSessions().get().prewarm(
+                oreTask.getOreApiKey().get(),
+                oreTask.getOreEndpoint().get(),
+                new HttpOptions(oreTask.getConnectTimeout().get(), oreTask.getReadTimeout().get())
+            );
+        }
+    }
+
+    /**
+     * Get whether a publication's artifact is unchanged since it was published, according to its receipt.
+     *
+     * <p>If the artifact has yet to be built, this reflects the artifact from the last build, so a
+     * publication whose artifact is rebuilt opens its session when it runs instead.</p>
+     */
+    private boolean isPublished(final PublishToOreTask task) {
+        final OrePublication publication = task.getPublication().get();
+        final Set<File> artifacts = publication.getPublishArtifacts().getFiles();
+        if (artifacts.size() != 1 || !task.getReceipt().isPresent()) {
+            return false;
+        }
+        return PublishVersionAction.isPublished(
+            task.getOreEndpoint().get(),
+            publication.getProjectId().get(),
+            artifacts.iterator().next().toPath(),
+            task.getReceipt().get().getAsFile().toPath()
+        );
+    }
+
     private void registerDefaultPublication(final Project project, final OreDeploymentExtension extension) {
         SpongeGradleConfigurationSource.configureSpongeGradle(project, extension);
     }
 
     private String publishTaskName(final String publicationName) {
-        final String capitalized;
+        return "publish" + this.capitalize(publicationName) + "PublicationToOre";
+    }
+
+    private String promoteTaskName(final String publicationName) {
+        return "promote" + this.capitalize(publicationName) + "PublicationOnOre";
+    }
+
+    private String capitalize(final String publicationName) {
         if (publicationName.length() > 0 && Character.isLowerCase(publicationName.codePointAt(0))) {
             final StringBuilder builder = new StringBuilder(publicationName.length());
-            capitalized = builder.appendCodePoint(Character.toUpperCase(publicationName.codePointAt(0)))
+            return builder.appendCodePoint(Character.toUpperCase(publicationName.codePointAt(0)))
                 .append(publicationName, builder.length(), publicationName.length())
                 .toString();
-        } else {
-            capitalized = publicationName;
         }
-        return "publish" + capitalized + "PublicationToOre";
+        return publicationName;
     }
 }
@@ -26,10 +26,15 @@ package org.spongepowered.gradle.ore
 
 import groovy.transform.PackageScope
 import org.gradle.api.Project
+import org.spongepowered.gradle.common.Constants
+import org.spongepowered.gradle.ore.task.DownloadOreDependencies
 
 @PackageScope
 class SpongeGradleConfigurationSource {
 
+    private static final String SPONGE_API = 'spongeapi'
+    private static final String DOWNLOAD_DEPENDENCIES_TASK = 'downloadOreDependencies'
+
     private SpongeGradleConfigurationSource() {
     }
 
@@ -45,6 +50,40 @@ class SpongeGradleConfigurationSource {
                     }
                 }
             }
+
+            def download = project.tasks.register(DOWNLOAD_DEPENDENCIES_TASK, DownloadOreDependencies) { task ->
+                task.group = Constants.TASK_GROUP
+                task.description = 'Download the plugins this plugin depends on from Ore into the run directory'
+                task.dependencies.set(project.provider { oreDependencies(project) })
+                task.destinationDirectory.set(project.layout.projectDirectory.dir('run/mods'))
+            }
+            project.tasks.named('runServer').configure { runServer ->
+                runServer.dependsOn(download)
+            }
+        }
+    }
+
+    /**
+     * Collect the dependencies of every plugin in the project that can be fetched from Ore.
+     *
+     * <p>Only dependencies on an exact version of another plugin are included.</p>
+     */
+    private static Map<String, String> oreDependencies(Project project) {
+        def ownPlugins = project.sponge.plugins.names
+        def result = new TreeMap<String, String>()
+        project.sponge.plugins.each { plugin ->
+            plugin.dependencies.each { dependency ->
+                def version = dependency.version.getOrNull()
+                if (dependency.name == SPONGE_API || ownPlugins.contains(dependency.name) || version == null) {
+                    return
+                }
+                if (version ==~ /.*[\[\](),*].*/) {
+                    project.logger.info('Not downloading {} from Ore, as {} is not an exact version', dependency.name, version)
+                    return
+                }
+                result.put(dependency.name, version)
+            }
         }
+        return result
     }
 }
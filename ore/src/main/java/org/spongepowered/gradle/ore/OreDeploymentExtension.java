@@ -32,6 +32,8 @@
 import org.jetbrains.annotations.NotNull;
 import org.spongepowered.gradle.ore.internal.OrePublicationImpl;
 
+import java.time.Duration;
+
 /**
  * Properties to configure all ore deployment tasks.
  *
@@ -88,6 +90,69 @@ default void apiKey(final @NotNull String apiKey) {
         this.apiKey().set(apiKey);
     }
 
+    /**
+     * The maximum time to wait for a connection to Ore to be established.
+     *
+     * <p>Default: 30 seconds</p>
+     *
+     * @return the connect timeout property
+     * @since 2.3.0
+     */
+    @NotNull Property<Duration> connectTimeout();
+
+    /**
+     * Set the maximum time to wait for a connection to Ore to be established.
+     *
+     * @param timeout the connect timeout
+     * @since 2.3.0
+     * @see #connectTimeout()
+     */
+    default void connectTimeout(final @NotNull Duration timeout) {
+        this.connectTimeout().set(timeout);
+    }
+
+    /**
+     * The maximum time to wait for data on an open connection to Ore.
+     *
+     * <p>Default: 5 seconds</p>
+     *
+     * @return the read timeout property
+     * @since 2.3.0
+     */
+    @NotNull Property<Duration> readTimeout();
+
+    /**
+     * Set the maximum time to wait for data on an open connection to Ore.
+     *
+     * @param timeout the read timeout
+     * @since 2.3.0
+     * @see #readTimeout()
+     */
+    default void readTimeout(final @NotNull Duration timeout) {
+        this.readTimeout().set(timeout);
+    }
+
+    /**
+     * The maximum time a single Ore operation may take, including authentication and any retries.
+     *
+     * <p>Default: 5 minutes</p>
+     *
+     * @return the request timeout property
+     * @since 2.3.0
+     */
+    @NotNull Property<Duration> requestTimeout();
+
+    /**
+     * Set the maximum time a single Ore operation may take.
+     *
+     * @param timeout the request timeout
+     * @since 2.3.0
+     * @see #requestTimeout()
+     */
+    default void requestTimeout(final @NotNull Duration timeout) {
+        this.requestTimeout().set(timeout);
+    }
+
     /**
      * Configure the default publication, creating it if necessary.
      *
@@ -0,0 +1,100 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A semaphore for asynchronous operations.
+ *
+ * <p>Operations beyond the limit are queued without blocking a thread,
+ * and started in order as earlier operations complete.</p>
+ */
+final class AsyncLimiter {
+
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>(); // guarded by this
+    private int available; // guarded by this
+
+    AsyncLimiter(final int maxPermits) {
+        if (maxPermits < 1) {
+            throw new IllegalArgumentException("At least one permit is required, but got " + maxPermits);
+        }
+        this.available = maxPermits;
+    }
+
+    /**
+     * Start an operation once a permit is available, releasing the permit when it completes.
+     *
+     * @param operation the operation to start
+     * @param <T> the result type
+     * @return a future completing with the operation's result
+     */
+    <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> operation) {
+        return this.acquire().thenCompose($ -> {
+            final CompletableFuture<T> result;
+            try {
+                result = operation.get();
+            } catch (final RuntimeException | Error ex) {
+                this.release();
+                throw ex;
+            }
+            return result.whenComplete(($$, $$$) -> this.release());
+        });
+    }
+
+    private CompletableFuture<Void> acquire() {
+        final CompletableFuture<Void> permit = new CompletableFuture<>();
+        synchronized (this) {
+            if (this.available > 0) {
+                this.available--;
+            } else {
+                this.waiters.addLast(permit);
+                return permit;
+            }
+        }
+        permit.complete(null);
+        return permit;
+    }
+
+    private void release() {
+        final @Nullable CompletableFuture<Void> next;
+        synchronized (this) {
+            next = this.waiters.pollFirst();
+            if (next == null) {
+                this.available++;
+            }
+        }
+        // hand the permit over directly, outside the lock
+        if (next != null) {
+            next.complete(null);
+        }
+    }
+
+}
@@ -32,6 +32,8 @@
 import org.spongepowered.gradle.ore.OreDeploymentExtension;
 import org.spongepowered.gradle.ore.OrePublication;
 
+import java.time.Duration;
+
 import javax.inject.Inject;
 
 public class OreDeploymentExtensionImpl implements OreDeploymentExtension {
@@ -40,8 +42,16 @@ public class OreDeploymentExtensionImpl implements OreDeploymentExtension {
 
     private static final String API_KEY_GRADLE_PROPERTY = "org.spongepowered.ore.apiToken";
     private static final String API_KEY_ENVIRONMENT_VARIABLE = "ORE_TOKEN";
+
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
     private final Property<String> oreEndpoint;
     private final Property<String> apiKey;
+    private final Property<Duration> connectTimeout;
+    private final Property<Duration> readTimeout;
+    private final Property<Duration> requestTimeout;
 
     private final NamedDomainObjectContainer<OrePublication> publications;
 
@@ -56,6 +66,13 @@ public OreDeploymentExtensionImpl(final ObjectFactory objects, final ProviderFac
                     .orElse(providers.environmentVariable(OreDeploymentExtensionImpl.API_KEY_ENVIRONMENT_VARIABLE))
             );
 
+        this.connectTimeout = objects.property(Duration.class)
+            .convention(OreDeploymentExtensionImpl.DEFAULT_CONNECT_TIMEOUT);
+        this.readTimeout = objects.property(Duration.class)
+            .convention(OreDeploymentExtensionImpl.DEFAULT_READ_TIMEOUT);
+        this.requestTimeout = objects.property(Duration.class)
+            .convention(OreDeploymentExtensionImpl.DEFAULT_REQUEST_TIMEOUT);
+
         this.publications = objects.domainObjectContainer(
             OrePublication.class,
             name -> objects.newInstance(OrePublicationImpl.class, name)
@@ -72,6 +89,21 @@ public OreDeploymentExtensionImpl(final ObjectFactory objects, final ProviderFac
         return this.apiKey;
     }
 
+    @Override
+    public @NotNull Property<Duration> connectTimeout() {
+        return this.connectTimeout;
+    }
+
+    @Override
+    public @NotNull Property<Duration> readTimeout() {
+        return this.readTimeout;
+    }
+
+    @Override
+    public @NotNull Property<Duration> requestTimeout() {
+        return this.requestTimeout;
+    }
+
     @Override
     public @NotNull NamedDomainObjectContainer<OrePublication> publications() {
         return this.publications;
@@ -0,0 +1,168 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded executor for the blocking parts of Ore requests, such as streaming upload bodies.
+ *
+ * <p>At most a fixed number of tasks run at once, with any further tasks queued. Threads
+ * are daemon threads that time out when idle, and are virtual threads where the
+ * runtime supports them.</p>
+ */
+final class OreExecutor extends ThreadPoolExecutor {
+
+    private static final Logger LOGGER = Logging.getLogger(OreExecutor.class);
+    private static final String THREAD_NAME_PREFIX = "spongegradle-ore-upload-";
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final boolean virtual;
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+    private OreExecutor(final int maxThreads, final ThreadFactory factory, final boolean virtual) {
+        super(maxThreads, maxThreads, OreExecutor.KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        this.allowCoreThreadTimeOut(true);
+        this.virtual = virtual;
+    }
+
+    /**
+     * Create a new executor.
+     *
+     * @param maxThreads the maximum number of tasks to execute concurrently
+     * @param preferVirtualThreads whether to use virtual threads, when available
+     * @return a new executor
+     */
+    static OreExecutor create(final int maxThreads, final boolean preferVirtualThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("At least one upload thread is required, but " + maxThreads + " was requested");
+        }
+
+        if (preferVirtualThreads) {
+            final @Nullable ThreadFactory virtualFactory = OreExecutor.virtualThreadFactory();
+            if (virtualFactory != null) {
+                return new OreExecutor(maxThreads, virtualFactory, true);
+            }
+        }
+
+        final AtomicInteger counter = new AtomicInteger();
+        return new OreExecutor(maxThreads, task -> {
+            final Thread thread = new Thread(task, OreExecutor.THREAD_NAME_PREFIX + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, false);
+    }
+
+    /**
+     * Create a factory for named virtual threads, on Java 21+.
+     *
+     * <p>Equivalent to {@code Thread.ofVirtual().name(prefix, 0).factory()}.</p>
+     *
+     * @return a virtual thread factory, or {@code null} if not supported
+     */
+    private static @Nullable ThreadFactory virtualThreadFactory() {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            final MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            final MethodHandle name = lookup.findVirtual(virtualBuilderClass, "name", MethodType.methodType(virtualBuilderClass, String.class, long.class));
+            final MethodHandle factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+
+            final Object builder = name.invoke(ofVirtual.invoke(), OreExecutor.THREAD_NAME_PREFIX, 0L);
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (final ClassNotFoundException | NoSuchMethodException | IllegalAccessException ex) {
+            LOGGER.debug("Virtual threads are not available, falling back to platform threads", ex);
+            return null;
+        } catch (final Throwable thr) {
+            LOGGER.debug("Failed to create a virtual thread factory, falling back to platform threads", thr);
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        super.execute(command);
+        final int depth = this.getQueue().size();
+        this.peakQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Get whether this executor runs tasks on virtual threads.
+     *
+     * @return whether threads are virtual
+     */
+    boolean virtual() {
+        return this.virtual;
+    }
+
+    /**
+     * Get the number of tasks waiting for a thread.
+     *
+     * @return the current queue depth
+     */
+    int queueDepth() {
+        return this.getQueue().size();
+    }
+
+    /**
+     * Get the largest number of tasks that have been waiting for a thread at once.
+     *
+     * @return the peak queue depth
+     */
+    int peakQueueDepth() {
+        return this.peakQueueDepth.get();
+    }
+
+    /**
+     * Log a summary of this executor's usage.
+     */
+    void logStatistics() {
+        if (this.getCompletedTaskCount() == 0 && this.getActiveCount() == 0) {
+            return;
+        }
+        LOGGER.info(
+            "Ore upload executor ({} threads, max {}): {} tasks completed, {} active, {} queued, peak queue depth {}",
+            this.virtual ? "virtual" : "platform",
+            this.getMaximumPoolSize(),
+            this.getCompletedTaskCount(),
+            this.getActiveCount(),
+            this.queueDepth(),
+            this.peakQueueDepth()
+        );
+    }
+
+}
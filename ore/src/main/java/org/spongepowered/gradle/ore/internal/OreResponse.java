@@ -33,7 +33,16 @@
 public interface OreResponse<V> {
 
     static <T> @NotNull Success<T> success(final @Nullable T value) {
-        return new Success<>(value);
+        return new Success<>(value, null);
+    }
+
+    static <T> @NotNull Success<T> success(final @Nullable T value, final @Nullable String etag) {
+        return new Success<>(value, etag);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> @NotNull NotModified<T> notModified() {
+        return NotModified.INSTANCE;
     }
 
     @SuppressWarnings("unchecked")
@@ -53,15 +62,26 @@
 
     final class Success<T> implements OreResponse<T> {
         private final T value;
+        private final @Nullable String etag;
 
-        Success(final T value) {
+        Success(final T value, final @Nullable String etag) {
             this.value = value;
+            this.etag = etag;
         }
 
         public T value() {
             return this.value;
         }
 
+        /**
+         * Get the entity tag the server provided for this response, if any.
+         *
+         * @return the entity tag
+         */
+        public @Nullable String etag() {
+            return this.etag;
+        }
+
         @Override
         public boolean wasSuccessful() {
             return true;
@@ -103,6 +123,35 @@ public <E extends Throwable> Success<T> asSuccessOrThrow(Function<String, E> err
         }
     }
 
+    /**
+     * A response to a conditional request, indicating a previously received response is still current.
+     *
+     * @param <T> the value type
+     */
+    final class NotModified<T> implements OreResponse<T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final NotModified INSTANCE = new NotModified<>();
+
+        private NotModified() {
+        }
+
+        @Override
+        public boolean wasSuccessful() {
+            return true;
+        }
+
+        @Override
+        public int responseCode() {
+            return HttpStatus.SC_NOT_MODIFIED;
+        }
+
+        @Override
+        public <E extends Throwable> Success<T> asSuccessOrThrow(Function<String, E> errorProvider) throws E {
+            throw errorProvider.apply("Not modified, but no cached response is available");
+        }
+    }
+
     final class Failure<T> implements OreResponse<T> {
         private final int responseCode;
         private final @Nullable String errorMessage;
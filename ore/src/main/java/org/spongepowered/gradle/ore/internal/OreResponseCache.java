@@ -0,0 +1,222 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal;
+
+import com.google.gson.JsonParseException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A disk-backed cache of Ore API responses.
+ *
+ * <p>Entries younger than the configured time-to-live are used without contacting Ore.
+ * Older entries are revalidated using their entity tag, if the server provided one.</p>
+ */
+final class OreResponseCache {
+
+    private static final Logger LOGGER = Logging.getLogger(OreResponseCache.class);
+    private static final String EXTENSION = ".json";
+
+    private final Path directory;
+    private final Duration timeToLive;
+    private final Duration maxAge;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new response cache.
+     *
+     * @param directory the directory to store responses in
+     * @param timeToLive how long a response can be used without revalidation
+     * @param maxAge how long a response can be kept for revalidation, before it is removed
+     */
+    OreResponseCache(final Path directory, final Duration timeToLive, final Duration maxAge) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.maxAge = maxAge;
+    }
+
+    boolean isFresh(final Entry entry, final Instant now) {
+        return now.isBefore(Instant.ofEpochMilli(entry.storedAt).plus(this.timeToLive));
+    }
+
+    /**
+     * Get a cached response.
+     *
+     * <p>Responses are stored per API key, since what a key can see depends on its permissions.</p>
+     *
+     * @param apiKey the API key the response was received with
+     * @param uri the request URI
+     * @return the cached entry, if any
+     */
+    @Nullable Entry get(final String apiKey, final URI uri) {
+        final String key = OreResponseCache.key(apiKey, uri);
+        final @Nullable Entry existing = this.entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        final Path file = this.directory.resolve(key + OreResponseCache.EXTENSION);
+        final Entry entry;
+        try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            entry = OreSession.GSON.fromJson(reader, Entry.class);
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException | JsonParseException ex) {
+            LOGGER.debug("Discarding unreadable cached Ore response {}", file, ex);
+            this.delete(file);
+            return null;
+        }
+
+        if (entry == null || entry.body == null || !uri.toString().equals(entry.uri)) {
+            this.delete(file);
+            return null;
+        }
+        this.entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Store a response.
+     *
+     * @param apiKey the API key the response was received with
+     * @param uri the request URI
+     * @param etag the entity tag of the response
+     * @param body the response body
+     * @return the new entry
+     */
+    Entry put(final String apiKey, final URI uri, final @Nullable String etag, final String body) {
+        final String key = OreResponseCache.key(apiKey, uri);
+        final Entry entry = new Entry(uri.toString(), etag, Instant.now().toEpochMilli(), body);
+        this.entries.put(key, entry);
+        this.write(key, entry);
+        return entry;
+    }
+
+    /**
+     * Mark a cached response as current, after the server has confirmed it is unchanged.
+     *
+     * @param apiKey the API key the response was received with
+     * @param uri the request URI
+     * @param entry the revalidated entry
+     * @return the refreshed entry
+     */
+    Entry refresh(final String apiKey, final URI uri, final Entry entry) {
+        return this.put(apiKey, uri, entry.etag, entry.body);
+    }
+
+    /**
+     * Remove any responses that are too old to be revalidated.
+     */
+    void sweep() {
+        if (!Files.isDirectory(this.directory)) {
+            return;
+        }
+
+        final Instant cutoff = Instant.now().minus(this.maxAge);
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + OreResponseCache.EXTENSION)) {
+            for (final Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    this.delete(file);
+                }
+            }
+        } catch (final IOException ex) {
+            LOGGER.debug("Failed to clean up cached Ore responses in {}", this.directory, ex);
+        }
+    }
+
+    private void write(final String key, final Entry entry) {
+        final Path file = this.directory.resolve(key + OreResponseCache.EXTENSION);
+        try {
+            Files.createDirectories(this.directory);
+            final Path temp = Files.createTempFile(this.directory, key, ".tmp");
+            try {
+                try (final Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    OreSession.GSON.toJson(entry, writer);
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final AtomicMoveNotSupportedException ex) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (final IOException ex) {
+            LOGGER.debug("Failed to cache Ore response in {}", file, ex);
+        }
+    }
+
+    private void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ex) {
+            LOGGER.debug("Failed to delete cached Ore response {}", file, ex);
+        }
+    }
+
+    private static String key(final String apiKey, final URI uri) {
+        return OreSessionStore.sha256Hex(OreSessionStore.sha256Hex(apiKey) + '\0' + uri);
+    }
+
+    static final class Entry {
+        private final String uri;
+        private final @Nullable String etag;
+        private final long storedAt;
+        private final String body;
+
+        Entry(final String uri, final @Nullable String etag, final long storedAt, final String body) {
+            this.uri = uri;
+            this.etag = etag;
+            this.storedAt = storedAt;
+            this.body = body;
+        }
+
+        @Nullable String etag() {
+            return this.etag;
+        }
+
+        String body() {
+            return this.body;
+        }
+    }
+
+}
@@ -25,6 +25,7 @@
 package org.spongepowered.gradle.ore.internal;
 
 import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
 import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
 import org.apache.hc.client5.http.entity.mime.FileBody;
@@ -37,23 +38,40 @@
 import org.apache.hc.core5.http.Method;
 import org.apache.hc.core5.http.nio.AsyncRequestProducer;
 import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
 import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
 import org.gradle.api.GradleException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.gradle.ore.internal.http.AsyncLegacyEntityProducer;
+import org.spongepowered.gradle.ore.internal.http.CircuitBreaker;
+import org.spongepowered.gradle.ore.internal.http.FileEntityConsumer;
+import org.spongepowered.gradle.ore.internal.http.HttpMetrics;
+import org.spongepowered.gradle.ore.internal.http.HttpOptions;
 import org.spongepowered.gradle.ore.internal.http.HttpWrapper;
 import org.spongepowered.gradle.ore.internal.http.JsonEntityConsumer;
 import org.spongepowered.gradle.ore.internal.http.JsonEntityProducer;
 import org.spongepowered.gradle.ore.internal.model.ApiSessionProperties;
 import org.spongepowered.gradle.ore.internal.model.AuthenticationResponse;
 import org.spongepowered.gradle.ore.internal.model.DeployVersionInfo;
+import org.spongepowered.gradle.ore.internal.model.EditVersionInfo;
 import org.spongepowered.gradle.ore.internal.model.KeyPermissions;
+import org.spongepowered.gradle.ore.internal.model.PaginatedResult;
 import org.spongepowered.gradle.ore.internal.model.Version;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
@@ -63,6 +81,17 @@
 public class OreSession implements AutoCloseable {
 
     private static final String API_V2 = "api/v2";
+    private static final String AUTHENTICATE = "authenticate";
+
+    /**
+     * The number of times a request will be retried with a new session after being rejected.
+     */
+    private static final int MAX_REAUTHENTICATION_ATTEMPTS = 2;
+
+    /**
+     * The longest time before expiry at which a session will be renewed in the background.
+     */
+    private static final Duration MAX_RENEW_AHEAD = Duration.ofMinutes(5);
 
     public static final Gson GSON = new Gson();
 
@@ -70,26 +99,72 @@ public class OreSession implements AutoCloseable {
     private final String apiBase;
     private final String apiKey;
     private final long sessionDurationSeconds;
-    private CompletableFuture<OreResponse<AuthenticationResponse>> sessionFuture;
+    private final boolean compressRequests;
+    private final Duration renewAhead;
+    private volatile CompletableFuture<OreResponse<AuthenticationResponse>> sessionFuture;
+
+    private final Object renewalLock = new Object();
+    private @Nullable CompletableFuture<OreResponse<AuthenticationResponse>> renewal; // guarded by renewalLock
 
     private volatile String sessionKey;
+    private volatile @Nullable AuthenticationResponse currentSession;
 
-    private final HttpWrapper http = new HttpWrapper(builder -> {
-        builder.addRequestInterceptorFirst((request, entity, context) -> {
-            if (this.sessionKey != null && !request.containsHeader(HttpHeaders.AUTHORIZATION)) {
-                request.setHeader(HttpHeaders.AUTHORIZATION, "OreApi session=\"" + this.sessionKey + "\"");
-            }
-        });
-    });
+    private final HttpWrapper http;
+    private final AsyncLimiter requestLimiter;
+    private final @Nullable OreResponseCache responseCache;
+    private final Map<URI, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
 
-    public static CompletableFuture<OreSession> connect(final Executor executor, final String apiKey, final String apiBase, final long sessionDurationSeconds) {
-        final OreSession session = new OreSession(executor, apiKey, apiBase, sessionDurationSeconds);
+    public static CompletableFuture<OreSession> connect(
+        final Executor executor,
+        final HttpOptions options,
+        final HttpMetrics metrics,
+        final CircuitBreaker circuitBreaker,
+        final @Nullable OreResponseCache responseCache,
+        final String apiKey,
+        final String apiBase,
+        final long sessionDurationSeconds
+    ) {
+        final OreSession session = new OreSession(executor, options, metrics, circuitBreaker, responseCache, apiKey, apiBase, sessionDurationSeconds);
         return session.authenticate().thenApply(result -> {
             result.asSuccessOrThrow(RuntimeException::new);
             return session;
         });
     }
 
+    /**
+     * Create a session using an existing authentication, without contacting the server.
+     *
+     * <p>If the server no longer accepts the session, it will be renewed on first use.</p>
+     *
+     * @param executor the executor to use for blocking operations
+     * @param options options for the HTTP client
+     * @param metrics the metrics to record requests in
+     * @param circuitBreaker the circuit breaker to check requests against
+     * @param responseCache a cache for responses to GET requests
+     * @param apiKey the API key the session was created with
+     * @param apiBase the Ore endpoint
+     * @param sessionDurationSeconds the duration to request for any new sessions
+     * @param existing the existing session
+     * @return a new session
+     */
+    public static OreSession resume(
+        final Executor executor,
+        final HttpOptions options,
+        final HttpMetrics metrics,
+        final CircuitBreaker circuitBreaker,
+        final @Nullable OreResponseCache responseCache,
+        final String apiKey,
+        final String apiBase,
+        final long sessionDurationSeconds,
+        final AuthenticationResponse existing
+    ) {
+        final OreSession session = new OreSession(executor, options, metrics, circuitBreaker, responseCache, apiKey, apiBase, sessionDurationSeconds);
+        session.sessionKey = existing.session();
+        session.currentSession = existing;
+        session.sessionFuture = CompletableFuture.completedFuture(OreResponse.success(existing));
+        return session;
+    }
+
     private static URI make(final String apiBase, final String endpoint) {
         final StringBuilder builder = new StringBuilder(apiBase.length() + API_V2.length() + endpoint.length());
         builder.append(apiBase);
@@ -106,27 +181,129 @@ private static URI make(final String apiBase, final String endpoint) {
     }
 
 
-    OreSession(final Executor executor, final String apiKey, final String apiBase, final long sessionDurationSeconds) {
+    OreSession(
+        final Executor executor,
+        final HttpOptions options,
+        final HttpMetrics metrics,
+        final CircuitBreaker circuitBreaker,
+        final @Nullable OreResponseCache responseCache,
+        final String apiKey,
+        final String apiBase,
+        final long sessionDurationSeconds
+    ) {
         this.executor = executor;
+        this.responseCache = responseCache;
+        this.requestLimiter = new AsyncLimiter(options.maxConcurrentRequests());
+        this.http = new HttpWrapper(options, metrics, circuitBreaker, builder -> {
+            builder.addRequestInterceptorFirst((request, entity, context) -> {
+                // public sessions are requested without any credentials, so never attach the old session to those
+                if (this.sessionKey != null && !request.containsHeader(HttpHeaders.AUTHORIZATION)
+                    && !request.getPath().endsWith(OreSession.AUTHENTICATE)) {
+                    request.setHeader(HttpHeaders.AUTHORIZATION, "OreApi session=\"" + this.sessionKey + "\"");
+                }
+            });
+        });
         this.apiKey = apiKey;
         this.apiBase = apiBase;
         this.sessionDurationSeconds = sessionDurationSeconds;
+        this.compressRequests = options.compressRequests();
+        this.renewAhead = Duration.ofSeconds(Math.min(OreSession.MAX_RENEW_AHEAD.getSeconds(), sessionDurationSeconds / 4));
+    }
+
+    String apiBase() {
+        return this.apiBase;
+    }
+
+    String apiKey() {
+        return this.apiKey;
+    }
+
+    /**
+     * Get the most recent successful authentication for this session.
+     *
+     * @return the current session, if any
+     */
+    @Nullable AuthenticationResponse currentSession() {
+        return this.currentSession;
     }
 
     CompletableFuture<OreResponse<AuthenticationResponse>> authenticate() {
-        final AsyncRequestProducer request = AsyncRequestBuilder.post(OreSession.make(this.apiBase, "authenticate"))
-            .setHeader(HttpHeaders.AUTHORIZATION, "OreApi apikey=\"" + this.apiKey + "\"")
-            .setEntity(new JsonEntityProducer(GSON, new ApiSessionProperties(false, this.sessionDurationSeconds)))
-            .build();
-        return this.sessionFuture = this.http.request(request, new JsonEntityConsumer<>(GSON, AuthenticationResponse.class)).thenApply(response -> {
+        return this.sessionFuture = this.requestSession();
+    }
+
+    private CompletableFuture<OreResponse<AuthenticationResponse>> requestSession() {
+        final AsyncRequestBuilder builder = AsyncRequestBuilder.post(OreSession.make(this.apiBase, OreSession.AUTHENTICATE))
+            .setEntity(new JsonEntityProducer(GSON, new ApiSessionProperties(false, this.sessionDurationSeconds), this.compressRequests));
+        if (!this.apiKey.isEmpty()) {
+            builder.setHeader(HttpHeaders.AUTHORIZATION, "OreApi apikey=\"" + this.apiKey + "\"");
+        } // otherwise, Ore grants a public session that can only view public information
+        final AsyncRequestProducer request = builder.build();
+        return this.http.request(request, new JsonEntityConsumer<>(GSON, AuthenticationResponse.class)).thenApply(response -> {
             if (response.wasSuccessful()) {
                 final AuthenticationResponse auth = response.asSuccessOrThrow(IllegalStateException::new).value();
                 this.sessionKey = auth.session();
+                this.currentSession = auth;
+                this.sessionFuture = CompletableFuture.completedFuture(response);
             }
             return response;
         });
     }
 
+    /**
+     * Request a new session, unless a renewal is already in progress.
+     *
+     * <p>Requests that need a valid session should compose on the returned future.</p>
+     *
+     * @return a future providing the renewed session
+     */
+    private CompletableFuture<OreResponse<AuthenticationResponse>> renew() {
+        synchronized (this.renewalLock) {
+            if (this.renewal != null) {
+                return this.renewal;
+            }
+
+            final CompletableFuture<OreResponse<AuthenticationResponse>> renewal = this.requestSession();
+            this.renewal = renewal;
+            renewal.whenComplete(($, $$) -> {
+                synchronized (this.renewalLock) {
+                    if (this.renewal == renewal) {
+                        this.renewal = null;
+                    }
+                }
+            });
+            return renewal;
+        }
+    }
+
+    /**
+     * Get a session that can be used for a request.
+     *
+     * <p>Sessions close to their expiry are renewed in the background, while the existing session
+     * remains in use. Sessions that have already expired must wait for renewal.</p>
+     *
+     * @return the active session
+     */
+    private CompletableFuture<OreResponse<AuthenticationResponse>> activeSession() {
+        final @Nullable CompletableFuture<OreResponse<AuthenticationResponse>> current = this.sessionFuture;
+        if (current == null) {
+            return this.renew();
+        } else if (!current.isDone()) {
+            return current; // still authenticating
+        }
+
+        final @Nullable AuthenticationResponse session = this.currentSession;
+        final @Nullable Instant expiry = session == null ? null : session.expiresAt();
+        if (expiry != null) {
+            final Instant now = Instant.now();
+            if (!now.isBefore(expiry)) {
+                return this.renew();
+            } else if (now.isAfter(expiry.minus(this.renewAhead))) {
+                this.renew();
+            }
+        }
+        return current;
+    }
+
     public CompletableFuture<OreResponse<Void>> terminate() {
         if (this.sessionFuture == null) {
             return CompletableFuture.completedFuture(OreResponse.failure(404, null));
@@ -137,6 +314,7 @@ public CompletableFuture<OreResponse<Void>> terminate() {
                 new DiscardingEntityConsumer<>()
             );
             this.sessionFuture = null;
+            this.currentSession = null;
             return result;
         });
     }
@@ -155,47 +333,202 @@ public CompletableFuture<Version> publishVersion(final String pluginId, final De
         ));
     }
 
-    public CompletableFuture<KeyPermissions> globalPermissions() {
+    /**
+     * List versions of a project, most recent first.
+     *
+     * @param pluginId the project's plugin ID
+     * @param limit the maximum number of versions to return
+     * @param offset the number of versions to skip
+     * @return a future providing a page of versions
+     */
+    public CompletableFuture<PaginatedResult<Version>> projectVersions(final @NotNull String pluginId, final int limit, final int offset) {
         return doRequest(() -> this.http.request(
-            SimpleHttpRequest.create(Method.GET, OreSession.make(this.apiBase, "permissions")),
-            new JsonEntityConsumer<>(GSON, KeyPermissions.class)
+            SimpleRequestBuilder.get(OreSession.make(this.apiBase, "projects/" + OreSession.encode(pluginId) + "/versions"))
+                .addParameter("limit", Integer.toString(limit))
+                .addParameter("offset", Integer.toString(offset))
+                .build(),
+            new JsonEntityConsumer<>(GSON, new TypeToken<PaginatedResult<Version>>() {})
         ));
     }
 
-    public CompletableFuture<KeyPermissions> projectPermissions(final @NotNull String pluginId) {
+    /**
+     * Change an existing version of a project, without uploading its file again.
+     *
+     * @param pluginId the project's plugin ID
+     * @param versionName the version name
+     * @param info the changes to make
+     * @return a future providing the updated version
+     */
+    public CompletableFuture<Version> editVersion(final @NotNull String pluginId, final @NotNull String versionName, final EditVersionInfo info) {
         return doRequest(() -> this.http.request(
-            SimpleRequestBuilder.get(OreSession.make(this.apiBase, "permissions"))
-                .addParameter("pluginId", pluginId)
+            AsyncRequestBuilder.patch(OreSession.make(this.apiBase, OreSession.versionPath(pluginId, versionName)))
+                .setEntity(new JsonEntityProducer(GSON, info, this.compressRequests))
                 .build(),
-            new JsonEntityConsumer<>(GSON, KeyPermissions.class)
+            new JsonEntityConsumer<>(GSON, Version.class)
         ));
     }
 
-    public CompletableFuture<KeyPermissions> organizationPermissions(final @NotNull String organizationName) {
+    /**
+     * Get a single version of a project.
+     *
+     * @param pluginId the project's plugin ID
+     * @param versionName the version name
+     * @return a future providing the version
+     */
+    public CompletableFuture<Version> version(final @NotNull String pluginId, final @NotNull String versionName) {
+        return this.cachedGet(OreSession.make(this.apiBase, OreSession.versionPath(pluginId, versionName)), Version.class);
+    }
+
+    /**
+     * Download the file of a version of a project.
+     *
+     * <p>The body is streamed straight to disk, replacing any existing file.</p>
+     *
+     * @param pluginId the project's plugin ID
+     * @param versionName the version name
+     * @param destination the file to write to
+     * @return a future providing the hex-encoded MD5 digest of the downloaded file
+     */
+    public CompletableFuture<String> downloadVersion(final @NotNull String pluginId, final @NotNull String versionName, final Path destination) {
         return doRequest(() -> this.http.request(
-            SimpleRequestBuilder.get(OreSession.make(this.apiBase, "permissions"))
-                .addParameter("organizationName", organizationName)
+            SimpleRequestBuilder.get(OreSession.make(this.apiBase, OreSession.versionPath(pluginId, versionName) + "/download"))
+                // jars are already compressed, and a compressed body would have to be buffered in memory
+                .setHeader(HttpHeaders.ACCEPT_ENCODING, "identity")
                 .build(),
-            new JsonEntityConsumer<>(GSON, KeyPermissions.class)
+            new FileEntityConsumer(destination)
         ));
     }
 
-    private <V> CompletableFuture<V> doRequest(final Supplier<CompletableFuture<OreResponse<V>>> action) {
-        return this.sessionFuture.thenCompose(session -> action.get().thenCompose(response -> {
-            if (response instanceof OreResponse.Reauthenticate<?>) {
-                this.authenticate();
-                return this.doRequest(action);
+    private static String versionPath(final String pluginId, final String versionName) {
+        return "projects/" + OreSession.encode(pluginId) + "/versions/" + OreSession.encode(versionName);
+    }
+
+    public CompletableFuture<KeyPermissions> globalPermissions() {
+        return this.cachedGet(OreSession.make(this.apiBase, "permissions"), KeyPermissions.class);
+    }
+
+    public CompletableFuture<KeyPermissions> projectPermissions(final @NotNull String pluginId) {
+        return this.cachedGet(OreSession.make(this.apiBase, "permissions?pluginId=" + OreSession.encode(pluginId)), KeyPermissions.class);
+    }
+
+    public CompletableFuture<KeyPermissions> organizationPermissions(final @NotNull String organizationName) {
+        return this.cachedGet(
+            OreSession.make(this.apiBase, "permissions?organizationName=" + OreSession.encode(organizationName)),
+            KeyPermissions.class
+        );
+    }
+
+    private static String encode(final String parameter) {
+        try {
+            return URLEncoder.encode(parameter, StandardCharsets.UTF_8.name());
+        } catch (final UnsupportedEncodingException ex) {
+            throw new IllegalStateException("UTF-8 is required to be supported by every JVM", ex);
+        }
+    }
+
+    /**
+     * Perform a GET request, sharing the result with any identical requests already in flight.
+     *
+     * <p>When a response cache is available, recent responses will be returned without
+     * contacting Ore, and older ones will be revalidated.</p>
+     *
+     * @param uri the URI to request
+     * @param type the type of the response body
+     * @param <V> the response type
+     * @return a future providing the response
+     */
+    @SuppressWarnings("unchecked")
+    private <V> CompletableFuture<V> cachedGet(final URI uri, final Type type) {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final @Nullable CompletableFuture<?> existing = this.inFlight.putIfAbsent(uri, result);
+        if (existing != null) {
+            return (CompletableFuture<V>) existing;
+        }
+
+        this.<V>fetch(uri, type).whenComplete((value, error) -> {
+            this.inFlight.remove(uri, result);
+            if (error != null) {
+                result.completeExceptionally(error);
             } else {
-                final CompletableFuture<V> result = new CompletableFuture<>();
-                if (response instanceof OreResponse.Success<?>) {
-                    result.complete(((OreResponse.Success<V>) response).value());
-                } else {
-                    final OreResponse.Failure<V> error = (OreResponse.Failure<V>) response;
-                    result.completeExceptionally(new GradleException("Encountered error while performing Ore API request [" + error.responseCode() + "]: " + error.errorMessage()));
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    private <V> CompletableFuture<V> fetch(final URI uri, final Type type) {
+        final @Nullable OreResponseCache cache = this.responseCache;
+        final OreResponseCache.@Nullable Entry cached = cache == null ? null : cache.get(this.apiKey, uri);
+        if (cache != null && cached != null && cache.isFresh(cached, Instant.now())) {
+            return CompletableFuture.supplyAsync(() -> GSON.fromJson(cached.body(), type), Runnable::run);
+        }
+
+        return this.<String>doRequest(() -> {
+            final SimpleHttpRequest request = SimpleHttpRequest.create(Method.GET, uri);
+            if (cached != null && cached.etag() != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, cached.etag());
+            }
+            return this.http.request(request, new StringAsyncEntityConsumer()).thenApply(response -> {
+                if (response instanceof OreResponse.NotModified<?>) {
+                    if (cache == null || cached == null) {
+                        return OreResponse.failure(response.responseCode(), "Not modified, but no cached response is available");
+                    }
+                    return OreResponse.success(cache.refresh(this.apiKey, uri, cached).body());
+                } else if (response instanceof OreResponse.Success<?> && cache != null) {
+                    final OreResponse.Success<String> success = (OreResponse.Success<String>) response;
+                    if (success.value() != null) {
+                        cache.put(this.apiKey, uri, success.etag(), success.value());
+                    }
                 }
+                return response;
+            });
+        }).thenApply(body -> GSON.fromJson(body, type));
+    }
+
+    private <V> CompletableFuture<V> doRequest(final Supplier<CompletableFuture<OreResponse<V>>> action) {
+        return this.doRequest(action, OreSession.MAX_REAUTHENTICATION_ATTEMPTS);
+    }
+
+    private <V> CompletableFuture<V> doRequest(final Supplier<CompletableFuture<OreResponse<V>>> action, final int reauthenticationsRemaining) {
+        return this.activeSession().thenCompose(session -> {
+            session.asSuccessOrThrow(message -> new GradleException("Failed to authenticate with Ore: " + message));
+            final @Nullable String usedKey = this.sessionKey;
+            // the permit is only held for the exchange itself, so renewals cannot be starved by waiting requests
+            return this.requestLimiter.submit(action).thenCompose(response -> this.handleResponse(action, response, usedKey, reauthenticationsRemaining));
+        });
+    }
+
+    private <V> CompletableFuture<V> handleResponse(
+        final Supplier<CompletableFuture<OreResponse<V>>> action,
+        final OreResponse<V> response,
+        final @Nullable String usedKey,
+        final int reauthenticationsRemaining
+    ) {
+        if (response instanceof OreResponse.Reauthenticate<?>) {
+            if (reauthenticationsRemaining <= 0) {
+                final CompletableFuture<V> result = new CompletableFuture<>();
+                result.completeExceptionally(new GradleException("Ore rejected the session after "
+                    + OreSession.MAX_REAUTHENTICATION_ATTEMPTS + " reauthentication attempts"));
                 return result;
+            } else if (!Objects.equals(usedKey, this.sessionKey)) {
+                // The session was already renewed while this request was in flight
+                return this.doRequest(action, reauthenticationsRemaining - 1);
             }
-        }));
+            this.http.metrics().recordReauthentication();
+            return this.renew().thenCompose(renewed -> {
+                renewed.asSuccessOrThrow(message -> new GradleException("Failed to authenticate with Ore: " + message));
+                return this.doRequest(action, reauthenticationsRemaining - 1);
+            });
+        } else {
+            final CompletableFuture<V> result = new CompletableFuture<>();
+            if (response instanceof OreResponse.Success<?>) {
+                result.complete(((OreResponse.Success<V>) response).value());
+            } else {
+                final OreResponse.Failure<V> error = (OreResponse.Failure<V>) response;
+                result.completeExceptionally(new GradleException("Encountered error while performing Ore API request [" + error.responseCode() + "]: " + error.errorMessage()));
+            }
+            return result;
+        }
     }
 
     @Override
@@ -24,51 +24,316 @@
  */
 package org.spongepowered.gradle.ore.internal;
 
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.BuildService;
 import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.gradle.ore.internal.http.CircuitBreaker;
+import org.spongepowered.gradle.ore.internal.http.HttpMetrics;
+import org.spongepowered.gradle.ore.internal.http.HttpOptions;
+import org.spongepowered.gradle.ore.internal.http.RetryPolicy;
+import org.spongepowered.gradle.ore.internal.model.AuthenticationResponse;
 
+import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 public abstract class OreSessionService implements BuildService<OreSessionService.Parameters>, AutoCloseable {
 
     private static final Logger LOGGER = Logging.getLogger(OreSessionService.class);
 
-    private final ExecutorService executor;
+    static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 4;
+    static final Duration DEFAULT_RESPONSE_CACHE_TTL = Duration.ofMinutes(5);
+    static final Duration RESPONSE_CACHE_MAX_AGE = Duration.ofDays(1);
+    static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 5;
+    static final Duration DEFAULT_CIRCUIT_BREAKER_COOLDOWN = Duration.ofSeconds(30);
+
+    private final OreExecutor executor;
     private final Map<String, CompletableFuture<OreSession>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> permissionChecks = new ConcurrentHashMap<>();
+    private final @Nullable OreSessionStore store;
+    private final @Nullable OreResponseCache responseCache;
+    private final HttpMetrics metrics = new HttpMetrics();
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
 
     public OreSessionService() {
-        this.executor = Executors.newCachedThreadPool();
+        this.executor = OreExecutor.create(
+            this.getParameters().getMaxConcurrentUploads().getOrElse(OreSessionService.DEFAULT_MAX_CONCURRENT_UPLOADS),
+            this.getParameters().getUseVirtualThreads().getOrElse(true)
+        );
+        if (this.getParameters().getSessionStoreDirectory().isPresent()) {
+            this.store = new OreSessionStore(this.getParameters().getSessionStoreDirectory().get().getAsFile().toPath());
+        } else {
+            this.store = null;
+        }
+        if (this.getParameters().getResponseCacheDirectory().isPresent()) {
+            this.responseCache = new OreResponseCache(
+                this.getParameters().getResponseCacheDirectory().get().getAsFile().toPath(),
+                this.getParameters().getResponseCacheTtl().getOrElse(OreSessionService.DEFAULT_RESPONSE_CACHE_TTL),
+                OreSessionService.RESPONSE_CACHE_MAX_AGE
+            );
+        } else {
+            this.responseCache = null;
+        }
+        this.circuitBreaker = new CircuitBreaker(
+            this.getParameters().getCircuitBreakerThreshold().getOrElse(OreSessionService.DEFAULT_CIRCUIT_BREAKER_THRESHOLD),
+            this.getParameters().getCircuitBreakerCooldown().getOrElse(OreSessionService.DEFAULT_CIRCUIT_BREAKER_COOLDOWN)
+        );
+        this.retryPolicy = new RetryPolicy(
+            this.getParameters().getMaxRetries().getOrElse(RetryPolicy.DEFAULT.maxRetries()),
+            this.getParameters().getInitialRetryDelay().getOrElse(RetryPolicy.DEFAULT.initialDelay()),
+            this.getParameters().getMaxRetryDelay().getOrElse(RetryPolicy.DEFAULT.maxDelay())
+        );
     }
 
     public interface Parameters extends BuildServiceParameters {
         Property<Duration> getSessionDuration();
+
+        /**
+         * A directory to persist sessions in, so they can be reused by later builds.
+         *
+         * <p>When unset, sessions are terminated at the end of every build.</p>
+         *
+         * @return the session store directory
+         */
+        DirectoryProperty getSessionStoreDirectory();
+
+        /**
+         * The maximum number of upload bodies to stream at once, across all sessions.
+         *
+         * <p>Further uploads wait in a queue until a thread becomes available.</p>
+         *
+         * @return the maximum concurrent uploads
+         */
+        Property<Integer> getMaxConcurrentUploads();
+
+        /**
+         * Whether to stream uploads on virtual threads, when running on Java 21 or newer.
+         *
+         * @return whether to use virtual threads
+         */
+        Property<Boolean> getUseVirtualThreads();
+
+        /**
+         * Whether to gzip-compress JSON request bodies.
+         *
+         * <p>Responses are always requested compressed, this only affects request bodies.</p>
+         *
+         * @return whether to compress requests
+         */
+        Property<Boolean> getCompressRequests();
+
+        /**
+         * A directory to cache responses to read-only requests in, such as permission queries.
+         *
+         * <p>When unset, identical requests made at the same time are still combined,
+         * but responses are not cached.</p>
+         *
+         * @return the response cache directory
+         */
+        DirectoryProperty getResponseCacheDirectory();
+
+        /**
+         * How long a cached response can be used without checking with Ore whether it is still current.
+         *
+         * @return the response cache time-to-live
+         */
+        Property<Duration> getResponseCacheTtl();
+
+        /**
+         * A file to write a JSON report of HTTP request metrics to, when the build completes.
+         *
+         * @return the metrics report file
+         */
+        RegularFileProperty getMetricsReport();
+
+        /**
+         * The maximum number of requests each session may have in flight at once.
+         *
+         * <p>Sessions are per endpoint and API key, so each key is limited independently.</p>
+         *
+         * @return the maximum concurrent requests per session
+         */
+        Property<Integer> getMaxConcurrentRequests();
+
+        /**
+         * The maximum number of times to retry a failed request.
+         *
+         * @return the maximum retries
+         */
+        Property<Integer> getMaxRetries();
+
+        /**
+         * The base delay before retrying a failed request, doubled with every further attempt.
+         *
+         * @return the initial retry delay
+         */
+        Property<Duration> getInitialRetryDelay();
+
+        /**
+         * The longest delay between two attempts of a request, unless Ore asks for a longer one.
+         *
+         * @return the maximum retry delay
+         */
+        Property<Duration> getMaxRetryDelay();
+
+        /**
+         * The number of consecutive failed requests to an endpoint after which further requests
+         * to that endpoint are refused without being sent.
+         *
+         * <p>A value of {@code 0} disables the circuit breaker.</p>
+         *
+         * @return the circuit breaker threshold
+         */
+        Property<Integer> getCircuitBreakerThreshold();
+
+        /**
+         * How long to refuse requests to an endpoint once its circuit breaker has opened.
+         *
+         * @return the circuit breaker cooldown
+         */
+        Property<Duration> getCircuitBreakerCooldown();
+    }
+
+    /**
+     * Get the metrics recorded for requests made by all sessions.
+     *
+     * @return the request metrics
+     */
+    public HttpMetrics metrics() {
+        return this.metrics;
     }
 
-    public CompletableFuture<OreSession> session(final String apiKey, final String endpoint) {
-        return sessions.computeIfAbsent(endpoint, end -> OreSession.connect(this.executor, apiKey, end, this.getParameters().getSessionDuration().get().getSeconds()));
+    /**
+     * Get or create a session for the provided endpoint and API key.
+     *
+     * <p>The HTTP options of the first request for an endpoint and key will be used for the lifetime of the session.
+     * Each session limits its own in-flight requests, so publications using different keys do not hold each other up.</p>
+     *
+     * @param apiKey the API key to authenticate with
+     * @param endpoint the Ore endpoint
+     * @param requestedOptions options for the HTTP client
+     * @return a future providing the session
+     */
+    public CompletableFuture<OreSession> session(final String apiKey, final String endpoint, final HttpOptions requestedOptions) {
+        return this.sessions.computeIfAbsent(OreSessionService.sessionKey(endpoint, apiKey), $ -> {
+            final HttpOptions options = requestedOptions
+                .withCompressRequests(this.getParameters().getCompressRequests().getOrElse(false))
+                .withRetryPolicy(this.retryPolicy)
+                .withMaxConcurrentRequests(this.getParameters().getMaxConcurrentRequests().getOrElse(HttpOptions.DEFAULT_MAX_CONCURRENT_REQUESTS));
+            final long durationSeconds = this.getParameters().getSessionDuration().get().getSeconds();
+            final @Nullable AuthenticationResponse existing = this.store == null ? null : this.store.load(endpoint, apiKey);
+            if (existing != null) {
+                LOGGER.info("Reusing Ore session for {} expiring at {}", endpoint, existing.expires());
+                return CompletableFuture.completedFuture(
+                    OreSession.resume(this.executor, options, this.metrics, this.circuitBreaker, this.responseCache, apiKey, endpoint, durationSeconds, existing)
+                );
+            }
+            return OreSession.connect(this.executor, options, this.metrics, this.circuitBreaker, this.responseCache, apiKey, endpoint, durationSeconds);
+        });
+    }
+
+    /**
+     * Start opening a session in the background, so it is ready by the time a task needs it.
+     *
+     * <p>If the attempt fails, it is forgotten. The first task to need the session will then
+     * try again and report the failure.</p>
+     *
+     * @param apiKey the API key to authenticate with
+     * @param endpoint the Ore endpoint
+     * @param options options for the HTTP client
+     */
+    public void prewarm(final String apiKey, final String endpoint, final HttpOptions options) {
+        final String key = OreSessionService.sessionKey(endpoint, apiKey);
+        if (this.sessions.containsKey(key)) {
+            return;
+        }
+
+        LOGGER.info("Connecting to Ore at {} in the background", endpoint);
+        final CompletableFuture<OreSession> session = this.session(apiKey, endpoint, options);
+        session.whenComplete(($, err) -> {
+            if (err != null) {
+                LOGGER.debug("Failed to connect to Ore at {} ahead of time", endpoint, err);
+                this.sessions.remove(key, session);
+            }
+        });
+    }
+
+    /**
+     * Check permissions for a set of projects at most once per build, sharing the result with every caller.
+     *
+     * <p>Publications wait on the same check before uploading, so a key missing permissions for
+     * any project fails the build before anything is published.</p>
+     *
+     * @param apiKey the API key being checked
+     * @param endpoint the Ore endpoint
+     * @param projectIds the projects being checked
+     * @param check a function starting the check, if it has not already been started
+     * @return a future completing once the check has passed
+     */
+    public CompletableFuture<Void> checkPermissionsOnce(
+        final String apiKey,
+        final String endpoint,
+        final Set<String> projectIds,
+        final Supplier<CompletableFuture<Void>> check
+    ) {
+        final String key = OreSessionService.sessionKey(endpoint, apiKey) + '#' + new TreeSet<>(projectIds);
+        return this.permissionChecks.computeIfAbsent(key, $ -> check.get());
+    }
+
+    /**
+     * Compute the key a session is held under.
+     *
+     * <p>Only a digest of the API key is used, so keys are not kept as map keys.</p>
+     *
+     * @param endpoint the Ore endpoint
+     * @param apiKey the API key
+     * @return the session key
+     */
+    static String sessionKey(final String endpoint, final String apiKey) {
+        return endpoint + '#' + OreSessionStore.sha256Hex(apiKey);
     }
 
     @Override
     public void close() {
         final List<CompletableFuture<?>> futures = new ArrayList<>();
+        final Instant now = Instant.now();
 
-        for (final CompletableFuture<OreSession> session : sessions.values()) {
+        for (final CompletableFuture<OreSession> session : this.sessions.values()) {
             futures.add(session.thenCompose(sess -> {
+                final @Nullable AuthenticationResponse current = sess.currentSession();
+                if (this.store != null && OreSessionStore.isReusable(current, now)) {
+                    // Keep the session alive for the next build
+                    this.store.save(sess.apiBase(), sess.apiKey(), current);
+                    try {
+                        sess.close();
+                    } catch (final IOException ex) {
+                        throw new CompletionException(ex);
+                    }
+                    return CompletableFuture.completedFuture(OreResponse.<Void>success(null));
+                }
+
+                if (this.store != null) {
+                    this.store.remove(sess.apiBase(), sess.apiKey());
+                }
                 final CompletableFuture<OreResponse<Void>> termination = sess.terminate();
                 termination.handle(($, $$) -> {
                     try {
@@ -91,6 +356,24 @@ public void close() {
             LOGGER.error("Failed to await ore session shutdowns ore session", ex);
         }
 
+        if (this.responseCache != null) {
+            this.responseCache.sweep();
+        }
+
+        if (!this.metrics.isEmpty()) {
+            this.metrics.logSummary(LOGGER);
+            if (this.getParameters().getMetricsReport().isPresent()) {
+                final File report = this.getParameters().getMetricsReport().get().getAsFile();
+                try {
+                    this.metrics.writeReport(report.toPath());
+                    LOGGER.info("Wrote Ore HTTP metrics to {}", report);
+                } catch (final IOException ex) {
+                    LOGGER.warn("Failed to write Ore HTTP metrics to {}", report, ex);
+                }
+            }
+        }
+
+        this.executor.logStatistics();
         this.executor.shutdown();
         boolean success;
         try {
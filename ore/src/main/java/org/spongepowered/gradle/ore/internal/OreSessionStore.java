@@ -0,0 +1,254 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal;
+
+import com.google.gson.JsonParseException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.gradle.ore.internal.model.AuthenticationResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * An on-disk store of Ore API sessions, allowing sessions to be shared between builds.
+ *
+ * <p>Entries are keyed by the endpoint and a digest of the API key, and encrypted with
+ * a key derived from the API key, so a session can only be recovered by a build that
+ * already holds the key it was created with.</p>
+ */
+final class OreSessionStore {
+
+    private static final Logger LOGGER = Logging.getLogger(OreSessionStore.class);
+
+    /**
+     * The minimum lifetime a stored session must have remaining to be reused.
+     */
+    static final Duration MINIMUM_REMAINING_LIFETIME = Duration.ofMinutes(10);
+
+    private static final int MAGIC = 0x4F534553; // OSES
+    private static final byte FORMAT_VERSION = 1;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final String KEY_DERIVATION_PREFIX = "spongegradle-ore-session\0";
+
+    private final Path directory;
+    private final SecureRandom random = new SecureRandom();
+
+    OreSessionStore(final Path directory) {
+        this.directory = directory;
+    }
+
+    static boolean isReusable(final @Nullable AuthenticationResponse session, final Instant now) {
+        if (session == null || session.session() == null) {
+            return false;
+        }
+        final @Nullable Instant expiry = session.expiresAt();
+        return expiry != null && expiry.isAfter(now.plus(OreSessionStore.MINIMUM_REMAINING_LIFETIME));
+    }
+
+    static String sha256Hex(final String input) {
+        return OreSessionStore.toHex(OreSessionStore.sha256(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Load a stored session, if one exists and is still reusable.
+     *
+     * @param endpoint the Ore endpoint
+     * @param apiKey the API key the session was created with
+     * @return the stored session, or {@code null}
+     */
+    @Nullable AuthenticationResponse load(final String endpoint, final String apiKey) {
+        final String name = OreSessionStore.entryName(endpoint, apiKey);
+        final Path file = this.directory.resolve(name);
+        final byte[] contents;
+        try (final InputStream is = Files.newInputStream(file)) {
+            final DataInputStream in = new DataInputStream(is);
+            if (in.readInt() != OreSessionStore.MAGIC || in.readByte() != OreSessionStore.FORMAT_VERSION) {
+                throw new IOException("Unknown session file format");
+            }
+            final byte[] iv = new byte[OreSessionStore.IV_LENGTH];
+            in.readFully(iv);
+            final ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+            final byte[] buf = new byte[512];
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                ciphertext.write(buf, 0, read);
+            }
+            final Cipher cipher = OreSessionStore.cipher(Cipher.DECRYPT_MODE, apiKey, iv, name);
+            contents = cipher.doFinal(ciphertext.toByteArray());
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException | GeneralSecurityException ex) {
+            LOGGER.debug("Discarding unreadable Ore session from {}", file, ex);
+            this.delete(file);
+            return null;
+        }
+
+        final AuthenticationResponse session;
+        try {
+            session = OreSession.GSON.fromJson(new String(contents, StandardCharsets.UTF_8), AuthenticationResponse.class);
+        } catch (final JsonParseException ex) {
+            LOGGER.debug("Discarding malformed Ore session from {}", file, ex);
+            this.delete(file);
+            return null;
+        }
+
+        if (!OreSessionStore.isReusable(session, Instant.now())) {
+            this.delete(file);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Store a session for reuse by later builds.
+     *
+     * @param endpoint the Ore endpoint
+     * @param apiKey the API key the session was created with
+     * @param session the session to store
+     */
+    void save(final String endpoint, final String apiKey, final AuthenticationResponse session) {
+        final String name = OreSessionStore.entryName(endpoint, apiKey);
+        final Path file = this.directory.resolve(name);
+        try {
+            Files.createDirectories(this.directory);
+            final byte[] iv = new byte[OreSessionStore.IV_LENGTH];
+            this.random.nextBytes(iv);
+            final Cipher cipher = OreSessionStore.cipher(Cipher.ENCRYPT_MODE, apiKey, iv, name);
+            final byte[] ciphertext = cipher.doFinal(OreSession.GSON.toJson(session).getBytes(StandardCharsets.UTF_8));
+
+            final Path temp = OreSessionStore.createPrivateFile(this.directory, name);
+            try {
+                try (final OutputStream os = Files.newOutputStream(temp)) {
+                    final DataOutputStream out = new DataOutputStream(os);
+                    out.writeInt(OreSessionStore.MAGIC);
+                    out.writeByte(OreSessionStore.FORMAT_VERSION);
+                    out.write(iv);
+                    out.write(ciphertext);
+                    out.flush();
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final AtomicMoveNotSupportedException ex) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (final IOException | GeneralSecurityException ex) {
+            LOGGER.warn("Failed to store Ore session for reuse in {}", file, ex);
+        }
+    }
+
+    /**
+     * Remove any stored session for the provided endpoint and key.
+     *
+     * @param endpoint the Ore endpoint
+     * @param apiKey the API key
+     */
+    void remove(final String endpoint, final String apiKey) {
+        this.delete(this.directory.resolve(OreSessionStore.entryName(endpoint, apiKey)));
+    }
+
+    private void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ex) {
+            LOGGER.debug("Failed to delete stored Ore session {}", file, ex);
+        }
+    }
+
+    private static Path createPrivateFile(final Path directory, final String name) throws IOException {
+        try {
+            return Files.createTempFile(
+                directory,
+                name,
+                ".tmp",
+                PosixFilePermissions.asFileAttribute(new HashSet<>(Arrays.asList(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)))
+            );
+        } catch (final UnsupportedOperationException ex) {
+            // non-POSIX file system
+            return Files.createTempFile(directory, name, ".tmp");
+        }
+    }
+
+    private static String entryName(final String endpoint, final String apiKey) {
+        return OreSessionStore.sha256Hex(endpoint + '\0' + OreSessionStore.sha256Hex(apiKey));
+    }
+
+    private static Cipher cipher(final int mode, final String apiKey, final byte[] iv, final String entryName) throws GeneralSecurityException {
+        final byte[] key = OreSessionStore.sha256((OreSessionStore.KEY_DERIVATION_PREFIX + apiKey).getBytes(StandardCharsets.UTF_8));
+        final Cipher cipher = Cipher.getInstance(OreSessionStore.CIPHER);
+        cipher.init(mode, new SecretKeySpec(key, "AES"), new GCMParameterSpec(OreSessionStore.TAG_LENGTH_BITS, iv));
+        // bind the contents to the entry they were written for
+        cipher.updateAAD(entryName.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+
+    private static byte[] sha256(final byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is required to be supported by every JVM", ex);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] hex = "0123456789abcdef".toCharArray();
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(hex[(b >> 4) & 0xf]).append(hex[b & 0xf]);
+        }
+        return builder.toString();
+    }
+
+}
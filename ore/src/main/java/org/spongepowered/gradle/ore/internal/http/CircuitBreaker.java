@@ -0,0 +1,147 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint circuit breakers, to stop sending requests to an endpoint that is consistently failing.
+ *
+ * <p>After a number of consecutive failures, an endpoint's circuit opens and requests are
+ * refused immediately for a cooldown period. Once it ends, a single trial request is allowed
+ * through: if it succeeds the circuit closes again, otherwise another cooldown starts.</p>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger LOGGER = Logging.getLogger(CircuitBreaker.class);
+
+    /**
+     * A circuit breaker that never opens.
+     */
+    public static final CircuitBreaker DISABLED = new CircuitBreaker(0, Duration.ZERO);
+
+    private final int failureThreshold;
+    private final Duration cooldown;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new set of circuit breakers.
+     *
+     * @param failureThreshold the number of consecutive failures before an endpoint is blocked, or {@code 0} to never block
+     * @param cooldown how long to block an endpoint for
+     */
+    public CircuitBreaker(final int failureThreshold, final Duration cooldown) {
+        this.failureThreshold = failureThreshold;
+        this.cooldown = cooldown;
+    }
+
+    /**
+     * Check whether a request to the endpoint may be sent.
+     *
+     * @param endpoint the endpoint name
+     * @throws CircuitOpenException if the endpoint's circuit is open
+     */
+    void acquire(final String endpoint) throws CircuitOpenException {
+        if (this.failureThreshold <= 0) {
+            return;
+        }
+        final Circuit circuit = this.circuits.computeIfAbsent(endpoint, $ -> new Circuit());
+        final long remaining = circuit.acquire(System.nanoTime());
+        if (remaining > 0) {
+            throw new CircuitOpenException(endpoint, Duration.ofNanos(remaining));
+        }
+    }
+
+    /**
+     * Record the outcome of a request.
+     *
+     * @param endpoint the endpoint name
+     * @param success whether the request succeeded
+     */
+    void record(final String endpoint, final boolean success) {
+        if (this.failureThreshold <= 0) {
+            return;
+        }
+        final Circuit circuit = this.circuits.computeIfAbsent(endpoint, $ -> new Circuit());
+        if (success) {
+            circuit.success();
+        } else if (circuit.failure(System.nanoTime())) {
+            LOGGER.warn("Ore endpoint {} failed {} times in a row, pausing requests for {}s", endpoint, this.failureThreshold, this.cooldown.getSeconds());
+        }
+    }
+
+    private final class Circuit {
+        private int consecutiveFailures; // guarded by this
+        private long openUntil; // guarded by this, 0 when closed
+        private boolean trialInFlight; // guarded by this
+
+        /**
+         * Attempt to acquire permission to send a request.
+         *
+         * @return {@code 0} if permitted, otherwise the remaining cooldown in nanoseconds
+         */
+        synchronized long acquire(final long now) {
+            if (this.openUntil == 0) {
+                return 0;
+            } else if (now - this.openUntil < 0) {
+                return this.openUntil - now;
+            } else if (this.trialInFlight) {
+                return CircuitBreaker.this.cooldown.toNanos();
+            }
+            this.trialInFlight = true; // half-open, let one request through
+            return 0;
+        }
+
+        synchronized void success() {
+            this.consecutiveFailures = 0;
+            this.openUntil = 0;
+            this.trialInFlight = false;
+        }
+
+        /**
+         * Record a failure.
+         *
+         * @return whether this failure opened the circuit
+         */
+        synchronized boolean failure(final long now) {
+            final boolean wasOpen = this.openUntil != 0;
+            this.trialInFlight = false;
+            if (++this.consecutiveFailures >= CircuitBreaker.this.failureThreshold || wasOpen) {
+                this.openUntil = now + CircuitBreaker.this.cooldown.toNanos();
+                if (this.openUntil == 0) {
+                    this.openUntil = 1;
+                }
+                return !wasOpen;
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.nio.AsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An entity consumer that decodes a {@code gzip} or {@code deflate} content-encoded
+ * body before passing it on to another consumer.
+ *
+ * <p>Ore API responses are small JSON documents, so the compressed body is
+ * buffered in full and decoded once the stream ends.</p>
+ *
+ * @param <T> the result type
+ */
+final class DecompressingEntityConsumer<T> implements AsyncEntityConsumer<T> {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String IDENTITY = "identity";
+
+    private final AsyncEntityConsumer<T> delegate;
+    private final boolean gzip;
+    private volatile @Nullable ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    private volatile @Nullable EntityDetails details;
+    private volatile @Nullable FutureCallback<T> callback;
+
+    private DecompressingEntityConsumer(final AsyncEntityConsumer<T> delegate, final boolean gzip) {
+        this.delegate = delegate;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Wrap a consumer to decode a body with the provided content encoding, if necessary.
+     *
+     * @param delegate the consumer for decoded content
+     * @param contentEncoding the content encoding of the received entity
+     * @param <T> the result type
+     * @return a consumer able to handle the entity
+     * @throws HttpException if the content encoding is not supported
+     */
+    static <T> AsyncEntityConsumer<T> wrap(final AsyncEntityConsumer<T> delegate, final @Nullable String contentEncoding) throws HttpException {
+        if (contentEncoding == null) {
+            return delegate;
+        }
+
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case DecompressingEntityConsumer.IDENTITY:
+                return delegate;
+            case DecompressingEntityConsumer.GZIP:
+            case DecompressingEntityConsumer.X_GZIP:
+                return new DecompressingEntityConsumer<>(delegate, true);
+            case DecompressingEntityConsumer.DEFLATE:
+                return new DecompressingEntityConsumer<>(delegate, false);
+            default:
+                throw new HttpException("Unsupported content encoding in response: " + contentEncoding);
+        }
+    }
+
+    @Override
+    public void streamStart(final EntityDetails entityDetails, final FutureCallback<T> resultCallback) {
+        this.details = entityDetails;
+        this.callback = resultCallback;
+    }
+
+    @Override
+    public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+        capacityChannel.update(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void consume(final ByteBuffer src) throws IOException {
+        final @Nullable ByteArrayOutputStream compressed = this.compressed;
+        if (compressed == null) {
+            return;
+        }
+
+        if (src.hasArray()) {
+            compressed.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+        } else {
+            final byte[] buf = new byte[src.remaining()];
+            src.get(buf);
+            compressed.write(buf);
+        }
+    }
+
+    @Override
+    public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+        final @Nullable ByteArrayOutputStream compressed = this.compressed;
+        final @Nullable EntityDetails details = this.details;
+        if (compressed == null || details == null) {
+            return;
+        }
+
+        final byte[] decoded = this.decode(compressed.toByteArray());
+        final @Nullable String contentType = details.getContentType();
+        this.delegate.streamStart(
+            new BasicEntityDetails(decoded.length, contentType == null ? null : ContentType.parse(contentType)),
+            this.callback
+        );
+        this.delegate.consume(ByteBuffer.wrap(decoded));
+        this.delegate.streamEnd(trailers);
+    }
+
+    private byte[] decode(final byte[] compressed) throws IOException {
+        try (final InputStream is = this.decoder(compressed)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            final byte[] buf = new byte[8192];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                out.write(buf, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private InputStream decoder(final byte[] compressed) throws IOException {
+        final ByteArrayInputStream source = new ByteArrayInputStream(compressed);
+        if (this.gzip) {
+            return new GZIPInputStream(source);
+        }
+        // 'deflate' is specified as a zlib stream, but some servers send raw deflate data
+        return new InflaterInputStream(source, new Inflater(!DecompressingEntityConsumer.hasZlibHeader(compressed)));
+    }
+
+    private static boolean hasZlibHeader(final byte[] data) {
+        if (data.length < 2) {
+            return false;
+        }
+        final int cmf = data[0] & 0xff;
+        final int flg = data[1] & 0xff;
+        return (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    }
+
+    @Override
+    public void failed(final Exception cause) {
+        this.delegate.failed(cause);
+    }
+
+    @Override
+    public @Nullable T getContent() {
+        return this.delegate.getContent();
+    }
+
+    @Override
+    public void releaseResources() {
+        this.compressed = null;
+        this.details = null;
+        this.callback = null;
+        this.delegate.releaseResources();
+    }
+
+}
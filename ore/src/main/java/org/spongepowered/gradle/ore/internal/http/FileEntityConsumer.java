@@ -0,0 +1,115 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.entity.AbstractBinAsyncEntityConsumer;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Stream a response body to a file, computing its MD5 digest on the way.
+ *
+ * <p>The result is the hex-encoded digest of the data written. Any existing file is replaced.</p>
+ */
+public final class FileEntityConsumer extends AbstractBinAsyncEntityConsumer<String> {
+
+    private final Path destination;
+    private @Nullable FileChannel channel;
+    private @Nullable MessageDigest digest;
+
+    public FileEntityConsumer(final Path destination) {
+        this.destination = destination;
+    }
+
+    @Override
+    protected void streamStart(final ContentType contentType) throws IOException {
+        this.releaseResources();
+        try {
+            this.digest = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is required to be supported by every JVM", ex);
+        }
+        this.channel = FileChannel.open(this.destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(final ByteBuffer src, final boolean endOfStream) throws IOException {
+        final FileChannel channel = this.channel;
+        final MessageDigest digest = this.digest;
+        if (channel == null || digest == null) {
+            throw new IOException("Received data before the response started");
+        }
+        digest.update(src.duplicate());
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+
+    @Override
+    protected String generateContent() {
+        final @Nullable MessageDigest digest = this.digest;
+        this.releaseResources();
+        if (digest == null) {
+            throw new IllegalStateException("No response body was received");
+        }
+        return FileEntityConsumer.toHex(digest.digest());
+    }
+
+    @Override
+    public void releaseResources() {
+        final @Nullable FileChannel channel = this.channel;
+        this.channel = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException ignored) {
+                // nothing useful to do, the file will be rejected by its digest
+            }
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] hex = "0123456789abcdef".toCharArray();
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(hex[(b >> 4) & 0xf]).append(hex[b & 0xf]);
+        }
+        return builder.toString();
+    }
+
+}
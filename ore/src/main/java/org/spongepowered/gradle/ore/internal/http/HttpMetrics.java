@@ -0,0 +1,348 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.hc.core5.http.HttpRequest;
+import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Request-level statistics for the Ore HTTP client, aggregated per endpoint.
+ *
+ * <p>The time spent on each request is split into three phases: sending the request
+ * (including any upload), waiting for Ore to begin its response, and receiving
+ * the response body.</p>
+ */
+public final class HttpMetrics {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final String API_PATH = "/api/v2/";
+
+    /**
+     * Upper bounds of the latency histogram buckets, in milliseconds.
+     */
+    private static final long[] LATENCY_BUCKETS_MS = {10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, Long.MAX_VALUE};
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong reauthentications = new AtomicLong();
+
+    /**
+     * Get a stable name for the endpoint a request targets, without any identifiers.
+     *
+     * @param request the request
+     * @return the endpoint name
+     */
+    static String endpointName(final HttpRequest request) {
+        String path;
+        try {
+            final URI uri = request.getUri();
+            path = uri.getPath();
+        } catch (final URISyntaxException ex) {
+            path = request.getPath();
+        }
+        if (path == null) {
+            path = "";
+        }
+        final int apiIdx = path.indexOf(HttpMetrics.API_PATH);
+        if (apiIdx != -1) {
+            path = path.substring(apiIdx + HttpMetrics.API_PATH.length());
+        }
+        // projects/<id>/... -> projects/{id}/...
+        final String[] segments = path.split("/");
+        if (segments.length > 1 && segments[0].equals("projects")) {
+            segments[1] = "{id}";
+            if (segments.length > 3 && segments[2].equals("versions")) {
+                segments[3] = "{name}";
+            }
+            path = String.join("/", segments);
+        }
+        return request.getMethod().toUpperCase(Locale.ROOT) + " " + path;
+    }
+
+    Trace start() {
+        return new Trace();
+    }
+
+    void recordRetry(final String endpoint) {
+        this.endpoint(endpoint).retries.incrementAndGet();
+    }
+
+    /**
+     * Record that a session had to be re-established after being rejected.
+     */
+    public void recordReauthentication() {
+        this.reauthentications.incrementAndGet();
+    }
+
+    private Endpoint endpoint(final String name) {
+        return this.endpoints.computeIfAbsent(name, $ -> new Endpoint());
+    }
+
+    /**
+     * Get whether any requests have been recorded.
+     *
+     * @return whether metrics are empty
+     */
+    public boolean isEmpty() {
+        return this.endpoints.isEmpty() && this.reauthentications.get() == 0;
+    }
+
+    /**
+     * Log a human-readable summary of each endpoint at info level.
+     *
+     * @param logger the logger to write to
+     */
+    public void logSummary(final Logger logger) {
+        if (!logger.isInfoEnabled() || this.isEmpty()) {
+            return;
+        }
+
+        logger.info("Ore HTTP client summary ({} reauthentications):", this.reauthentications.get());
+        for (final Map.Entry<String, Endpoint> entry : new TreeMap<>(this.endpoints).entrySet()) {
+            final Endpoint stats = entry.getValue();
+            final long count = stats.count.get();
+            logger.info(
+                "  {}: {} requests ({} failed, {} unauthorized, {} retries), mean {} ms [send {} ms, wait {} ms, receive {} ms], max {} ms, "
+                    + "{} bytes sent, {} bytes received",
+                entry.getKey(),
+                count,
+                stats.failures.get(),
+                stats.unauthorized.get(),
+                stats.retries.get(),
+                HttpMetrics.meanMillis(stats.totalNanos.get(), count),
+                HttpMetrics.meanMillis(stats.sendNanos.get(), count),
+                HttpMetrics.meanMillis(stats.waitNanos.get(), count),
+                HttpMetrics.meanMillis(stats.receiveNanos.get(), count),
+                TimeUnit.NANOSECONDS.toMillis(stats.maxNanos.get()),
+                stats.bytesSent.get(),
+                stats.bytesReceived.get()
+            );
+        }
+    }
+
+    /**
+     * Write all metrics as a JSON document.
+     *
+     * @param destination the file to write to
+     * @throws IOException if the report could not be written
+     */
+    public void writeReport(final Path destination) throws IOException {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("reauthentications", this.reauthentications.get());
+        final Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (final Map.Entry<String, Endpoint> entry : new TreeMap<>(this.endpoints).entrySet()) {
+            endpoints.put(entry.getKey(), entry.getValue().toReport());
+        }
+        report.put("endpoints", endpoints);
+
+        if (destination.getParent() != null) {
+            Files.createDirectories(destination.getParent());
+        }
+        try (final Writer writer = Files.newBufferedWriter(destination, StandardCharsets.UTF_8)) {
+            HttpMetrics.GSON.toJson(report, writer);
+        }
+    }
+
+    private static double meanMillis(final long totalNanos, final long count) {
+        if (count == 0) {
+            return 0;
+        }
+        return Math.round(totalNanos / (double) count / 1e4) / 100d; // two decimal places
+    }
+
+    /**
+     * Timing and volume information for a single request.
+     */
+    final class Trace {
+        private final long startNanos = System.nanoTime();
+        private volatile @Nullable String endpoint;
+        private volatile long requestSentNanos;
+        private volatile long responseStartNanos;
+        private volatile int status = -1;
+        private final AtomicLong bytesSent = new AtomicLong();
+        private final AtomicLong bytesReceived = new AtomicLong();
+
+        void endpoint(final String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Nullable String endpoint() {
+            return this.endpoint;
+        }
+
+        /**
+         * The status of the last response received.
+         *
+         * @return the status code, or {@code -1} if no response was received
+         */
+        int status() {
+            return this.status;
+        }
+
+        void sent(final int bytes) {
+            this.bytesSent.addAndGet(bytes);
+        }
+
+        void requestSent() {
+            this.requestSentNanos = System.nanoTime();
+        }
+
+        void responseStarted(final int status) {
+            this.responseStartNanos = System.nanoTime();
+            this.status = status;
+        }
+
+        void received(final int bytes) {
+            this.bytesReceived.addAndGet(bytes);
+        }
+
+        void unauthorized() {
+            final @Nullable String endpoint = this.endpoint;
+            if (endpoint != null) {
+                HttpMetrics.this.endpoint(endpoint).unauthorized.incrementAndGet();
+            }
+        }
+
+        /**
+         * Record the completed request.
+         */
+        void finish() {
+            final @Nullable String endpoint = this.endpoint;
+            if (endpoint == null) {
+                return; // never sent
+            }
+
+            final long end = System.nanoTime();
+            final long sent = this.requestSentNanos == 0 ? this.startNanos : this.requestSentNanos;
+            final long responseStart = this.responseStartNanos == 0 ? end : this.responseStartNanos;
+            HttpMetrics.this.endpoint(endpoint).record(
+                this.status,
+                end - this.startNanos,
+                Math.max(0, sent - this.startNanos),
+                Math.max(0, responseStart - sent),
+                Math.max(0, end - responseStart),
+                this.bytesSent.get(),
+                this.bytesReceived.get()
+            );
+        }
+    }
+
+    static final class Endpoint {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong unauthorized = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong sendNanos = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+        final AtomicLong receiveNanos = new AtomicLong();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final AtomicLong bytesSent = new AtomicLong();
+        final AtomicLong bytesReceived = new AtomicLong();
+        final AtomicLongArray latencyBuckets = new AtomicLongArray(HttpMetrics.LATENCY_BUCKETS_MS.length);
+        final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        void record(
+            final int status,
+            final long totalNanos,
+            final long sendNanos,
+            final long waitNanos,
+            final long receiveNanos,
+            final long bytesSent,
+            final long bytesReceived
+        ) {
+            this.count.incrementAndGet();
+            if (status < 200 || status >= 400) {
+                this.failures.incrementAndGet();
+            }
+            this.statuses.computeIfAbsent(status, $ -> new AtomicLong()).incrementAndGet();
+            this.totalNanos.addAndGet(totalNanos);
+            this.sendNanos.addAndGet(sendNanos);
+            this.waitNanos.addAndGet(waitNanos);
+            this.receiveNanos.addAndGet(receiveNanos);
+            this.maxNanos.accumulate(totalNanos);
+            this.bytesSent.addAndGet(bytesSent);
+            this.bytesReceived.addAndGet(bytesReceived);
+
+            final long millis = TimeUnit.NANOSECONDS.toMillis(totalNanos);
+            for (int i = 0; i < HttpMetrics.LATENCY_BUCKETS_MS.length; i++) {
+                if (millis <= HttpMetrics.LATENCY_BUCKETS_MS[i]) {
+                    this.latencyBuckets.incrementAndGet(i);
+                    break;
+                }
+            }
+        }
+
+        Map<String, Object> toReport() {
+            final long count = this.count.get();
+            final Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", count);
+            report.put("failures", this.failures.get());
+            report.put("unauthorized", this.unauthorized.get());
+            report.put("retries", this.retries.get());
+            final Map<String, Long> statuses = new TreeMap<>();
+            for (final Map.Entry<Integer, AtomicLong> status : this.statuses.entrySet()) {
+                statuses.put(status.getKey() == -1 ? "none" : String.valueOf(status.getKey()), status.getValue().get());
+            }
+            report.put("statuses", statuses);
+            report.put("bytesSent", this.bytesSent.get());
+            report.put("bytesReceived", this.bytesReceived.get());
+            report.put("meanMillis", HttpMetrics.meanMillis(this.totalNanos.get(), count));
+            report.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(this.maxNanos.get()));
+            final Map<String, Object> phases = new LinkedHashMap<>();
+            phases.put("sendMillis", HttpMetrics.meanMillis(this.sendNanos.get(), count));
+            phases.put("waitMillis", HttpMetrics.meanMillis(this.waitNanos.get(), count));
+            phases.put("receiveMillis", HttpMetrics.meanMillis(this.receiveNanos.get(), count));
+            report.put("meanPhases", phases);
+            final Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < HttpMetrics.LATENCY_BUCKETS_MS.length; i++) {
+                final long bound = HttpMetrics.LATENCY_BUCKETS_MS[i];
+                histogram.put(bound == Long.MAX_VALUE ? "+Inf" : "<=" + bound + "ms", this.latencyBuckets.get(i));
+            }
+            report.put("latencyHistogram", histogram);
+            return report;
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Connection options for a {@link HttpWrapper}.
+ */
+public final class HttpOptions {
+
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final boolean compressRequests;
+    private final RetryPolicy retryPolicy;
+    private final int maxConcurrentRequests;
+
+    public HttpOptions(final Duration connectTimeout, final Duration readTimeout) {
+        this(connectTimeout, readTimeout, false);
+    }
+
+    public HttpOptions(final Duration connectTimeout, final Duration readTimeout, final boolean compressRequests) {
+        this(connectTimeout, readTimeout, compressRequests, RetryPolicy.DEFAULT, HttpOptions.DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    public HttpOptions(
+        final Duration connectTimeout,
+        final Duration readTimeout,
+        final boolean compressRequests,
+        final RetryPolicy retryPolicy,
+        final int maxConcurrentRequests
+    ) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be at least 1, but was " + maxConcurrentRequests);
+        }
+        this.connectTimeout = requireNonNull(connectTimeout, "connectTimeout");
+        this.readTimeout = requireNonNull(readTimeout, "readTimeout");
+        this.compressRequests = compressRequests;
+        this.retryPolicy = requireNonNull(retryPolicy, "retryPolicy");
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * The maximum time to wait for a connection to be established.
+     *
+     * @return the connect timeout
+     */
+    public Duration connectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * The maximum time to wait between two packets of data on an open connection.
+     *
+     * @return the read timeout
+     */
+    public Duration readTimeout() {
+        return this.readTimeout;
+    }
+
+    /**
+     * Whether JSON request bodies should be sent gzip-compressed.
+     *
+     * @return whether to compress request bodies
+     */
+    public boolean compressRequests() {
+        return this.compressRequests;
+    }
+
+    /**
+     * How failed requests should be retried.
+     *
+     * @return the retry policy
+     */
+    public RetryPolicy retryPolicy() {
+        return this.retryPolicy;
+    }
+
+    /**
+     * The maximum number of requests a single session may have in flight at once.
+     *
+     * @return the maximum concurrent requests
+     */
+    public int maxConcurrentRequests() {
+        return this.maxConcurrentRequests;
+    }
+
+    /**
+     * Get a copy of these options with request compression set.
+     *
+     * @param compressRequests whether to compress request bodies
+     * @return new options
+     */
+    public HttpOptions withCompressRequests(final boolean compressRequests) {
+        if (compressRequests == this.compressRequests) {
+            return this;
+        }
+        return new HttpOptions(this.connectTimeout, this.readTimeout, compressRequests, this.retryPolicy, this.maxConcurrentRequests);
+    }
+
+    /**
+     * Get a copy of these options with a different retry policy.
+     *
+     * @param retryPolicy the retry policy
+     * @return new options
+     */
+    public HttpOptions withRetryPolicy(final RetryPolicy retryPolicy) {
+        if (retryPolicy.equals(this.retryPolicy)) {
+            return this;
+        }
+        return new HttpOptions(this.connectTimeout, this.readTimeout, this.compressRequests, retryPolicy, this.maxConcurrentRequests);
+    }
+
+    /**
+     * Get a copy of these options with a different limit on concurrent requests.
+     *
+     * @param maxConcurrentRequests the maximum concurrent requests per session
+     * @return new options
+     */
+    public HttpOptions withMaxConcurrentRequests(final int maxConcurrentRequests) {
+        if (maxConcurrentRequests == this.maxConcurrentRequests) {
+            return this;
+        }
+        return new HttpOptions(this.connectTimeout, this.readTimeout, this.compressRequests, this.retryPolicy, maxConcurrentRequests);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof HttpOptions)) {
+            return false;
+        }
+        final HttpOptions that = (HttpOptions) other;
+        return this.connectTimeout.equals(that.connectTimeout)
+            && this.readTimeout.equals(that.readTimeout)
+            && this.compressRequests == that.compressRequests
+            && this.retryPolicy.equals(that.retryPolicy)
+            && this.maxConcurrentRequests == that.maxConcurrentRequests;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.connectTimeout, this.readTimeout, this.compressRequests, this.retryPolicy, this.maxConcurrentRequests);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpOptions{connectTimeout=" + this.connectTimeout + ", readTimeout=" + this.readTimeout + ", compressRequests=" + this.compressRequests
+            + ", retryPolicy=" + this.retryPolicy + ", maxConcurrentRequests=" + this.maxConcurrentRequests + '}';
+    }
+
+}
@@ -26,44 +26,72 @@
 
 import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
 import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
-import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.http.nio.AsyncEntityConsumer;
 import org.apache.hc.core5.http.nio.AsyncRequestProducer;
 import org.apache.hc.core5.reactor.IOReactorConfig;
-import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.gradle.util.GradleVersion;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.gradle.ore.internal.OreResponse;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 public final class HttpWrapper implements AutoCloseable {
 
     private final CloseableHttpAsyncClient client;
+    private final HttpMetrics metrics;
+    private final CircuitBreaker circuitBreaker;
 
-    public HttpWrapper(final Consumer<HttpAsyncClientBuilder> builderConfigurer) {
+    public HttpWrapper(
+        final HttpOptions options,
+        final HttpMetrics metrics,
+        final CircuitBreaker circuitBreaker,
+        final Consumer<HttpAsyncClientBuilder> builderConfigurer
+    ) {
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
         // Configure the HTTP client
         // This won't actually launch a thread pool until the first request is performed.
+        final Timeout readTimeout = Timeout.ofMilliseconds(options.readTimeout().toMillis());
         final IOReactorConfig config = IOReactorConfig.custom()
-            .setSoTimeout(Timeout.ofSeconds(5))
+            .setSoTimeout(readTimeout)
+            .build();
+        final ConnectionConfig connectionConfig = ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(options.connectTimeout().toMillis()))
+            .setSocketTimeout(readTimeout)
             .build();
 
         final HttpAsyncClientBuilder clientBuilder = HttpAsyncClientBuilder.create()
             .setIOReactorConfig(config)
+            .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDefaultConnectionConfig(connectionConfig)
+                .build())
             .setUserAgent(
                 "SpongeGradle-Ore/" + this.getClass().getPackage().getImplementationVersion() + " Gradle/" + GradleVersion.current() + " Java/"
                     + System.getProperty("java.version"))
-            .setRetryStrategy(new DefaultHttpRequestRetryStrategy(5, TimeValue.ofMilliseconds(500)));
+            .setDefaultHeaders(Collections.singletonList(new BasicHeader(HttpHeaders.ACCEPT_ENCODING, DecompressingEntityConsumer.ACCEPT_ENCODING)))
+            .setRetryStrategy(new OreRetryStrategy(options.retryPolicy(), metrics));
         builderConfigurer.accept(clientBuilder);
         this.client = clientBuilder.build();
     }
 
+    public HttpMetrics metrics() {
+        return this.metrics;
+    }
+
     public CloseableHttpAsyncClient client() {
         this.client.start();
         return this.client;
@@ -77,12 +105,35 @@ public <T> CompletableFuture<OreResponse<T>> request(final SimpleHttpRequest req
 
     public <T> CompletableFuture<OreResponse<T>> request(final AsyncRequestProducer request, final AsyncEntityConsumer<T> responseConsumer) {
         final FutureToCompletable<OreResponse<T>> ret = new FutureToCompletable<>();
+        final HttpMetrics.Trace trace = this.metrics.start();
         this.client().execute(
-            request,
-            new ToOreResponseConsumer<>(responseConsumer),
+            new TracingRequestProducer(request, trace, this.circuitBreaker),
+            new ToOreResponseConsumer<>(responseConsumer, trace),
             ret
         );
-        return ret.future();
+        return ret.future().whenComplete(($, error) -> {
+            trace.finish();
+            this.recordOutcome(trace, error);
+        });
+    }
+
+    /**
+     * Tell the circuit breaker whether a request succeeded.
+     *
+     * <p>Only connection failures and responses indicating the server is unavailable count
+     * as failures. Requests the circuit breaker itself refused are not counted.</p>
+     */
+    private void recordOutcome(final HttpMetrics.Trace trace, final @Nullable Throwable error) {
+        final @Nullable String endpoint = trace.endpoint();
+        if (endpoint == null) {
+            return;
+        }
+        final @Nullable Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof CircuitOpenException) {
+            return;
+        }
+        final int status = trace.status();
+        this.circuitBreaker.record(endpoint, cause == null && status < HttpStatus.SC_SERVER_ERROR && status != HttpStatus.SC_TOO_MANY_REQUESTS);
     }
 
     public <T> CompletableFuture<OreResponse<T>> get(final URI destination, final AsyncEntityConsumer<T> responseConsumer) {
@@ -27,39 +27,91 @@
 import com.google.gson.Gson;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.nio.StreamChannel;
-import org.apache.hc.core5.http.nio.entity.AbstractCharAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.AbstractBinAsyncEntityProducer;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.CharBuffer;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public final class JsonEntityProducer extends AbstractBinAsyncEntityProducer {
+    private static final String GZIP = "gzip";
 
-public final class JsonEntityProducer extends AbstractCharAsyncEntityProducer {
     private final Gson gson;
     private final Object value;
-    private volatile CharBuffer created;
+    private final boolean compress;
+    private volatile ByteBuffer created;
 
     public JsonEntityProducer(final Gson gson, final Object value) {
-        super(4096, -1, ContentType.APPLICATION_JSON);
-        this.gson = gson;
-        this.value = value;
+        this(gson, value, false);
     }
 
-    @Override
-    protected int availableData() {
-        return Integer.MAX_VALUE;
+    /**
+     * Create a producer for a JSON body.
+     *
+     * @param gson the serializer to use
+     * @param value the value to serialize
+     * @param compress whether to gzip-compress the body
+     */
+    public JsonEntityProducer(final Gson gson, final Object value, final boolean compress) {
+        super(4096, ContentType.APPLICATION_JSON);
+        this.gson = gson;
+        this.value = value;
+        this.compress = compress;
     }
 
-    @Override
-    protected void produceData(final StreamChannel<CharBuffer> channel) throws IOException {
+    private ByteBuffer created() throws IOException {
         if (this.created == null) {
             synchronized (this) {
                 if (this.created == null) {
-                    this.created = CharBuffer.wrap(this.gson.toJson(this.value));
+                    final byte[] json = this.gson.toJson(this.value).getBytes(StandardCharsets.UTF_8);
+                    if (this.compress) {
+                        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length);
+                        try (final OutputStream os = new GZIPOutputStream(compressed)) {
+                            os.write(json);
+                        }
+                        this.created = ByteBuffer.wrap(compressed.toByteArray());
+                    } else {
+                        this.created = ByteBuffer.wrap(json);
+                    }
                 }
             }
         }
+        return this.created;
+    }
+
+    @Override
+    public long getContentLength() {
+        try {
+            return this.created().remaining();
+        } catch (final IOException ex) {
+            return -1;
+        }
+    }
+
+    @Override
+    public @Nullable String getContentEncoding() {
+        return this.compress ? JsonEntityProducer.GZIP : null;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
 
-        channel.write(this.created);
-        if (!this.created.hasRemaining()) {
+    @Override
+    protected int availableData() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void produceData(final StreamChannel<ByteBuffer> channel) throws IOException {
+        final ByteBuffer created = this.created();
+        channel.write(created);
+        if (!created.hasRemaining()) {
             channel.endStream();
         }
     }
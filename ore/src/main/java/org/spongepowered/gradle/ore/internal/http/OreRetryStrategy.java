@@ -0,0 +1,144 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * The retry strategy for Ore requests.
+ *
+ * <p>Retries back off exponentially with jitter, according to a {@link RetryPolicy}. When Ore
+ * signals it is overloaded with a {@code 429} or {@code 503} response, any {@code Retry-After}
+ * it provides is honoured. Every retry is recorded in the client's metrics.</p>
+ *
+ * <p>Unlike the default strategy, idempotent requests are retried when the server closes the
+ * connection without responding.</p>
+ */
+final class OreRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+    /**
+     * The longest {@code Retry-After} delay that will be honoured.
+     */
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+    private final RetryPolicy policy;
+    private final HttpMetrics metrics;
+
+    OreRetryStrategy(final RetryPolicy policy, final HttpMetrics metrics) {
+        super(
+            policy.maxRetries(),
+            TimeValue.ofMilliseconds(policy.initialDelay().toMillis()),
+            Arrays.asList(
+                InterruptedIOException.class,
+                UnknownHostException.class,
+                ConnectException.class,
+                NoRouteToHostException.class,
+                SSLException.class,
+                CircuitOpenException.class
+            ),
+            Arrays.asList(HttpStatus.SC_TOO_MANY_REQUESTS, HttpStatus.SC_SERVICE_UNAVAILABLE)
+        );
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean retryRequest(final HttpRequest request, final IOException exception, final int execCount, final HttpContext context) {
+        final boolean retry = super.retryRequest(request, exception, execCount, context);
+        if (retry) {
+            this.metrics.recordRetry(HttpMetrics.endpointName(request));
+        }
+        return retry;
+    }
+
+    @Override
+    public boolean retryRequest(final HttpResponse response, final int execCount, final HttpContext context) {
+        final boolean retry = super.retryRequest(response, execCount, context);
+        if (retry) {
+            final @Nullable HttpRequest request = HttpCoreContext.adapt(context).getRequest();
+            if (request != null) {
+                this.metrics.recordRetry(HttpMetrics.endpointName(request));
+            }
+        }
+        return retry;
+    }
+
+    @Override
+    public TimeValue getRetryInterval(final HttpRequest request, final IOException exception, final int execCount, final HttpContext context) {
+        return TimeValue.ofMilliseconds(this.policy.delayMillis(execCount));
+    }
+
+    @Override
+    public TimeValue getRetryInterval(final HttpResponse response, final int execCount, final HttpContext context) {
+        final long backoff = this.policy.delayMillis(execCount);
+        final long retryAfter = OreRetryStrategy.retryAfterMillis(response);
+        return TimeValue.ofMilliseconds(Math.min(Math.max(backoff, retryAfter), OreRetryStrategy.MAX_RETRY_AFTER.toMillis()));
+    }
+
+    /**
+     * Read the delay requested by a {@code Retry-After} header, in either of its forms.
+     *
+     * @param response the response
+     * @return the requested delay in milliseconds, or {@code 0} if none was requested
+     */
+    private static long retryAfterMillis(final HttpResponse response) {
+        final @Nullable Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null || header.getValue() == null) {
+            return 0;
+        }
+
+        final String value = header.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (final NumberFormatException ignored) {
+            // not delay-seconds, try an HTTP-date
+        }
+
+        final @Nullable Instant date = DateUtils.parseStandardDate(value);
+        return date == null ? 0 : Math.max(0, Duration.between(Instant.now(), date).toMillis());
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How failed Ore requests are retried.
+ *
+ * <p>Delays grow exponentially from the initial delay up to the maximum delay, with
+ * random jitter so that many clients failing at once do not retry in lockstep.</p>
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(500), Duration.ofSeconds(30));
+
+    private final int maxRetries;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+
+    public RetryPolicy(final int maxRetries, final Duration initialDelay, final Duration maxDelay) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative, but was " + maxRetries);
+        }
+        this.maxRetries = maxRetries;
+        this.initialDelay = requireNonNull(initialDelay, "initialDelay");
+        this.maxDelay = requireNonNull(maxDelay, "maxDelay");
+    }
+
+    /**
+     * The maximum number of times a request will be retried.
+     *
+     * @return the maximum retries
+     */
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * The base delay before the first retry.
+     *
+     * @return the initial delay
+     */
+    public Duration initialDelay() {
+        return this.initialDelay;
+    }
+
+    /**
+     * The upper bound on the delay between two attempts, before jitter is applied.
+     *
+     * @return the maximum delay
+     */
+    public Duration maxDelay() {
+        return this.maxDelay;
+    }
+
+    /**
+     * Compute the delay before a retry.
+     *
+     * <p>The delay is chosen uniformly between half and all of the exponential backoff for this attempt.</p>
+     *
+     * @param attempt the number of attempts already made, starting at 1
+     * @return the delay, in milliseconds
+     */
+    long delayMillis(final int attempt) {
+        final int exponent = Math.min(Math.max(attempt - 1, 0), 30);
+        final long backoff = Math.min(this.maxDelay.toMillis(), this.initialDelay.toMillis() << exponent);
+        final long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RetryPolicy)) {
+            return false;
+        }
+        final RetryPolicy that = (RetryPolicy) other;
+        return this.maxRetries == that.maxRetries
+            && this.initialDelay.equals(that.initialDelay)
+            && this.maxDelay.equals(that.maxDelay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.maxRetries, this.initialDelay, this.maxDelay);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxRetries=" + this.maxRetries + ", initialDelay=" + this.initialDelay + ", maxDelay=" + this.maxDelay + '}';
+    }
+
+}
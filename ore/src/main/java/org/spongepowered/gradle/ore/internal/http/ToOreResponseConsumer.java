@@ -29,6 +29,7 @@
 import org.apache.hc.core5.http.EntityDetails;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.nio.AsyncEntityConsumer;
@@ -55,14 +56,17 @@
 final class ToOreResponseConsumer<V> implements AsyncResponseConsumer<OreResponse<V>> {
 
     private final Supplier<AsyncEntityConsumer<V>> entityConsumerSupplier;
+    private final HttpMetrics.Trace trace;
     private final AtomicReference<AsyncEntityConsumer<?>> entityConsumerRef = new AtomicReference<>();
 
-    public ToOreResponseConsumer(final Supplier<AsyncEntityConsumer<V>> entityConsumerSupplier) {
+    public ToOreResponseConsumer(final Supplier<AsyncEntityConsumer<V>> entityConsumerSupplier, final HttpMetrics.Trace trace) {
         this.entityConsumerSupplier = entityConsumerSupplier;
+        this.trace = trace;
     }
 
-    public ToOreResponseConsumer(final AsyncEntityConsumer<V> consumer) {
+    public ToOreResponseConsumer(final AsyncEntityConsumer<V> consumer, final HttpMetrics.Trace trace) {
         this.entityConsumerSupplier = () -> consumer;
+        this.trace = trace;
     }
 
     @Override
@@ -73,30 +77,42 @@ public void consumeResponse(
         final @Nullable FutureCallback<OreResponse<V>> resultCallback
     ) throws HttpException, IOException {
         final int code = response.getCode();
+        this.trace.responseStarted(code);
+        final @Nullable Header etag = response.getFirstHeader(HttpHeaders.ETAG);
         if (code >= 200 && code < 300) { // ok
-            final AsyncEntityConsumer<V> responseConsumer = Objects.requireNonNull(this.entityConsumerSupplier.get(), "entity consumer");
-            this.entityConsumerRef.set(responseConsumer);
-
             if (entityDetails != null) {
+                final AsyncEntityConsumer<V> responseConsumer = DecompressingEntityConsumer.wrap(
+                    Objects.requireNonNull(this.entityConsumerSupplier.get(), "entity consumer"),
+                    entityDetails.getContentEncoding()
+                );
+                this.entityConsumerRef.set(responseConsumer);
                 responseConsumer.streamStart(entityDetails, new CallbackContribution<V>(resultCallback) {
                     @Override
                     public void completed(final V result) {
                         if (resultCallback != null) {
-                            resultCallback.completed(OreResponse.success(result));
+                            resultCallback.completed(OreResponse.success(result, etag == null ? null : etag.getValue()));
                         }
                     }
                 });
             } else if (resultCallback != null) {
-                resultCallback.completed(OreResponse.success(null));
+                resultCallback.completed(OreResponse.success(null, etag == null ? null : etag.getValue()));
+            }
+        } else if (code == HttpStatus.SC_NOT_MODIFIED) {
+            if (resultCallback != null) {
+                resultCallback.completed(OreResponse.notModified());
             }
         } else if (code == HttpStatus.SC_UNAUTHORIZED) {
+            this.trace.unauthorized();
             if (resultCallback != null) {
                 resultCallback.completed(OreResponse.reauthenticate());
             }
         } else {
             // error response consumer
             if (entityDetails != null) {
-                final AsyncEntityConsumer<ErrorResponse> responseConsumer = new JsonEntityConsumer<>(OreSession.GSON, ErrorResponse.class);
+                final AsyncEntityConsumer<ErrorResponse> responseConsumer = DecompressingEntityConsumer.wrap(
+                    new JsonEntityConsumer<>(OreSession.GSON, ErrorResponse.class),
+                    entityDetails.getContentEncoding()
+                );
                 this.entityConsumerRef.set(responseConsumer);
                 responseConsumer.streamStart(entityDetails, new CallbackContribution<ErrorResponse>(resultCallback) {
                     @Override
@@ -137,6 +153,7 @@ public void updateCapacity(final CapacityChannel capacityChannel) throws IOExcep
 
     @Override
     public void consume(final ByteBuffer src) throws IOException {
+        this.trace.received(src.remaining());
         final AsyncEntityConsumer<?> consumer = this.entityConsumerRef.get();
         if (consumer != null) {
             consumer.consume(src);
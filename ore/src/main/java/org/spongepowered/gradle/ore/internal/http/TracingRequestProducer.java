@@ -0,0 +1,117 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.http;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.RequestChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A request producer that records the endpoint, body size and send time of a request.
+ *
+ * <p>Requests to an endpoint whose circuit breaker is open are refused before being sent.</p>
+ */
+final class TracingRequestProducer implements AsyncRequestProducer {
+
+    private final AsyncRequestProducer delegate;
+    private final HttpMetrics.Trace trace;
+    private final CircuitBreaker circuitBreaker;
+
+    TracingRequestProducer(final AsyncRequestProducer delegate, final HttpMetrics.Trace trace, final CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.trace = trace;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void sendRequest(final RequestChannel channel, final HttpContext context) throws HttpException, IOException {
+        this.delegate.sendRequest((request, entityDetails, ctx) -> {
+            final String endpoint = HttpMetrics.endpointName(request);
+            this.trace.endpoint(endpoint);
+            this.circuitBreaker.acquire(endpoint);
+            channel.sendRequest(request, entityDetails, ctx);
+            if (entityDetails == null) {
+                this.trace.requestSent();
+            }
+        }, context);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return this.delegate.isRepeatable();
+    }
+
+    @Override
+    public void failed(final Exception cause) {
+        this.delegate.failed(cause);
+    }
+
+    @Override
+    public int available() {
+        return this.delegate.available();
+    }
+
+    @Override
+    public void produce(final DataStreamChannel channel) throws IOException {
+        this.delegate.produce(new DataStreamChannel() {
+            @Override
+            public void requestOutput() {
+                channel.requestOutput();
+            }
+
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                final int written = channel.write(src);
+                TracingRequestProducer.this.trace.sent(written);
+                return written;
+            }
+
+            @Override
+            public void endStream() throws IOException {
+                TracingRequestProducer.this.trace.requestSent();
+                channel.endStream();
+            }
+
+            @Override
+            public void endStream(final List<? extends Header> trailers) throws IOException {
+                TracingRequestProducer.this.trace.requestSent();
+                channel.endStream(trailers);
+            }
+        });
+    }
+
+    @Override
+    public void releaseResources() {
+        this.delegate.releaseResources();
+    }
+
+}
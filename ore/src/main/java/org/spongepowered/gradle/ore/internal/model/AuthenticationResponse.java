@@ -24,6 +24,11 @@
  */
 package org.spongepowered.gradle.ore.internal.model;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 
 public class AuthenticationResponse {
     private final String session;
@@ -48,6 +53,23 @@ public String expires() {
         return this.expires;
     }
 
+    /**
+     * Parse the expiry time of this session.
+     *
+     * @return the expiry instant, or {@code null} if none was provided or it could not be parsed
+     */
+    public @Nullable Instant expiresAt() {
+        if (this.expires == null) {
+            return null;
+        }
+
+        try {
+            return OffsetDateTime.parse(this.expires).toInstant();
+        } catch (final DateTimeParseException ex) {
+            return null;
+        }
+    }
+
     public KeyType type() {
         return this.type;
     }
@@ -0,0 +1,76 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.model;
+
+import java.util.List;
+
+/**
+ * A single page of results from a listing endpoint.
+ *
+ * @param <T> the element type
+ */
+public class PaginatedResult<T> {
+
+    private final Pagination pagination;
+    private final List<T> result;
+
+    public PaginatedResult(final Pagination pagination, final List<T> result) {
+        this.pagination = pagination;
+        this.result = result;
+    }
+
+    public Pagination pagination() {
+        return this.pagination;
+    }
+
+    public List<T> result() {
+        return this.result;
+    }
+
+    public static class Pagination {
+        private final long limit;
+        private final long offset;
+        private final long count;
+
+        public Pagination(final long limit, final long offset, final long count) {
+            this.limit = limit;
+            this.offset = offset;
+            this.count = count;
+        }
+
+        public long limit() {
+            return this.limit;
+        }
+
+        public long offset() {
+            return this.offset;
+        }
+
+        public long count() {
+            return this.count;
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.model;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * A record of an artifact that has been published to Ore.
+ */
+public class PublishReceipt {
+
+    private final String endpoint;
+    @SerializedName("project_id")
+    private final String projectId;
+    @SerializedName("version_name")
+    private final String versionName;
+    private final String sha256;
+    private final String md5;
+    private final long size;
+    @SerializedName("last_modified")
+    private final long lastModified;
+
+    public PublishReceipt(
+        final String endpoint,
+        final String projectId,
+        final String versionName,
+        final String sha256,
+        final String md5,
+        final long size,
+        final long lastModified
+    ) {
+        this.endpoint = endpoint;
+        this.projectId = projectId;
+        this.versionName = versionName;
+        this.sha256 = sha256;
+        this.md5 = md5;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String endpoint() {
+        return this.endpoint;
+    }
+
+    public String projectId() {
+        return this.projectId;
+    }
+
+    public String versionName() {
+        return this.versionName;
+    }
+
+    public String sha256() {
+        return this.sha256;
+    }
+
+    public String md5() {
+        return this.md5;
+    }
+
+    /**
+     * Get whether this receipt records the same artifact being published to the same project.
+     *
+     * @param endpoint the Ore endpoint
+     * @param projectId the project ID
+     * @param sha256 the artifact's SHA-256 digest
+     * @return whether the receipt matches
+     */
+    public boolean matches(final String endpoint, final String projectId, final String sha256) {
+        return endpoint.equals(this.endpoint) && projectId.equals(this.projectId) && sha256.equalsIgnoreCase(this.sha256);
+    }
+
+    /**
+     * Get whether this receipt was written for an artifact file that has not changed since, going by its size
+     * and modification time, and for the same project.
+     *
+     * <p>This avoids reading the artifact, but may miss an artifact that was rewritten with the same contents.</p>
+     *
+     * @param endpoint the Ore endpoint
+     * @param projectId the project ID
+     * @param size the artifact's size in bytes
+     * @param lastModified the artifact's modification time in milliseconds since the epoch
+     * @return whether the receipt matches
+     */
+    public boolean matchesFile(final String endpoint, final String projectId, final long size, final long lastModified) {
+        return endpoint.equals(this.endpoint) && projectId.equals(this.projectId) && size == this.size && lastModified == this.lastModified;
+    }
+
+}
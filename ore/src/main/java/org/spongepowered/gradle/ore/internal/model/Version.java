@@ -24,5 +24,59 @@
  */
 package org.spongepowered.gradle.ore.internal.model;
 
+import com.google.gson.annotations.SerializedName;
+import org.jetbrains.annotations.Nullable;
+
 public class Version {
+
+    private final String name;
+    @SerializedName("created_at")
+    private final String createdAt;
+    @SerializedName("file_info")
+    private final @Nullable FileInfo fileInfo;
+
+    public Version(final String name, final String createdAt, final @Nullable FileInfo fileInfo) {
+        this.name = name;
+        this.createdAt = createdAt;
+        this.fileInfo = fileInfo;
+    }
+
+    public String name() {
+        return this.name;
+    }
+
+    public String createdAt() {
+        return this.createdAt;
+    }
+
+    public @Nullable FileInfo fileInfo() {
+        return this.fileInfo;
+    }
+
+    public static class FileInfo {
+        private final String name;
+        @SerializedName("size_bytes")
+        private final long sizeBytes;
+        @SerializedName("md5_hash")
+        private final String md5Hash;
+
+        public FileInfo(final String name, final long sizeBytes, final String md5Hash) {
+            this.name = name;
+            this.sizeBytes = sizeBytes;
+            this.md5Hash = md5Hash;
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public long sizeBytes() {
+            return this.sizeBytes;
+        }
+
+        public String md5Hash() {
+            return this.md5Hash;
+        }
+    }
+
 }
@@ -0,0 +1,126 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.work;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.SetProperty;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.gradle.ore.internal.OreSession;
+import org.spongepowered.gradle.ore.internal.model.KeyPermissions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public abstract class CheckPermissionsAction extends OreWorkAction<CheckPermissionsAction.Parameters> {
+
+    private static final Logger LOGGER = Logging.getLogger(CheckPermissionsAction.class);
+
+    public interface Parameters extends OreWorkAction.Parameters {
+        SetProperty<String> getProjectIds();
+
+        SetProperty<String> getRequiredPermissions();
+    }
+
+    @Override
+    public void execute() {
+        final Parameters params = this.getParameters();
+        final List<String> required = new ArrayList<>(params.getRequiredPermissions().get());
+        final Collection<String> projectIds = params.getProjectIds().get();
+
+        this.responseOrThrow(
+            CheckPermissionsAction.verify(this.session(), projectIds, required),
+            "check permissions for " + projectIds.size() + " Ore project(s)"
+        );
+        LOGGER.info("Verified Ore permissions {} for projects {}", required, projectIds);
+    }
+
+    /**
+     * Check that an API key holds the required permissions for every project.
+     *
+     * <p>All projects are queried at once. If any are missing permissions, the returned future
+     * fails with a single exception describing every problem.</p>
+     *
+     * @param session the session to query permissions with
+     * @param projectIds the projects to check
+     * @param required the permissions required for every project
+     * @return a future completing once all projects have been checked
+     */
+    public static CompletableFuture<Void> verify(
+        final CompletableFuture<OreSession> session,
+        final Collection<String> projectIds,
+        final Collection<String> required
+    ) {
+        // Query every project at once, collecting a problem description (or null) for each
+        final Map<String, CompletableFuture<@Nullable String>> results = new LinkedHashMap<>();
+        for (final String projectId : projectIds) {
+            results.put(projectId, session.thenCompose(api -> api.projectPermissions(projectId)).handle((perms, err) -> {
+                if (err != null) {
+                    final Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                    return "unable to query permissions: " + cause.getMessage();
+                }
+                return CheckPermissionsAction.missingPermissions(perms, required);
+            }));
+        }
+
+        return CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            final List<String> problems = new ArrayList<>();
+            for (final Map.Entry<String, CompletableFuture<@Nullable String>> result : results.entrySet()) {
+                final @Nullable String problem = result.getValue().join();
+                if (problem != null) {
+                    problems.add("  - " + result.getKey() + ": " + problem);
+                }
+            }
+
+            if (!problems.isEmpty()) {
+                throw new GradleException(
+                    "The configured Ore API key cannot publish to " + problems.size() + " of " + results.size() + " project(s):"
+                        + System.lineSeparator() + String.join(System.lineSeparator(), problems)
+                );
+            }
+        });
+    }
+
+    private static @Nullable String missingPermissions(final KeyPermissions perms, final Collection<String> required) {
+        final List<String> missing = new ArrayList<>();
+        for (final String permission : required) {
+            if (perms.permissions() == null || !perms.permissions().contains(permission)) {
+                missing.add(permission);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return null;
+        }
+        return "missing permission(s) " + String.join(", ", missing);
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.work;
+
+import com.google.gson.JsonParseException;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.MapProperty;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.gradle.ore.internal.OreSession;
+import org.spongepowered.gradle.ore.internal.model.Version;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fetch plugin files from Ore into a shared cache, and copy them into a directory.
+ *
+ * <p>Files are stored by MD5 digest, which Ore reports for every version, so a file is
+ * verified on download and again whenever it is reused, and shared between every project
+ * that uses it. A small index maps each plugin version to its digest, so cached versions
+ * need no requests at all.</p>
+ *
+ * <p>The files provided are recorded in a manifest in the destination directory, so files
+ * left behind by a previous version of a dependency can be removed.</p>
+ */
+public abstract class DownloadDependenciesAction extends OreWorkAction<DownloadDependenciesAction.Parameters> {
+
+    private static final Logger LOGGER = Logging.getLogger(DownloadDependenciesAction.class);
+    private static final String FILES_DIRECTORY = "files";
+    private static final String INDEX_DIRECTORY = "versions";
+    private static final String MANIFEST = ".ore-dependencies";
+
+    public interface Parameters extends OreWorkAction.Parameters {
+        /**
+         * Plugin versions to fetch, from plugin ID to version name.
+         *
+         * @return the dependencies
+         */
+        MapProperty<String, String> getDependencies();
+
+        DirectoryProperty getCacheDirectory();
+
+        DirectoryProperty getDestinationDirectory();
+    }
+
+    @Override
+    public void execute() {
+        final Parameters params = this.getParameters();
+        final Path cache = params.getCacheDirectory().get().getAsFile().toPath();
+        final Path destination = params.getDestinationDirectory().get().getAsFile().toPath();
+        try {
+            Files.createDirectories(destination);
+        } catch (final IOException ex) {
+            throw new GradleException("Failed to create plugin directory " + destination, ex);
+        }
+
+        // Fetch every plugin at once, collecting a problem description (or null) for each.
+        // A session is only opened if something actually needs fetching.
+        @Nullable CompletableFuture<OreSession> session = null;
+        final Map<String, CompletableFuture<@Nullable String>> results = new LinkedHashMap<>();
+        final Set<String> provided = ConcurrentHashMap.newKeySet();
+        for (final Map.Entry<String, String> dependency : params.getDependencies().get().entrySet()) {
+            final String pluginId = dependency.getKey();
+            final String version = dependency.getValue();
+            final Version.@Nullable FileInfo cached = DownloadDependenciesAction.cachedFile(cache, pluginId, version);
+            final CompletableFuture<Version.FileInfo> file;
+            if (cached != null) {
+                file = CompletableFuture.completedFuture(cached);
+            } else {
+                if (session == null) {
+                    session = this.session();
+                }
+                file = session.thenCompose(api -> DownloadDependenciesAction.fetch(api, cache, pluginId, version));
+            }
+            results.put(pluginId + ' ' + version, file.thenApply(info -> DownloadDependenciesAction.copy(cache, info, destination)).handle((copied, err) -> {
+                if (err != null) {
+                    final Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                    return cause.getMessage();
+                }
+                provided.add(copied.getFileName().toString());
+                LOGGER.info("Provided {} {} as {}", pluginId, version, copied);
+                return null;
+            }));
+        }
+
+        this.responseOrThrow(
+            CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0])),
+            "download " + results.size() + " plugin(s) from Ore"
+        );
+
+        final List<String> problems = new ArrayList<>();
+        for (final Map.Entry<String, CompletableFuture<@Nullable String>> result : results.entrySet()) {
+            final @Nullable String problem = result.getValue().join();
+            if (problem != null) {
+                problems.add("  - " + result.getKey() + ": " + problem);
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new GradleException(
+                "Failed to provide " + problems.size() + " of " + results.size() + " plugin(s) from Ore:"
+                    + System.lineSeparator() + String.join(System.lineSeparator(), problems)
+            );
+        }
+
+        DownloadDependenciesAction.removeStaleFiles(destination, provided);
+    }
+
+    /**
+     * Remove files provided by a previous run that are no longer needed, and record the files now provided.
+     *
+     * <p>Only files listed in the manifest are removed, so anything else in the directory is left alone.</p>
+     *
+     * @param destination the destination directory
+     * @param provided the names of the files now provided
+     */
+    private static void removeStaleFiles(final Path destination, final Set<String> provided) {
+        final Path manifest = destination.resolve(DownloadDependenciesAction.MANIFEST);
+        try {
+            if (Files.exists(manifest)) {
+                for (final String previous : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                    if (previous.isEmpty() || provided.contains(previous) || !previous.equals(DownloadDependenciesAction.safeName(previous))) {
+                        continue;
+                    }
+                    if (Files.deleteIfExists(destination.resolve(previous))) {
+                        LOGGER.info("Removed {}, which is no longer a dependency", previous);
+                    }
+                }
+            }
+            Files.write(manifest, new TreeSet<>(provided), StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            throw new GradleException("Failed to update the record of plugins provided in " + destination, ex);
+        }
+    }
+
+    /**
+     * Find an already-downloaded file for a plugin version.
+     *
+     * @param cache the cache directory
+     * @param pluginId the plugin ID
+     * @param version the version name
+     * @return the cached file's description, if present and intact
+     */
+    private static Version.@Nullable FileInfo cachedFile(final Path cache, final String pluginId, final String version) {
+        final Path index = DownloadDependenciesAction.indexFile(cache, pluginId, version);
+        final Version.FileInfo info;
+        try (final Reader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            info = OreSession.GSON.fromJson(reader, Version.FileInfo.class);
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException | JsonParseException ex) {
+            LOGGER.debug("Ignoring unreadable Ore plugin index {}", index, ex);
+            return null;
+        }
+
+        if (info == null || info.md5Hash() == null || info.name() == null) {
+            return null;
+        }
+        return DownloadDependenciesAction.isIntact(DownloadDependenciesAction.blobFile(cache, info), info) ? info : null;
+    }
+
+    /**
+     * Check a cached file against the digest it is stored under, discarding it if it has been modified.
+     *
+     * @param blob the cached file
+     * @param info the description of the file
+     * @return whether the file is present and matches
+     */
+    private static boolean isIntact(final Path blob, final Version.FileInfo info) {
+        if (!Files.isRegularFile(blob)) {
+            return false;
+        }
+        try {
+            if (DownloadDependenciesAction.matches(blob, info)) {
+                return true;
+            }
+            LOGGER.warn("Discarding {} from the Ore plugin cache, as it does not match its MD5 digest", blob);
+            Files.delete(blob);
+        } catch (final IOException ex) {
+            LOGGER.debug("Unable to verify {} in the Ore plugin cache", blob, ex);
+        }
+        return false;
+    }
+
+    private static boolean matches(final Path file, final Version.FileInfo info) throws IOException {
+        return Files.size(file) == info.sizeBytes() && info.md5Hash().equalsIgnoreCase(DownloadDependenciesAction.md5(file));
+    }
+
+    private static String md5(final Path file) throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is required to be supported by every JVM", ex);
+        }
+
+        try (final InputStream is = Files.newInputStream(file)) {
+            final byte[] buf = new byte[8192];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                md5.update(buf, 0, read);
+            }
+        }
+        return PublishVersionAction.toHex(md5.digest());
+    }
+
+    private static CompletableFuture<Version.FileInfo> fetch(final OreSession api, final Path cache, final String pluginId, final String version) {
+        return api.version(pluginId, version).thenCompose(info -> {
+            final Version.@Nullable FileInfo file = info.fileInfo();
+            if (file == null || file.md5Hash() == null || file.name() == null) {
+                throw new GradleException("Ore did not describe the file of " + pluginId + " version " + version);
+            }
+
+            final Path blob = DownloadDependenciesAction.blobFile(cache, file);
+            if (DownloadDependenciesAction.isIntact(blob, file)) {
+                // already downloaded for another plugin or version
+                DownloadDependenciesAction.writeIndex(cache, pluginId, version, file);
+                return CompletableFuture.completedFuture(file);
+            }
+
+            final Path partial;
+            try {
+                Files.createDirectories(blob.getParent());
+                partial = Files.createTempFile(blob.getParent(), file.name(), ".part");
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            LOGGER.lifecycle("Downloading {} {} from Ore", pluginId, version);
+            return api.downloadVersion(pluginId, version, partial).handle((md5, err) -> {
+                try {
+                    if (err != null) {
+                        throw err instanceof CompletionException ? (CompletionException) err : new CompletionException(err);
+                    } else if (!file.md5Hash().equalsIgnoreCase(md5)) {
+                        throw new GradleException("Downloaded file has MD5 " + md5 + " but Ore reports " + file.md5Hash());
+                    }
+                    Files.move(partial, blob, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final FileAlreadyExistsException ex) {
+                    // another build stored the same file first
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                } finally {
+                    try {
+                        Files.deleteIfExists(partial);
+                    } catch (final IOException ignored) {
+                        // will be overwritten or left behind in the cache
+                    }
+                }
+                DownloadDependenciesAction.writeIndex(cache, pluginId, version, file);
+                return file;
+            });
+        });
+    }
+
+    /**
+     * Copy a cached file into the destination directory, unless an identical file is already present.
+     *
+     * <p>The file is copied rather than linked, so changes made in the destination
+     * directory cannot reach the shared cache.</p>
+     *
+     * @param cache the cache directory
+     * @param info the description of the file
+     * @param destinationDirectory the directory to place the file in
+     * @return the copied file
+     */
+    private static Path copy(final Path cache, final Version.FileInfo info, final Path destinationDirectory) {
+        final Path file = DownloadDependenciesAction.blobFile(cache, info);
+        final Path target = destinationDirectory.resolve(file.getFileName().toString());
+        try {
+            if (Files.isRegularFile(target) && DownloadDependenciesAction.matches(target, info)) {
+                return target;
+            }
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return target;
+    }
+
+    private static Path blobFile(final Path cache, final Version.FileInfo info) {
+        return cache.resolve(DownloadDependenciesAction.FILES_DIRECTORY)
+            .resolve(info.md5Hash().toLowerCase(Locale.ROOT))
+            .resolve(DownloadDependenciesAction.safeName(info.name()));
+    }
+
+    private static Path indexFile(final Path cache, final String pluginId, final String version) {
+        return cache.resolve(DownloadDependenciesAction.INDEX_DIRECTORY)
+            .resolve(DownloadDependenciesAction.safeName(pluginId))
+            .resolve(DownloadDependenciesAction.safeName(version) + ".json");
+    }
+
+    private static void writeIndex(final Path cache, final String pluginId, final String version, final Version.FileInfo info) {
+        final Path index = DownloadDependenciesAction.indexFile(cache, pluginId, version);
+        try {
+            Files.createDirectories(index.getParent());
+            final Path temp = Files.createTempFile(index.getParent(), index.getFileName().toString(), ".tmp");
+            try (final Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                OreSession.GSON.toJson(info, writer);
+            }
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException ex) {
+            LOGGER.warn("Failed to record {} {} in the Ore plugin cache", pluginId, version, ex);
+        }
+    }
+
+    private static String safeName(final String name) {
+        return name.replaceAll("[^A-Za-z0-9._+-]", "_");
+    }
+
+}
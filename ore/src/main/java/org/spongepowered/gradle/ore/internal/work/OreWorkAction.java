@@ -0,0 +1,105 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.work;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.spongepowered.gradle.ore.internal.OreSession;
+import org.spongepowered.gradle.ore.internal.OreSessionService;
+import org.spongepowered.gradle.ore.internal.http.HttpOptions;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A unit of work that performs requests against the Ore API.
+ *
+ * <p>Running Ore requests as work items lets a task's action complete while the
+ * request is in flight, so other tasks in the same project can proceed.</p>
+ *
+ * @param <P> the parameters type
+ */
+public abstract class OreWorkAction<P extends OreWorkAction.Parameters> implements WorkAction<P> {
+
+    public interface Parameters extends WorkParameters {
+        Property<OreSessionService> getOreSessions();
+
+        Property<String> getOreEndpoint();
+
+        Property<String> getOreApiKey();
+
+        Property<Duration> getConnectTimeout();
+
+        Property<Duration> getReadTimeout();
+
+        Property<Duration> getRequestTimeout();
+
+        Property<String> getTaskPath();
+    }
+
+    protected CompletableFuture<OreSession> session() {
+        final P params = this.getParameters();
+        return params.getOreSessions().get().session(
+            params.getOreApiKey().getOrElse(""), // an empty key requests a public session
+            params.getOreEndpoint().get(),
+            new HttpOptions(params.getConnectTimeout().get(), params.getReadTimeout().get())
+        );
+    }
+
+    /**
+     * Wait for an Ore request to complete, rethrowing any error as a build failure.
+     *
+     * @param request the request
+     * @param description a description of the operation, for error messages
+     * @param <V> the response type
+     * @return the response
+     */
+    protected <V> V responseOrThrow(final CompletableFuture<V> request, final String description) {
+        final Duration timeout = this.getParameters().getRequestTimeout().get();
+        final String taskPath = this.getParameters().getTaskPath().get();
+        try {
+            return request.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof GradleException) {
+                throw (GradleException) ex.getCause();
+            } else {
+                throw new GradleException("Failed to " + description + " in " + taskPath + ": " + ex.getCause().getMessage(), ex.getCause());
+            }
+        } catch (final InterruptedException ex) {
+            request.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while waiting to " + description + " in " + taskPath, ex);
+        } catch (final TimeoutException ex) {
+            request.cancel(true);
+            throw new GradleException("Timed out after " + timeout + " waiting to " + description + " in " + taskPath);
+        }
+    }
+
+}
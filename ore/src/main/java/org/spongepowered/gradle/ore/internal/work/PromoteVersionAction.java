@@ -0,0 +1,93 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.work;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.gradle.ore.internal.model.DeployVersionInfo;
+import org.spongepowered.gradle.ore.internal.model.EditVersionInfo;
+import org.spongepowered.gradle.ore.internal.model.PublishReceipt;
+
+import java.util.Collections;
+
+public abstract class PromoteVersionAction extends OreWorkAction<PromoteVersionAction.Parameters> {
+
+    private static final Logger LOGGER = Logging.getLogger(PromoteVersionAction.class);
+
+    public interface Parameters extends OreWorkAction.Parameters {
+        Property<String> getProjectId();
+
+        Property<String> getChannel();
+
+        /**
+         * The version to promote, when not taken from a receipt.
+         *
+         * @return the version name
+         */
+        Property<String> getVersionName();
+
+        RegularFileProperty getReceipt();
+    }
+
+    @Override
+    public void execute() {
+        final Parameters params = this.getParameters();
+        final String projectId = params.getProjectId().get();
+        final String channel = params.getChannel().get();
+        final String versionName = this.versionName(projectId);
+
+        this.responseOrThrow(this.session().thenCompose(api -> api.editVersion(
+            projectId,
+            versionName,
+            new EditVersionInfo(Collections.singletonMap(DeployVersionInfo.TAG_CHANNEL, Collections.singletonList(channel)))
+        )), "move version " + versionName + " of Ore project " + projectId + " to channel " + channel);
+
+        LOGGER.lifecycle("Moved version {} of Ore project {} to channel {}", versionName, projectId, channel);
+    }
+
+    private String versionName(final String projectId) {
+        final Parameters params = this.getParameters();
+        if (params.getVersionName().isPresent()) {
+            return params.getVersionName().get();
+        }
+
+        final @Nullable PublishReceipt receipt = params.getReceipt().isPresent()
+            ? PublishVersionAction.readReceipt(params.getReceipt().get().getAsFile().toPath())
+            : null;
+        if (receipt == null) {
+            throw new GradleException("No version of Ore project " + projectId + " has been published from this build. "
+                + "Publish one first, or choose a version with --version-name");
+        } else if (!receipt.endpoint().equals(params.getOreEndpoint().get()) || !receipt.projectId().equals(projectId)) {
+            throw new GradleException("The last published version was for Ore project " + receipt.projectId() + " at " + receipt.endpoint()
+                + ", not " + projectId + ". Choose a version with --version-name");
+        }
+        return receipt.versionName();
+    }
+
+}
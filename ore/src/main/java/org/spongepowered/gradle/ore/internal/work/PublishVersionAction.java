@@ -0,0 +1,289 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.internal.work;
+
+import com.google.gson.JsonParseException;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.gradle.ore.internal.OreSession;
+import org.spongepowered.gradle.ore.internal.model.DeployVersionInfo;
+import org.spongepowered.gradle.ore.internal.model.PaginatedResult;
+import org.spongepowered.gradle.ore.internal.model.PublishReceipt;
+import org.spongepowered.gradle.ore.internal.model.Version;
+import org.spongepowered.gradle.ore.task.CheckOrePermissions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public abstract class PublishVersionAction extends OreWorkAction<PublishVersionAction.Parameters> {
+
+    private static final Logger LOGGER = Logging.getLogger(PublishVersionAction.class);
+
+    /**
+     * The number of recent versions to check for an existing upload of an artifact.
+     */
+    private static final int RECENT_VERSIONS_TO_CHECK = 25;
+
+    public interface Parameters extends OreWorkAction.Parameters {
+        Property<String> getProjectId();
+
+        Property<Boolean> getCreateForumPost();
+
+        Property<String> getVersionBody();
+
+        Property<String> getChannel();
+
+        RegularFileProperty getArtifact();
+
+        RegularFileProperty getReceipt();
+
+        SetProperty<String> getCheckedProjectIds();
+    }
+
+    @Override
+    public void execute() {
+        final Parameters params = this.getParameters();
+        final String endpoint = params.getOreEndpoint().get();
+        final String projectId = params.getProjectId().get();
+        final @Nullable String channel = params.getChannel().getOrNull();
+        final Path artifact = params.getArtifact().get().getAsFile().toPath();
+        final Path receiptFile = params.getReceipt().get().getAsFile().toPath();
+
+        final String[] digests = PublishVersionAction.digests(artifact);
+        final String sha256 = digests[0];
+        final String md5 = digests[1];
+
+        final @Nullable PublishReceipt previous = PublishVersionAction.readReceipt(receiptFile);
+        if (previous != null && previous.matches(endpoint, projectId, sha256)) {
+            LOGGER.lifecycle("{} was already published to Ore project {} as version {}", artifact.getFileName(), projectId, previous.versionName());
+            return;
+        }
+
+        this.checkPermissions();
+
+        final @Nullable Version existing = this.findExistingVersion(projectId, md5);
+        if (existing != null) {
+            LOGGER.lifecycle("{} is already present in Ore project {} as version {}, skipping upload", artifact.getFileName(), projectId, existing.name());
+            PublishVersionAction.writeReceipt(receiptFile, PublishVersionAction.receipt(endpoint, projectId, existing.name(), artifact, sha256, md5));
+            return;
+        }
+
+        final Version result = this.responseOrThrow(this.session().thenCompose(api -> api.publishVersion(
+            projectId,
+            new DeployVersionInfo(
+                params.getVersionBody().get(),
+                params.getCreateForumPost().get(),
+                Collections.singletonMap(DeployVersionInfo.TAG_CHANNEL, Collections.singletonList(channel))
+            ),
+            artifact
+        )), "publish a version to Ore project " + projectId);
+
+        LOGGER.lifecycle("Published {} to Ore project {} as version {}", artifact.getFileName(), projectId, result.name());
+        PublishVersionAction.writeReceipt(receiptFile, PublishVersionAction.receipt(endpoint, projectId, result.name(), artifact, sha256, md5));
+    }
+
+    /**
+     * Check permissions for every project published to by the build, before the first upload.
+     *
+     * <p>The check is shared between publications, and is only made by publications that
+     * still have something to upload.</p>
+     */
+    private void checkPermissions() {
+        final Parameters params = this.getParameters();
+        final Set<String> projectIds = params.getCheckedProjectIds().get();
+        if (projectIds.isEmpty()) {
+            return;
+        }
+
+        this.responseOrThrow(
+            params.getOreSessions().get().checkPermissionsOnce(
+                params.getOreApiKey().getOrElse(""),
+                params.getOreEndpoint().get(),
+                projectIds,
+                () -> CheckPermissionsAction.verify(this.session(), projectIds, Collections.singleton(CheckOrePermissions.CREATE_VERSION))
+            ),
+            "check permissions for " + projectIds.size() + " Ore project(s)"
+        );
+    }
+
+    /**
+     * Look for a recent version of the project whose file matches the artifact being published.
+     *
+     * <p>Ore only exposes MD5 digests of uploaded files. Failing to query versions is not fatal,
+     * as any genuine problem with the project will be reported by the upload itself.</p>
+     *
+     * @param projectId the project to search
+     * @param md5 the MD5 digest of the artifact
+     * @return a matching version, if any
+     */
+    private @Nullable Version findExistingVersion(final String projectId, final String md5) {
+        final CompletableFuture<PaginatedResult<Version>> request = this.session()
+            .thenCompose(api -> api.projectVersions(projectId, PublishVersionAction.RECENT_VERSIONS_TO_CHECK, 0));
+        final PaginatedResult<Version> versions;
+        try {
+            versions = this.responseOrThrow(request, "list versions of Ore project " + projectId);
+        } catch (final GradleException ex) {
+            LOGGER.info("Unable to check for an existing upload, continuing with publication", ex);
+            return null;
+        }
+
+        if (versions == null || versions.result() == null) {
+            return null;
+        }
+
+        for (final Version version : versions.result()) {
+            final Version.@Nullable FileInfo file = version.fileInfo();
+            if (file != null && md5.equalsIgnoreCase(file.md5Hash())) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get whether an artifact file is unchanged since it was published, according to its receipt.
+     *
+     * <p>A publication in this state makes no requests to Ore when it runs. Only the size and
+     * modification time of the artifact are compared, so this is cheap enough to check
+     * while the build is being configured.</p>
+     *
+     * @param endpoint the Ore endpoint
+     * @param projectId the project ID
+     * @param artifact the artifact to publish
+     * @param receiptFile the receipt written when the publication last ran
+     * @return whether the receipt matches the artifact
+     */
+    public static boolean isPublished(final String endpoint, final String projectId, final Path artifact, final Path receiptFile) {
+        final @Nullable PublishReceipt receipt = PublishVersionAction.readReceipt(receiptFile);
+        if (receipt == null) {
+            return false;
+        }
+        try {
+            return receipt.matchesFile(endpoint, projectId, Files.size(artifact), Files.getLastModifiedTime(artifact).toMillis());
+        } catch (final IOException ex) {
+            return false;
+        }
+    }
+
+    private static PublishReceipt receipt(
+        final String endpoint,
+        final String projectId,
+        final String versionName,
+        final Path artifact,
+        final String sha256,
+        final String md5
+    ) {
+        try {
+            return new PublishReceipt(
+                endpoint,
+                projectId,
+                versionName,
+                sha256,
+                md5,
+                Files.size(artifact),
+                Files.getLastModifiedTime(artifact).toMillis()
+            );
+        } catch (final IOException ex) {
+            throw new GradleException("Failed to read artifact " + artifact + " to publish", ex);
+        }
+    }
+
+    static @Nullable PublishReceipt readReceipt(final Path file) {
+        try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return OreSession.GSON.fromJson(reader, PublishReceipt.class);
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException | JsonParseException ex) {
+            LOGGER.debug("Ignoring unreadable Ore publication receipt {}", file, ex);
+            return null;
+        }
+    }
+
+    private static void writeReceipt(final Path file, final PublishReceipt receipt) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                OreSession.GSON.toJson(receipt, writer);
+            }
+        } catch (final IOException ex) {
+            throw new GradleException("Failed to write Ore publication receipt to " + file, ex);
+        }
+    }
+
+    /**
+     * Compute the SHA-256 and MD5 digests of a file in a single pass.
+     *
+     * @param file the file to digest
+     * @return the hex-encoded SHA-256 and MD5 digests, in that order
+     */
+    private static String[] digests(final Path file) {
+        final MessageDigest sha256;
+        final MessageDigest md5;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 and MD5 are required to be supported by every JVM", ex);
+        }
+
+        try (final InputStream is = Files.newInputStream(file)) {
+            final byte[] buf = new byte[8192];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                sha256.update(buf, 0, read);
+                md5.update(buf, 0, read);
+            }
+        } catch (final IOException ex) {
+            throw new GradleException("Failed to read artifact " + file + " to publish", ex);
+        }
+        return new String[] {PublishVersionAction.toHex(sha256.digest()), PublishVersionAction.toHex(md5.digest())};
+    }
+
+    static String toHex(final byte[] bytes) {
+        final char[] hex = "0123456789abcdef".toCharArray();
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(hex[(b >> 4) & 0xf]).append(hex[b & 0xf]);
+        }
+        return builder.toString();
+    }
+
+}
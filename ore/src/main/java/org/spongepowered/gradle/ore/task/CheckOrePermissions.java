@@ -0,0 +1,86 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.task;
+
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+import org.spongepowered.gradle.ore.internal.work.CheckPermissionsAction;
+
+import java.util.Collections;
+
+/**
+ * Verify that the configured API key holds the permissions required to
+ * publish to every project.
+ *
+ * <p>All projects are checked at once, and every failure is reported together.
+ * Publishing performs the same check before its first upload, so this task
+ * is only needed to check permissions without publishing.</p>
+ *
+ * @since 2.3.0
+ */
+public abstract class CheckOrePermissions extends OreTask {
+
+    /**
+     * The permission required to publish a new version of a project.
+     */
+    public static final String CREATE_VERSION = "create_version";
+
+    public CheckOrePermissions() {
+        this.getRequiredPermissions().convention(Collections.singleton(CheckOrePermissions.CREATE_VERSION));
+    }
+
+    /**
+     * The IDs of the projects to check.
+     *
+     * @return the project IDs
+     */
+    @Input
+    public abstract SetProperty<String> getProjectIds();
+
+    /**
+     * The permissions the API key must hold for every project.
+     *
+     * <p>Default: {@value #CREATE_VERSION}</p>
+     *
+     * @return the required permissions
+     */
+    @Input
+    public abstract SetProperty<String> getRequiredPermissions();
+
+    @TaskAction
+    public void checkPermissions() {
+        if (this.getProjectIds().get().isEmpty()) {
+            this.setDidWork(false);
+            return;
+        }
+
+        this.submit(CheckPermissionsAction.class, params -> {
+            params.getProjectIds().set(this.getProjectIds());
+            params.getRequiredPermissions().set(this.getRequiredPermissions());
+        });
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.task;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.spongepowered.gradle.ore.internal.work.DownloadDependenciesAction;
+
+/**
+ * Download plugins from Ore into a directory, such as the mods directory of a development server.
+ *
+ * <p>Files are kept in a shared cache, verified against the checksums Ore reports, and
+ * copied into the destination directory. Plugins already in the cache are provided without
+ * contacting Ore, and any others are downloaded at the same time.</p>
+ *
+ * @since 2.3.0
+ */
+public abstract class DownloadOreDependencies extends OreTask {
+
+    /**
+     * The API key to authenticate with.
+     *
+     * <p>Public plugins can be downloaded without an API key.</p>
+     *
+     * @return the API key
+     */
+    @Input
+    @Optional
+    @Override
+    public abstract Property<String> getOreApiKey();
+
+    /**
+     * The plugins to download, from plugin ID to exact version name.
+     *
+     * @return the dependencies
+     */
+    @Input
+    public abstract MapProperty<String, String> getDependencies();
+
+    /**
+     * The directory to cache downloaded files in, which may be shared between builds.
+     *
+     * @return the cache directory
+     */
+    @Internal
+    public abstract DirectoryProperty getCacheDirectory();
+
+    /**
+     * The directory to provide the plugin files in.
+     *
+     * <p>Files this task provided for dependencies that have since changed or been removed
+     * are deleted. Other files in this directory are left alone.</p>
+     *
+     * @return the destination directory
+     */
+    @Internal
+    public abstract DirectoryProperty getDestinationDirectory();
+
+    @TaskAction
+    public void download() {
+        if (this.getDependencies().get().isEmpty()) {
+            this.setDidWork(false);
+            return;
+        }
+
+        this.submit(DownloadDependenciesAction.class, params -> {
+            params.getDependencies().set(this.getDependencies());
+            params.getCacheDirectory().set(this.getCacheDirectory());
+            params.getDestinationDirectory().set(this.getDestinationDirectory());
+        });
+    }
+
+}
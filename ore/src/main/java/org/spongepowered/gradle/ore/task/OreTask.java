@@ -24,18 +24,18 @@
  */
 package org.spongepowered.gradle.ore.task;
 
+import org.gradle.api.Action;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.GradleException;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
-import org.spongepowered.gradle.ore.internal.OreSession;
+import org.gradle.workers.WorkerExecutor;
 import org.spongepowered.gradle.ore.internal.OreSessionService;
+import org.spongepowered.gradle.ore.internal.work.OreWorkAction;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.time.Duration;
+
+import javax.inject.Inject;
 
 public abstract class OreTask extends DefaultTask {
 
@@ -45,29 +45,59 @@ public abstract class OreTask extends DefaultTask {
     @Input
     public abstract Property<String> getOreApiKey();
 
+    /**
+     * The maximum time to wait for a connection to Ore to be established.
+     *
+     * @return the connect timeout
+     * @since 2.3.0
+     */
+    @Internal
+    public abstract Property<Duration> getConnectTimeout();
+
+    /**
+     * The maximum time to wait for data on an open connection to Ore.
+     *
+     * @return the read timeout
+     * @since 2.3.0
+     */
+    @Internal
+    public abstract Property<Duration> getReadTimeout();
+
+    /**
+     * The maximum time a single Ore operation may take.
+     *
+     * @return the request timeout
+     * @since 2.3.0
+     */
+    @Internal
+    public abstract Property<Duration> getRequestTimeout();
+
     @Internal
     public abstract Property<OreSessionService> getOreSessions();
 
-    protected CompletableFuture<OreSession> session() {
-        return this.getOreSessions().get().session(
-            this.getOreApiKey().get(),
-            this.getOreEndpoint().get()
-        );
-    }
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
 
-    protected <V> V responseOrThrow(final CompletableFuture<V> request) {
-        try {
-            return request.get(5, TimeUnit.MINUTES);
-        } catch (ExecutionException e) {
-            if (e.getCause() instanceof GradleException) {
-                throw (GradleException) e.getCause();
-            } else {
-                throw new GradleException("Failed to publish to Ore: " + e.getMessage(), e.getCause());
-            }
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (TimeoutException e) {
-            throw new GradleException("Ore API request in " + this.getName() + " timed out!");
-        }
+    /**
+     * Submit work that performs Ore requests.
+     *
+     * <p>The task action will complete immediately, with the build waiting on the work item
+     * before any dependent tasks execute.</p>
+     *
+     * @param action the work action type
+     * @param configureAction an action to set any additional parameters
+     * @param <P> the parameters type
+     */
+    protected <P extends OreWorkAction.Parameters> void submit(final Class<? extends OreWorkAction<P>> action, final Action<? super P> configureAction) {
+        this.getWorkerExecutor().noIsolation().submit(action, params -> {
+            params.getOreSessions().set(this.getOreSessions());
+            params.getOreEndpoint().set(this.getOreEndpoint());
+            params.getOreApiKey().set(this.getOreApiKey());
+            params.getConnectTimeout().set(this.getConnectTimeout());
+            params.getReadTimeout().set(this.getReadTimeout());
+            params.getRequestTimeout().set(this.getRequestTimeout());
+            params.getTaskPath().set(this.getPath());
+            configureAction.execute(params);
+        });
     }
 }
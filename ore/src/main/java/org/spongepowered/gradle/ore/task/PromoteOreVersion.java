@@ -0,0 +1,103 @@
+/*
+ * This file is part of spongegradle-ore, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.ore.task;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.spongepowered.gradle.ore.internal.work.PromoteVersionAction;
+
+/**
+ * Move an existing version of an Ore project to another channel.
+ *
+ * <p>Only the version's tags are changed, so the artifact is not uploaded again.</p>
+ *
+ * @since 2.3.0
+ */
+public abstract class PromoteOreVersion extends OreTask {
+
+    /**
+     * The channel versions are promoted to by default.
+     */
+    public static final String DEFAULT_CHANNEL = "Release";
+
+    public PromoteOreVersion() {
+        this.getChannel().convention(PromoteOreVersion.DEFAULT_CHANNEL);
+    }
+
+    /**
+     * The ID of the project the version belongs to.
+     *
+     * @return the project ID
+     */
+    @Input
+    public abstract Property<String> getProjectId();
+
+    /**
+     * The channel to move the version to.
+     *
+     * <p>Default: {@value #DEFAULT_CHANNEL}</p>
+     *
+     * @return the channel
+     */
+    @Input
+    @Option(option = "channel", description = "The channel to move the version to")
+    public abstract Property<String> getChannel();
+
+    /**
+     * The name of the version to promote.
+     *
+     * <p>When unset, the version most recently published by this build is promoted.</p>
+     *
+     * @return the version name
+     */
+    @Input
+    @Optional
+    @Option(option = "version-name", description = "The name of the version to promote, instead of the last one published")
+    public abstract Property<String> getVersionName();
+
+    /**
+     * The receipt written when the publication was last published, used when no version is chosen.
+     *
+     * @return the receipt file
+     */
+    @Internal
+    public abstract RegularFileProperty getReceipt();
+
+    @TaskAction
+    public void promote() {
+        this.submit(PromoteVersionAction.class, params -> {
+            params.getProjectId().set(this.getProjectId());
+            params.getChannel().set(this.getChannel());
+            params.getVersionName().set(this.getVersionName());
+            params.getReceipt().set(this.getReceipt());
+        });
+    }
+
+}
@@ -24,18 +24,15 @@
  */
 package org.spongepowered.gradle.ore.task;
 
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
-import org.jetbrains.annotations.Nullable;
 import org.spongepowered.gradle.ore.OrePublication;
-import org.spongepowered.gradle.ore.internal.OreSession;
-import org.spongepowered.gradle.ore.internal.model.DeployVersionInfo;
-import org.spongepowered.gradle.ore.internal.model.Version;
-
-import java.io.File;
-import java.util.Collections;
-import java.util.concurrent.CompletableFuture;
+import org.spongepowered.gradle.ore.internal.work.PublishVersionAction;
 
 /**
  * Publish an artifact to the Ore plugin repository.
@@ -45,26 +42,45 @@ public abstract class PublishToOreTask extends OreTask {
     @Nested
     public abstract Property<OrePublication> getPublication();
 
+    /**
+     * A receipt recording the artifact that was published, and the version it was published as.
+     *
+     * <p>While the receipt is present and the publication is unchanged, this task is up-to-date.
+     * When no receipt is present, Ore will be checked for an existing upload of the artifact
+     * before publishing it again.</p>
+     *
+     * @return the receipt file
+     * @since 2.3.0
+     */
+    @OutputFile
+    public abstract RegularFileProperty getReceipt();
+
+    /**
+     * The IDs of every project the build publishes to.
+     *
+     * <p>Before its first upload, the build checks that the API key can publish to all of these
+     * projects, and reports every problem at once. Publications that are already up to date
+     * do not check permissions.</p>
+     *
+     * @return the project IDs to check
+     * @since 2.3.0
+     */
+    @Internal
+    public abstract SetProperty<String> getCheckedProjectIds();
+
     @TaskAction
     public void doPublish() {
-        final CompletableFuture<OreSession> session = this.session();
-
         final OrePublication pub = this.getPublication().get();
-        final File toPublish = pub.getPublishArtifacts().getSingleFile();
-        final boolean createForumPost = pub.getCreateForumPost().get();
-        final String versionBody = pub.getVersionBody().get();
-        final @Nullable String channel = pub.getChannel().getOrNull();
 
-        // TODO: Log info about published version (like URL?)
-        final Version result = this.responseOrThrow(session.thenCompose(api -> api.publishVersion(
-            pub.getProjectId().get(),
-            new DeployVersionInfo(
-                versionBody,
-                createForumPost,
-                Collections.singletonMap("Channel", Collections.singletonList(channel))
-            ),
-            toPublish.toPath()
-        )));
+        this.submit(PublishVersionAction.class, params -> {
+            params.getProjectId().set(pub.getProjectId());
+            params.getCreateForumPost().set(pub.getCreateForumPost());
+            params.getVersionBody().set(pub.getVersionBody());
+            params.getChannel().set(pub.getChannel());
+            params.getArtifact().set(pub.getPublishArtifacts().getSingleFile());
+            params.getReceipt().set(this.getReceipt());
+            params.getCheckedProjectIds().set(this.getCheckedProjectIds());
+        });
     }
 
 }
@@ -25,23 +25,13 @@
 package org.spongepowered.gradle.ore.task;
 
 import org.gradle.api.tasks.TaskAction;
-import org.spongepowered.gradle.ore.internal.OreSession;
-import org.spongepowered.gradle.ore.internal.model.KeyPermissions;
-
-import java.util.concurrent.CompletableFuture;
+import org.spongepowered.gradle.ore.internal.work.ViewPermissionsAction;
 
 public abstract class ViewOrePermissions extends OreTask {
 
     @TaskAction
     void printOrePermissions() {
-        final CompletableFuture<OreSession> session = this.session();
-
-        final KeyPermissions perms = this.responseOrThrow(session.thenCompose(OreSession::globalPermissions));
-
-        this.getLogger().lifecycle("Your permissions (in scope {}) are:", perms.type());
-        for (final String permission : perms.permissions()) {
-            this.getLogger().lifecycle("  - {}", permission);
-        }
+        this.submit(ViewPermissionsAction.class, params -> {});
     }
 
 }
@@ -0,0 +1,981 @@
+/*
+ * This file is part of spongegradle-testlib, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.gradle.build.ore;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An embeddable stand-in for the Ore v2 API, for exercising HTTP clients without a live Ore.
+ *
+ * <p>The following endpoints are implemented, with enough fidelity for SpongeGradle's client:</p>
+ * <ul>
+ *     <li>{@code POST authenticate}</li>
+ *     <li>{@code DELETE sessions/current}</li>
+ *     <li>{@code GET permissions}</li>
+ *     <li>{@code GET projects/{id}/versions} and {@code POST projects/{id}/versions}</li>
+ *     <li>{@code GET projects/{id}/versions/{name}}, {@code PATCH projects/{id}/versions/{name}}
+ *     and {@code GET projects/{id}/versions/{name}/download}</li>
+ * </ul>
+ *
+ * <p>Gzip-compressed request bodies are decoded, and rejected with {@code 400 Bad Request} if invalid.</p>
+ *
+ * <p>Network conditions can be adjusted at any time: added latency, a bandwidth cap,
+ * injected {@code 401 Unauthorized} and {@code 503 Service Unavailable} responses,
+ * and connections closed without a response.</p>
+ */
+public final class FakeOreServer implements AutoCloseable {
+
+    public static final String API_PREFIX = "/api/v2/";
+    public static final String DEFAULT_API_KEY = "fake-ore-api-key";
+    public static final String CREATE_VERSION = "create_version";
+    public static final String VIEW_PUBLIC_INFO = "view_public_info";
+    public static final String EDIT_TAGS = "edit_tags";
+
+    public static final String ENDPOINT_AUTHENTICATE = "authenticate";
+    public static final String ENDPOINT_SESSIONS = "sessions";
+    public static final String ENDPOINT_PERMISSIONS = "permissions";
+    public static final String ENDPOINT_VERSIONS = "versions";
+    public static final String ENDPOINT_UPLOAD = "upload";
+    public static final String ENDPOINT_VERSION = "version";
+    public static final String ENDPOINT_DOWNLOAD = "download";
+    public static final String ENDPOINT_EDIT_VERSION = "edit_version";
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final Pattern CHANNEL_TAG = Pattern.compile("\"Channel\"\\s*:\\s*\\[\\s*\"([^\"]*)\"");
+    private static final Pattern EXPIRES_IN = Pattern.compile("\"expires_in\"\\s*:\\s*(\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<String, Set<String>> apiKeys = new ConcurrentHashMap<>();
+    private final Map<String, Instant> sessions = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionKeys = new ConcurrentHashMap<>(); // session -> API key, empty for public sessions
+    private final Map<String, Project> projects = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile long bytesPerSecond;
+    private volatile Duration sessionDuration = Duration.ofHours(3);
+    private volatile boolean compressResponses;
+    private final AtomicInteger unauthorizedToInject = new AtomicInteger();
+    private final AtomicInteger resetsToInject = new AtomicInteger();
+    private final AtomicInteger unavailableToInject = new AtomicInteger();
+    private volatile Duration unavailableRetryAfter = Duration.ZERO;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger peakActiveRequests = new AtomicInteger();
+    private final AtomicInteger compressedRequests = new AtomicInteger();
+    private volatile @Nullable Duration requestedSessionDuration;
+
+    private FakeOreServer(final HttpServer server) {
+        this.server = server;
+        this.executor = Executors.newCachedThreadPool(task -> {
+            final Thread thread = new Thread(task, "fake-ore-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext(FakeOreServer.API_PREFIX, this::handle);
+        this.apiKey(FakeOreServer.DEFAULT_API_KEY, FakeOreServer.CREATE_VERSION, FakeOreServer.EDIT_TAGS, FakeOreServer.VIEW_PUBLIC_INFO);
+    }
+
+    /**
+     * Start a new server on an ephemeral port on the loopback interface.
+     *
+     * @return the running server
+     * @throws IOException if the server could not be bound
+     */
+    public static FakeOreServer start() throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        final FakeOreServer ore = new FakeOreServer(server);
+        server.start();
+        return ore;
+    }
+
+    /**
+     * The base URL of this server, suitable for use as an Ore endpoint.
+     *
+     * @return the endpoint
+     */
+    public String endpoint() {
+        final InetSocketAddress address = this.server.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + "/";
+    }
+
+    // -- Configuration -- //
+
+    /**
+     * Register an API key, granting it the provided permissions on every project.
+     *
+     * @param key the API key
+     * @param permissions the permissions granted
+     * @return this server
+     */
+    public FakeOreServer apiKey(final String key, final String... permissions) {
+        this.apiKeys.put(key, new LinkedHashSet<>(Arrays.asList(permissions)));
+        return this;
+    }
+
+    /**
+     * Create a project, if it does not already exist.
+     *
+     * @param projectId the project ID
+     * @return this server
+     */
+    public FakeOreServer project(final String projectId) {
+        this.projects.computeIfAbsent(projectId, Project::new);
+        return this;
+    }
+
+    /**
+     * Create a project with permissions that override those of any API key.
+     *
+     * @param projectId the project ID
+     * @param permissions the permissions any key holds on the project
+     * @return this server
+     */
+    public FakeOreServer project(final String projectId, final String... permissions) {
+        this.projects.computeIfAbsent(projectId, Project::new).permissions = new LinkedHashSet<>(Arrays.asList(permissions));
+        return this;
+    }
+
+    /**
+     * Add a version to a project, as if it had been uploaded.
+     *
+     * @param projectId the project ID
+     * @param name the version name
+     * @param fileName the name of the version's file
+     * @param contents the contents of the version's file
+     * @return this server
+     */
+    public FakeOreServer version(final String projectId, final String name, final String fileName, final byte[] contents) {
+        this.projects.computeIfAbsent(projectId, Project::new).versions.add(FakeOreServer.createVersion(name, fileName, contents));
+        return this;
+    }
+
+    /**
+     * Delay the handling of every request.
+     *
+     * @param latency the added latency
+     * @return this server
+     */
+    public FakeOreServer latency(final Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Cap the rate at which each request body is read, and each response body is written.
+     *
+     * @param bytesPerSecond the bandwidth, or {@code 0} for no limit
+     * @return this server
+     */
+    public FakeOreServer bandwidth(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Set the duration of newly created sessions.
+     *
+     * @param duration the session duration
+     * @return this server
+     */
+    public FakeOreServer sessionDuration(final Duration duration) {
+        this.sessionDuration = duration;
+        return this;
+    }
+
+    /**
+     * Gzip-compress response bodies for clients that accept it.
+     *
+     * @param compress whether to compress responses
+     * @return this server
+     */
+    public FakeOreServer compressResponses(final boolean compress) {
+        this.compressResponses = compress;
+        return this;
+    }
+
+    /**
+     * Reject the next authenticated requests with {@code 401 Unauthorized}, regardless of their session.
+     *
+     * @param count the number of requests to reject
+     * @return this server
+     */
+    public FakeOreServer injectUnauthorized(final int count) {
+        this.unauthorizedToInject.addAndGet(count);
+        return this;
+    }
+
+    /**
+     * Close the connection of the next requests without sending a response.
+     *
+     * @param count the number of requests to drop
+     * @return this server
+     */
+    public FakeOreServer injectConnectionResets(final int count) {
+        this.resetsToInject.addAndGet(count);
+        return this;
+    }
+
+    /**
+     * Respond to the next requests with {@code 503 Service Unavailable}.
+     *
+     * @param count the number of requests to reject
+     * @param retryAfter the delay to request in a {@code Retry-After} header, or zero to send none
+     * @return this server
+     */
+    public FakeOreServer injectUnavailable(final int count, final Duration retryAfter) {
+        this.unavailableRetryAfter = retryAfter;
+        this.unavailableToInject.addAndGet(count);
+        return this;
+    }
+
+    /**
+     * Invalidate every existing session.
+     *
+     * @return this server
+     */
+    public FakeOreServer expireSessions() {
+        this.sessions.clear();
+        return this;
+    }
+
+    // -- Inspection -- //
+
+    /**
+     * Get the number of requests received for an endpoint, including rejected requests.
+     *
+     * @param endpoint one of the {@code ENDPOINT_} constants
+     * @return the request count
+     */
+    public int requests(final String endpoint) {
+        final @Nullable AtomicInteger count = this.requestCounts.get(endpoint);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Get the number of sessions currently open.
+     *
+     * @return the open session count
+     */
+    public int openSessions() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Get the number of gzip-compressed request bodies that have been received and decoded.
+     *
+     * @return the compressed request count
+     */
+    public int compressedRequests() {
+        return this.compressedRequests.get();
+    }
+
+    /**
+     * Get the session duration requested by the most recent authentication.
+     *
+     * @return the requested duration, or {@code null} if no session has been requested
+     */
+    public @Nullable Duration requestedSessionDuration() {
+        return this.requestedSessionDuration;
+    }
+
+    /**
+     * Get the largest number of requests that have been handled at the same time.
+     *
+     * @return the peak concurrent request count
+     */
+    public int peakConcurrentRequests() {
+        return this.peakActiveRequests.get();
+    }
+
+    /**
+     * Get the versions that have been uploaded to a project, oldest first.
+     *
+     * @param projectId the project ID
+     * @return the versions
+     */
+    public List<Version> versions(final String projectId) {
+        final @Nullable Project project = this.projects.get(projectId);
+        return project == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(project.versions));
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -- Request handling -- //
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        this.peakActiveRequests.accumulateAndGet(this.activeRequests.incrementAndGet(), Math::max);
+        try {
+            if (this.resetsToInject.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                // closing before sending any headers drops the connection
+                this.count(FakeOreServer.endpointName(exchange));
+                return;
+            }
+
+            if (this.unavailableToInject.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                this.count(FakeOreServer.endpointName(exchange));
+                final Duration retryAfter = this.unavailableRetryAfter;
+                if (!retryAfter.isZero()) {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter.getSeconds()));
+                }
+                this.respond(exchange, 503, FakeOreServer.error("Ore is temporarily unavailable"));
+                return;
+            }
+
+            final Duration latency = this.latency;
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+
+            try {
+                this.route(exchange);
+            } catch (final BadRequestException ex) {
+                this.respond(exchange, 400, FakeOreServer.error(ex.getMessage()));
+            } catch (final RuntimeException ex) {
+                this.respond(exchange, 500, FakeOreServer.error(String.valueOf(ex)));
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.activeRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void route(final HttpExchange exchange) throws IOException, InterruptedException {
+        final String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+        final String path = exchange.getRequestURI().getPath().substring(FakeOreServer.API_PREFIX.length());
+        final String[] segments = path.split("/");
+        final String endpoint = FakeOreServer.endpointName(exchange);
+        this.count(endpoint);
+
+        if (path.equals(FakeOreServer.ENDPOINT_AUTHENTICATE) && method.equals("POST")) {
+            this.authenticate(exchange);
+            return;
+        }
+
+        final @Nullable String session = this.authenticatedSession(exchange);
+        if (session == null) {
+            this.respond(exchange, 401, FakeOreServer.error("Invalid session"));
+            return;
+        }
+
+        if (path.equals("sessions/current") && method.equals("DELETE")) {
+            this.sessions.remove(session);
+            this.sessionKeys.remove(session);
+            this.respond(exchange, 204, null);
+        } else if (path.equals(FakeOreServer.ENDPOINT_PERMISSIONS) && method.equals("GET")) {
+            this.permissions(exchange, session);
+        } else if (segments.length == 3 && segments[0].equals("projects") && segments[2].equals("versions")) {
+            final @Nullable Project project = this.projects.get(segments[1]);
+            if (project == null) {
+                this.respond(exchange, 404, FakeOreServer.error("Unknown project " + segments[1]));
+            } else if (method.equals("GET")) {
+                this.listVersions(exchange, project);
+            } else if (method.equals("POST")) {
+                this.upload(exchange, project, session);
+            } else {
+                this.respond(exchange, 405, FakeOreServer.error("Method not allowed"));
+            }
+        } else if ((segments.length == 4 || segments.length == 5 && segments[4].equals("download"))
+            && segments[0].equals("projects") && segments[2].equals("versions")) {
+            final @Nullable Project project = this.projects.get(segments[1]);
+            final @Nullable Version version = project == null ? null : project.version(segments[3]);
+            if (version == null) {
+                this.respond(exchange, 404, FakeOreServer.error("Unknown version " + segments[1] + " " + segments[3]));
+            } else if (segments.length == 5 && method.equals("GET")) {
+                this.respondBytes(exchange, 200, "application/java-archive", version.contents);
+            } else if (method.equals("GET")) {
+                this.respond(exchange, 200, version.toJson());
+            } else if (segments.length == 4 && method.equals("PATCH")) {
+                this.editVersion(exchange, project, version, session);
+            } else {
+                this.respond(exchange, 405, FakeOreServer.error("Method not allowed"));
+            }
+        } else {
+            this.respond(exchange, 404, FakeOreServer.error("Unknown endpoint " + method + " " + path));
+        }
+    }
+
+    private void authenticate(final HttpExchange exchange) throws IOException, InterruptedException {
+        final String body = new String(this.readBody(exchange), StandardCharsets.UTF_8);
+        final Matcher expiresIn = FakeOreServer.EXPIRES_IN.matcher(body);
+        if (!expiresIn.find()) {
+            this.respond(exchange, 400, FakeOreServer.error("Expected session properties"));
+            return;
+        }
+        this.requestedSessionDuration = Duration.ofSeconds(Long.parseLong(expiresIn.group(1)));
+
+        final @Nullable String apiKey = FakeOreServer.authorizationValue(exchange, "apikey");
+        final String type;
+        if (apiKey == null) {
+            type = "public";
+        } else if (this.apiKeys.containsKey(apiKey)) {
+            type = "key";
+        } else {
+            this.respond(exchange, 401, FakeOreServer.error("Invalid API key"));
+            return;
+        }
+
+        final String session = UUID.randomUUID().toString();
+        final Instant expires = Instant.now().plus(this.sessionDuration);
+        this.sessions.put(session, expires);
+        this.sessionKeys.put(session, apiKey == null ? "" : apiKey);
+        this.respond(exchange, 200, "{\"session\":" + FakeOreServer.quote(session)
+            + ",\"expires\":" + FakeOreServer.quote(OffsetDateTime.ofInstant(expires, ZoneOffset.UTC).toString())
+            + ",\"type\":" + FakeOreServer.quote(type) + "}");
+    }
+
+    private @Nullable String authenticatedSession(final HttpExchange exchange) {
+        final @Nullable String session = FakeOreServer.authorizationValue(exchange, "session");
+        if (session == null) {
+            return null;
+        }
+        if (this.unauthorizedToInject.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            return null;
+        }
+
+        final @Nullable Instant expiry = this.sessions.get(session);
+        if (expiry == null || !Instant.now().isBefore(expiry)) {
+            this.sessions.remove(session);
+            return null;
+        }
+        return session;
+    }
+
+    private Set<String> permissionsFor(final String session, final @Nullable Project project) {
+        final String key = this.sessionKeys.getOrDefault(session, "");
+        if (key.isEmpty()) {
+            return Collections.singleton(FakeOreServer.VIEW_PUBLIC_INFO);
+        }
+        if (project != null && project.permissions != null) {
+            return project.permissions;
+        }
+        return this.apiKeys.getOrDefault(key, Collections.emptySet());
+    }
+
+    private void permissions(final HttpExchange exchange, final String session) throws IOException, InterruptedException {
+        final Map<String, String> query = FakeOreServer.query(exchange);
+        final @Nullable String projectId = query.get("pluginId");
+        final @Nullable Project project;
+        if (projectId != null) {
+            project = this.projects.get(projectId);
+            if (project == null) {
+                this.respond(exchange, 404, FakeOreServer.error("Unknown project " + projectId));
+                return;
+            }
+        } else {
+            project = null;
+        }
+
+        final StringBuilder body = new StringBuilder("{\"type\":").append(FakeOreServer.quote(project == null ? "global" : "project"))
+            .append(",\"permissions\":[");
+        boolean first = true;
+        for (final String permission : this.permissionsFor(session, project)) {
+            if (!first) {
+                body.append(',');
+            }
+            first = false;
+            body.append(FakeOreServer.quote(permission));
+        }
+        body.append("]}");
+
+        final String etag = '"' + FakeOreServer.hex(FakeOreServer.digest("MD5", body.toString().getBytes(StandardCharsets.UTF_8))) + '"';
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            this.respond(exchange, 304, null);
+        } else {
+            this.respond(exchange, 200, body.toString());
+        }
+    }
+
+    private void listVersions(final HttpExchange exchange, final Project project) throws IOException, InterruptedException {
+        final Map<String, String> query = FakeOreServer.query(exchange);
+        final int limit = Integer.parseInt(query.getOrDefault("limit", "25"));
+        final int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+
+        final List<Version> versions = new ArrayList<>(project.versions);
+        Collections.reverse(versions); // most recent first
+        final StringBuilder body = new StringBuilder("{\"pagination\":{\"limit\":").append(limit)
+            .append(",\"offset\":").append(offset)
+            .append(",\"count\":").append(versions.size())
+            .append("},\"result\":[");
+        for (int i = offset; i < Math.min(versions.size(), offset + limit); i++) {
+            if (i != offset) {
+                body.append(',');
+            }
+            body.append(versions.get(i).toJson());
+        }
+        body.append("]}");
+        this.respond(exchange, 200, body.toString());
+    }
+
+    private void upload(final HttpExchange exchange, final Project project, final String session) throws IOException, InterruptedException {
+        final byte[] body = this.readBody(exchange);
+        if (!this.permissionsFor(session, project).contains(FakeOreServer.CREATE_VERSION)) {
+            this.respond(exchange, 403, FakeOreServer.error("Missing permission " + FakeOreServer.CREATE_VERSION));
+            return;
+        }
+
+        final @Nullable String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        final int boundaryIdx = contentType == null ? -1 : contentType.indexOf("boundary=");
+        if (boundaryIdx == -1) {
+            this.respond(exchange, 400, FakeOreServer.error("Expected a multipart body"));
+            return;
+        }
+        final String boundary = contentType.substring(boundaryIdx + "boundary=".length()).replace("\"", "");
+        final @Nullable Part file = FakeOreServer.findPart(body, boundary, "plugin-file");
+        final @Nullable Part info = FakeOreServer.findPart(body, boundary, "plugin-info");
+        if (file == null || info == null) {
+            this.respond(exchange, 400, FakeOreServer.error("Expected plugin-info and plugin-file parts"));
+            return;
+        }
+
+        final String fileName = file.fileName == null ? "plugin.jar" : file.fileName;
+        final String name = fileName.endsWith(".jar") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        final Version version = FakeOreServer.createVersion(name, fileName, file.contents);
+        version.channel = FakeOreServer.channelTag(new String(info.contents, StandardCharsets.UTF_8));
+        synchronized (project) {
+            for (final Version existing : project.versions) {
+                if (existing.name.equals(name)) {
+                    this.respond(exchange, 409, FakeOreServer.error("A version named " + name + " already exists"));
+                    return;
+                }
+            }
+            project.versions.add(version);
+        }
+        this.respond(exchange, 201, version.toJson());
+    }
+
+    private void editVersion(
+        final HttpExchange exchange,
+        final Project project,
+        final Version version,
+        final String session
+    ) throws IOException, InterruptedException {
+        final String body = new String(this.readBody(exchange), StandardCharsets.UTF_8);
+        if (!this.permissionsFor(session, project).contains(FakeOreServer.EDIT_TAGS)) {
+            this.respond(exchange, 403, FakeOreServer.error("Missing permission " + FakeOreServer.EDIT_TAGS));
+            return;
+        }
+
+        final @Nullable String channel = FakeOreServer.channelTag(body);
+        if (channel != null) {
+            version.channel = channel;
+        }
+        this.respond(exchange, 200, version.toJson());
+    }
+
+    // -- Helpers -- //
+
+    /**
+     * Find the channel in the tags of a version's JSON description.
+     */
+    private static @Nullable String channelTag(final String json) {
+        final Matcher matcher = FakeOreServer.CHANNEL_TAG.matcher(json);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Version createVersion(final String name, final String fileName, final byte[] contents) {
+        return new Version(
+            name,
+            OffsetDateTime.now(ZoneOffset.UTC).toString(),
+            fileName,
+            contents,
+            FakeOreServer.hex(FakeOreServer.digest("MD5", contents))
+        );
+    }
+
+    private void count(final String endpoint) {
+        this.requestCounts.computeIfAbsent(endpoint, $ -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static String endpointName(final HttpExchange exchange) {
+        final String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/versions")) {
+            return exchange.getRequestMethod().equalsIgnoreCase("POST") ? FakeOreServer.ENDPOINT_UPLOAD : FakeOreServer.ENDPOINT_VERSIONS;
+        } else if (path.contains("/versions/")) {
+            if (path.endsWith("/download")) {
+                return FakeOreServer.ENDPOINT_DOWNLOAD;
+            }
+            return exchange.getRequestMethod().equalsIgnoreCase("PATCH") ? FakeOreServer.ENDPOINT_EDIT_VERSION : FakeOreServer.ENDPOINT_VERSION;
+        }
+        final String relative = path.length() > FakeOreServer.API_PREFIX.length() ? path.substring(FakeOreServer.API_PREFIX.length()) : path;
+        final int slash = relative.indexOf('/');
+        return slash == -1 ? relative : relative.substring(0, slash);
+    }
+
+    private static @Nullable String authorizationValue(final HttpExchange exchange, final String parameter) {
+        final @Nullable String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("OreApi ")) {
+            return null;
+        }
+        final String prefix = parameter + "=\"";
+        final int start = header.indexOf(prefix);
+        if (start == -1) {
+            return null;
+        }
+        final int end = header.indexOf('"', start + prefix.length());
+        return end == -1 ? null : header.substring(start + prefix.length(), end);
+    }
+
+    private static Map<String, String> query(final HttpExchange exchange) throws UnsupportedEncodingException {
+        final @Nullable String raw = exchange.getRequestURI().getRawQuery();
+        final Map<String, String> result = new HashMap<>();
+        if (raw == null) {
+            return result;
+        }
+        for (final String pair : raw.split("&")) {
+            final int eq = pair.indexOf('=');
+            if (eq == -1) {
+                result.put(URLDecoder.decode(pair, "UTF-8"), "");
+            } else {
+                result.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return result;
+    }
+
+    private byte[] readBody(final HttpExchange exchange) throws IOException, InterruptedException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long start = System.nanoTime();
+        long total = 0;
+        final byte[] buf = new byte[FakeOreServer.CHUNK_SIZE];
+        try (final InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                out.write(buf, 0, read);
+                total += read;
+                this.throttle(start, total);
+            }
+        }
+
+        final @Nullable String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            return out.toByteArray();
+        } else if (!encoding.equalsIgnoreCase("gzip")) {
+            throw new BadRequestException("Unsupported content encoding " + encoding);
+        }
+
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                decoded.write(buf, 0, read);
+            }
+        } catch (final IOException ex) {
+            throw new BadRequestException("Invalid gzip request body: " + ex.getMessage());
+        }
+        this.compressedRequests.incrementAndGet();
+        return decoded.toByteArray();
+    }
+
+    private void respond(final HttpExchange exchange, final int status, final @Nullable String json) throws IOException, InterruptedException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+
+        this.respondBytes(exchange, status, "application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respondBytes(final HttpExchange exchange, final int status, final String contentType, final byte[] contents) throws IOException, InterruptedException {
+        byte[] body = contents;
+        final Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        final @Nullable String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (this.compressResponses && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (final OutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            headers.set("Content-Encoding", "gzip");
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
+        final long start = System.nanoTime();
+        try (final OutputStream out = exchange.getResponseBody()) {
+            for (int offset = 0; offset < body.length; offset += FakeOreServer.CHUNK_SIZE) {
+                final int length = Math.min(FakeOreServer.CHUNK_SIZE, body.length - offset);
+                out.write(body, offset, length);
+                this.throttle(start, offset + length);
+            }
+        }
+    }
+
+    /**
+     * Sleep until the time at which {@code bytes} would have been transferred at the configured bandwidth.
+     */
+    private void throttle(final long startNanos, final long bytes) throws InterruptedException {
+        final long bandwidth = this.bytesPerSecond;
+        if (bandwidth <= 0) {
+            return;
+        }
+        final long targetNanos = startNanos + TimeUnit.SECONDS.toNanos(bytes) / bandwidth;
+        final long waitNanos = targetNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static @Nullable Part findPart(final byte[] body, final String boundary, final String name) {
+        final byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] headerEnd = "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+        int partStart = FakeOreServer.indexOf(body, delimiter, 0);
+        while (partStart != -1) {
+            final int headersStart = partStart + delimiter.length + 2; // skip CRLF
+            final int contentStart = FakeOreServer.indexOf(body, headerEnd, headersStart);
+            if (contentStart == -1) {
+                return null;
+            }
+            final int next = FakeOreServer.indexOf(body, delimiter, contentStart);
+            if (next == -1) {
+                return null;
+            }
+
+            final String headers = new String(body, headersStart, contentStart - headersStart, StandardCharsets.ISO_8859_1);
+            if (headers.contains("name=\"" + name + "\"")) {
+                final int fileNameIdx = headers.indexOf("filename=\"");
+                final @Nullable String fileName = fileNameIdx == -1
+                    ? null
+                    : headers.substring(fileNameIdx + 10, headers.indexOf('"', fileNameIdx + 10));
+                // content ends before the CRLF preceding the next delimiter
+                return new Part(fileName, Arrays.copyOfRange(body, contentStart + headerEnd.length, next - 2));
+            }
+            partStart = next;
+        }
+        return null;
+    }
+
+    private static int indexOf(final byte[] haystack, final byte[] needle, final int from) {
+        outer:
+        for (int i = from; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] digest(final String algorithm, final byte[] data) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(data);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    private static String error(final String message) {
+        return "{\"error\":" + FakeOreServer.quote(message) + "}";
+    }
+
+    static String quote(final String value) {
+        final StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * A request that could not be understood, to be rejected with {@code 400 Bad Request}.
+     */
+    private static final class BadRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(final String message) {
+            super(message);
+        }
+    }
+
+    private static final class Part {
+        final @Nullable String fileName;
+        final byte[] contents;
+
+        Part(final @Nullable String fileName, final byte[] contents) {
+            this.fileName = fileName;
+            this.contents = contents;
+        }
+    }
+
+    private static final class Project {
+        final String id;
+        final List<Version> versions = new CopyOnWriteArrayList<>();
+        volatile @Nullable Set<String> permissions;
+
+        Project(final String id) {
+            this.id = id;
+        }
+
+        @Nullable Version version(final String name) {
+            for (final Version version : this.versions) {
+                if (version.name.equals(name)) {
+                    return version;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A version that has been uploaded to the server.
+     */
+    public static final class Version {
+        private final String name;
+        private final String createdAt;
+        private final String fileName;
+        private final byte[] contents;
+        private final String md5;
+        volatile @Nullable String channel;
+
+        Version(final String name, final String createdAt, final String fileName, final byte[] contents, final String md5) {
+            this.name = name;
+            this.createdAt = createdAt;
+            this.fileName = fileName;
+            this.contents = contents;
+            this.md5 = md5;
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public String fileName() {
+            return this.fileName;
+        }
+
+        public long sizeBytes() {
+            return this.contents.length;
+        }
+
+        public String md5() {
+            return this.md5;
+        }
+
+        /**
+         * Get the channel the version is tagged with.
+         *
+         * @return the channel, if any
+         */
+        public @Nullable String channel() {
+            return this.channel;
+        }
+
+        String toJson() {
+            return "{\"name\":" + FakeOreServer.quote(this.name)
+                + ",\"created_at\":" + FakeOreServer.quote(this.createdAt)
+                + ",\"file_info\":{\"name\":" + FakeOreServer.quote(this.fileName)
+                + ",\"size_bytes\":" + this.contents.length
+                + ",\"md5_hash\":" + FakeOreServer.quote(this.md5) + "}}";
+        }
+    }
+
+}